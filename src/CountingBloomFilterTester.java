@@ -0,0 +1,77 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CountingBloomFilterTester {
+
+	private static final int CAPACITY 		= 100;
+	private static final int SATURATING_ADDS 	= 300;
+
+	/**
+	 * Validates that the keys added are contained, and that they are all ruled out once the filter is emptied.
+	 */
+	@Test
+	public void testAddRemove() {
+		CountingBloomFilter filter = new CountingBloomFilter(CAPACITY);
+		for(long key = 0; key < CAPACITY; key++) {
+			filter.add(key);
+		}
+		for(long key = 0; key < CAPACITY; key++) {
+			assertTrue("Key " + key + " added but not contained!", filter.mightContain(key));
+		}
+		assertEquals(CAPACITY, filter.size());
+
+		for(long key = 0; key < CAPACITY; key += 2) {
+			filter.remove(key);
+		}
+		for(long key = 1; key < CAPACITY; key += 2) {
+			assertTrue("Key " + key + " lost by removing another!", filter.mightContain(key));
+		}
+		for(long key = 1; key < CAPACITY; key += 2) {
+			filter.remove(key);
+		}
+		for(long key = 0; key < CAPACITY; key++) {
+			assertFalse("Key " + key + " removed but contained!", filter.mightContain(key));
+		}
+		assertEquals(0, filter.size());
+	}
+
+	/**
+	 * Validates that a key added more times than a counter holds is never ruled out : its saturated counters are not
+	 * decremented, by its removals nor by the removals of the keys sharing them.
+	 */
+	@Test
+	public void testSaturation() {
+		CountingBloomFilter filter = new CountingBloomFilter(1);
+		for(int idx = 0; idx < SATURATING_ADDS; idx++) {
+			filter.add(0);
+		}
+		for(long key = 1; key < CAPACITY; key++) {
+			filter.add(key);
+			filter.remove(key);
+		}
+		assertTrue("Saturated key lost by removing others!", filter.mightContain(0));
+		for(int idx = 0; idx < SATURATING_ADDS - 1; idx++) {
+			filter.remove(0);
+		}
+		assertTrue("Saturated key lost!", filter.mightContain(0));
+	}
+
+	/**
+	 * Validates that the filter is overloaded once it holds more keys than it is sized for.
+	 */
+	@Test
+	public void testOverloaded() {
+		CountingBloomFilter filter = new CountingBloomFilter(CAPACITY);
+		for(long key = 0; key < CAPACITY; key++) {
+			filter.add(key);
+		}
+		assertFalse(filter.isOverloaded());
+		filter.add(CAPACITY);
+		assertTrue(filter.isOverloaded());
+		filter.remove(CAPACITY);
+		assertFalse(filter.isOverloaded());
+	}
+}
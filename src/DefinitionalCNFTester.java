@@ -0,0 +1,70 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DefinitionalCNFTester {
+
+	private static final int CONJUNCTION_COUNT 	= 12;
+
+	/**
+	 * Creates an agent.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(boolean definitionalCNF) {
+		Agent agent = new Agent();
+		agent.setDefinitionalCNF(definitionalCNF);
+		return agent;
+	}
+
+	/**
+	 * Validates that the facts converted by the definitional transformation answer the testcases and the benchmark as
+	 * the facts converted by distribution do.
+	 */
+	@Test
+	public void testDefinitionalAgreesWithDistributive() throws IOException {
+		List<File> inputs = SearchStrategyTester.getTestcaseInputs();
+		inputs.add(new File(SearchStrategyTester.BENCHMARK_INPUT));
+		for(File input : inputs) {
+			assertEquals("TestCase " + input + " failed!", SearchStrategyTester.ask(input, createAgent(false)),
+					SearchStrategyTester.ask(input, createAgent(true)));
+		}
+	}
+
+	/**
+	 * Validates that a disjunction of conjunctions, whose distribution doubles with every conjunction, answers the same
+	 * by the definitional transformation.
+	 */
+	@Test
+	public void testDisjunctionOfConjunctions() {
+		StringBuilder disjunction = new StringBuilder("(A0(x) & B0(x))");
+		for(int idx = 1; idx < CONJUNCTION_COUNT; idx++) {
+			disjunction.insert(0, "(").append(" | (A" + idx + "(x) & B" + idx + "(x)))");
+		}
+		List<String> facts = new ArrayList<>();
+		facts.add(disjunction.toString());
+		for(int idx = 1; idx < CONJUNCTION_COUNT; idx++) {
+			facts.add("~A" + idx + "(Bob)");
+		}
+		facts.add("~B0(Liz)");
+		List<String> queries = Arrays.asList("A0(Bob)", "B0(Bob)", "A0(Liz)", "B1(Liz)", "(A1(Liz) | A0(Liz))", "(A1(Liz) | B2(Liz))");
+
+		Agent agent = createAgent(false);
+		Agent definitionalAgent = createAgent(true);
+		for(String fact : facts) {
+			agent.tell(fact);
+			definitionalAgent.tell(fact);
+		}
+		for(String query : queries) {
+			assertEquals("Query " + query + " failed!", agent.ask(query), definitionalAgent.ask(query));
+		}
+		assertEquals(Answer.TRUE, definitionalAgent.ask("A0(Bob)"));
+		assertEquals(Answer.FALSE, definitionalAgent.ask("A0(Liz)"));
+	}
+}
@@ -0,0 +1,289 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KnowledgeBaseSnapshotTester {
+
+	private static final String TESTING_DIRECTORY 	= "testing";
+	private static final int CHAIN_LENGTH 			= 200000;
+
+	private File snapshotFile;
+
+	@Before
+	public void createSnapshotFile() throws IOException {
+		snapshotFile = File.createTempFile("knowledge-base", ".snapshot");
+	}
+
+	@After
+	public void deleteSnapshotFile() throws IOException {
+		Files.deleteIfExists(snapshotFile.toPath());
+	}
+
+	/**
+	 * Returns the input files of the testcases.
+	 * @return the input files, in the order of the testcase directories and names.
+	 */
+	private static List<File> getTestcaseInputs() {
+		List<File> inputs = new ArrayList<>();
+		File[] directories = new File(TESTING_DIRECTORY).listFiles((dir, name) -> name.startsWith("testcases"));
+		assertTrue("Testcases not found!", (directories != null) && (directories.length > 0));
+		Arrays.sort(directories);
+		for(File directory : directories) {
+			File[] files = directory.listFiles((dir, name) -> name.startsWith("input"));
+			Arrays.sort(files);
+			inputs.addAll(Arrays.asList(files));
+		}
+		return inputs;
+	}
+
+	/**
+	 * Reads the queries and the facts of the testcase.
+	 * @param input the input file of the testcase.
+	 * @param queries the list the queries are added to.
+	 * @param facts the list the facts are added to.
+	 * @throws IOException File reading exceptions.
+	 */
+	private static void readTestcase(File input, List<String> queries, List<String> facts) throws IOException {
+		List<String> lines = Files.readAllLines(input.toPath());
+		int nQueries = Integer.parseInt(lines.get(0).trim());
+		int nFacts = Integer.parseInt(lines.get(nQueries + 1).trim());
+		queries.addAll(lines.subList(1, nQueries + 1));
+		facts.addAll(lines.subList(nQueries + 2, nQueries + 2 + nFacts));
+	}
+
+	/**
+	 * Creates an agent.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(boolean definitionalCNF) {
+		Agent agent = new Agent();
+		agent.setDefinitionalCNF(definitionalCNF);
+		return agent;
+	}
+
+	/**
+	 * Answers the queries.
+	 * @param agent the agent.
+	 * @param queries the queries.
+	 * @return the answers, one per query.
+	 */
+	private static List<Answer> ask(Agent agent, List<String> queries) {
+		List<Answer> answers = new ArrayList<>();
+		for(String query : queries) {
+			answers.add(agent.ask(query));
+		}
+		return answers;
+	}
+
+	/**
+	 * Validates that every testcase answers the same from a loaded snapshot as from the knowledge base it was saved from,
+	 * and when half of the facts come from the snapshot and the other half are told on top of it.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 */
+	private void validateTestcases(boolean definitionalCNF) throws IOException {
+		for(File input : getTestcaseInputs()) {
+			List<String> queries = new ArrayList<>();
+			List<String> facts = new ArrayList<>();
+			readTestcase(input, queries, facts);
+			Agent agent = createAgent(definitionalCNF);
+			for(String fact : facts) {
+				agent.tell(fact);
+			}
+			List<Answer> expectedAnswers = ask(agent, queries);
+
+			agent.save(snapshotFile);
+			Agent loadedAgent = createAgent(definitionalCNF);
+			loadedAgent.load(snapshotFile);
+			assertEquals("TestCase " + input + " failed from the snapshot!", expectedAnswers, ask(loadedAgent, queries));
+
+			Agent halfAgent = createAgent(definitionalCNF);
+			for(String fact : facts.subList(0, facts.size() / 2)) {
+				halfAgent.tell(fact);
+			}
+			halfAgent.save(snapshotFile);
+			Agent toppedAgent = createAgent(definitionalCNF);
+			toppedAgent.load(snapshotFile);
+			for(String fact : facts.subList(facts.size() / 2, facts.size())) {
+				toppedAgent.tell(fact);
+			}
+			assertEquals("TestCase " + input + " failed on top of the snapshot!", expectedAnswers, ask(toppedAgent, queries));
+		}
+	}
+
+	/**
+	 * Validates the round trip of the testcases through a snapshot.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		validateTestcases(false);
+	}
+
+	/**
+	 * Validates the round trip of the testcases through a snapshot, with the definition predicates of the definitional
+	 * transformation.
+	 */
+	@Test
+	public void testRoundTripDefinitional() throws IOException {
+		validateTestcases(true);
+	}
+
+	/**
+	 * Validates that the definition predicates are stored, and that the facts told on top of a snapshot are not named
+	 * after the definitions of the snapshot.
+	 */
+	@Test
+	public void testDefinitionPredicates() throws IOException {
+		Agent agent = createAgent(true);
+		agent.tell("((A(x) & B(x)) | (C(x) & D(x)))");
+		agent.save(snapshotFile);
+		SymbolTable symbols = KnowledgeBaseSnapshot.open(snapshotFile).getSymbols();
+		List<String> definitions = new ArrayList<>();
+		for(int predicate = 0; predicate < symbols.getPredicateCount(); predicate++) {
+			if(symbols.getPredicateName(predicate).startsWith(CNFConverter.DEFINITION_PREFIX)) {
+				definitions.add(symbols.getPredicateName(predicate));
+			}
+		}
+		assertEquals("Definition predicates not stored!", 2, definitions.size());
+
+		Agent loadedAgent = createAgent(true);
+		loadedAgent.load(snapshotFile);
+		//definitions sharing the names of the snapshot ones would tie E to A and H to C
+		loadedAgent.tell("((E(x) & G(x)) | (H(x) & I(x)))");
+		loadedAgent.tell("~E(Bob)");
+		assertEquals(Answer.TRUE, loadedAgent.ask("H(Bob)"));
+		assertEquals(Answer.TRUE, loadedAgent.ask("I(Bob)"));
+		assertEquals(Answer.FALSE, loadedAgent.ask("C(Bob)"));
+		assertEquals(Answer.FALSE, loadedAgent.ask("D(Bob)"));
+	}
+
+	/**
+	 * Validates that the buckets are only decoded on first access, once, and that their sentences are counted beforehand.
+	 */
+	@Test
+	public void testLazyDecoding() throws Exception {
+		Agent agent = createAgent(false);
+		agent.tell("Mother(Liz,Charley)");
+		agent.tell("Father(Charley,Billy)");
+		agent.tell("Father(Philip,Charley)");
+		agent.tell("((Mother(x,y) | Father(x,y)) => Parent(x,y))");
+		agent.save(snapshotFile);
+
+		KnowledgeBaseSnapshot snapshot = KnowledgeBaseSnapshot.open(snapshotFile);
+		SymbolTable symbols = snapshot.getSymbols();
+		int father = symbols.getPredicateId("Father");
+		int parent = symbols.getPredicateId("Parent");
+		for(int predicate = 0; predicate < symbols.getPredicateCount(); predicate++) {
+			assertFalse("Bucket decoded on open!", snapshot.isDecoded(predicate, false) || snapshot.isDecoded(predicate, true));
+		}
+		assertEquals(2, snapshot.getSentenceCount(father, false));
+		assertEquals(1, snapshot.getSentenceCount(father, true));
+		assertFalse("Bucket decoded when counted!", snapshot.isDecoded(father, false));
+
+		//the buckets decoded concurrently are published once
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<PredicateBucket>> buckets = new ArrayList<>();
+			for(int idx = 0; idx < 16; idx++) {
+				buckets.add(executor.submit(() -> snapshot.getBucket(father, false)));
+			}
+			PredicateBucket bucket = buckets.get(0).get();
+			assertNotNull(bucket);
+			for(Future<PredicateBucket> otherBucket : buckets) {
+				assertSame("Bucket decoded twice!", bucket, otherBucket.get());
+			}
+			assertEquals(2, bucket.size());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertTrue(snapshot.isDecoded(father, false));
+		assertFalse("Bucket decoded along another!", snapshot.isDecoded(father, true) || snapshot.isDecoded(parent, false));
+		assertEquals(2, snapshot.getSentenceCount(parent, false));
+	}
+
+	/**
+	 * Validates that a file with the wrong magic number is rejected.
+	 */
+	@Test
+	public void testWrongMagic() throws IOException {
+		createAgent(false).save(snapshotFile);
+		try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+			file.writeInt(KnowledgeBaseSnapshot.MAGIC + 1);
+		}
+		try {
+			createAgent(false).load(snapshotFile);
+			fail("Snapshot with a wrong magic number loaded!");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Not a knowledge base snapshot"));
+		}
+	}
+
+	/**
+	 * Validates that a snapshot of another version is rejected.
+	 */
+	@Test
+	public void testWrongVersion() throws IOException {
+		createAgent(false).save(snapshotFile);
+		try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+			file.seek(4);
+			file.writeInt(KnowledgeBaseSnapshot.VERSION - 1);
+		}
+		try {
+			createAgent(false).load(snapshotFile);
+			fail("Snapshot of another version loaded!");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("version " + (KnowledgeBaseSnapshot.VERSION - 1)));
+		}
+	}
+
+	/**
+	 * Times the startup of a large chain of facts told and loaded from a snapshot, and validates their answers agree.
+	 */
+	@Test
+	public void testStartup() throws IOException {
+		List<String> facts = new ArrayList<>();
+		facts.add("(Parent(x,y) => Ancestor(x,y))");
+		facts.add("((Parent(x,y) & Ancestor(y,z)) => Ancestor(x,z))");
+		for(int idx = 0; idx < CHAIN_LENGTH; idx++) {
+			facts.add("Parent(P" + idx + ",P" + (idx + 1) + ")");
+		}
+		List<String> queries = Arrays.asList("Parent(P7,P8)", "Ancestor(P100,P120)", "Ancestor(P120,P100)", "Parent(P" + (CHAIN_LENGTH - 1) + ",P0)");
+
+		long startTime = System.currentTimeMillis();
+		Agent agent = createAgent(false);
+		for(String fact : facts) {
+			agent.tell(fact);
+		}
+		long toldTime = System.currentTimeMillis();
+		List<Answer> expectedAnswers = ask(agent, queries);
+		agent.save(snapshotFile);
+
+		long loadTime = System.currentTimeMillis();
+		Agent loadedAgent = createAgent(false);
+		loadedAgent.load(snapshotFile);
+		long loadedTime = System.currentTimeMillis();
+		assertEquals(expectedAnswers, ask(loadedAgent, queries));
+		assertEquals(Arrays.asList(Answer.TRUE, Answer.TRUE, Answer.FALSE, Answer.FALSE), expectedAnswers);
+		System.out.println("Telling " + facts.size() + " facts took " + (toldTime - startTime) + " milliseconds, loading them took "
+				+ (loadedTime - loadTime) + " milliseconds");
+	}
+}
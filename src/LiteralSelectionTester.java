@@ -0,0 +1,41 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LiteralSelectionTester {
+
+	private static final long QUERY_TIMEOUT 	= 1000;
+
+	/**
+	 * Creates an agent selecting the literals with the strategy.<BR>
+	 * The queries are timed out, so a selection which diverges answers UNKNOWN instead of never finishing.
+	 * @param literalSelection the literal selection strategy.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(LiteralSelection literalSelection) {
+		Agent agent = new Agent();
+		agent.setLiteralSelection(literalSelection);
+		agent.setBudget(new QueryBudget(0, QUERY_TIMEOUT, 0, 0));
+		return agent;
+	}
+
+	/**
+	 * Validates that every literal selection strategy answers the testcases and the benchmark as the FIRST selection does.
+	 */
+	@Test
+	public void testLiteralSelectionsAgreeWithFirst() throws IOException {
+		List<File> inputs = SearchStrategyTester.getTestcaseInputs();
+		inputs.add(new File(SearchStrategyTester.BENCHMARK_INPUT));
+		for(File input : inputs) {
+			List<Answer> expectedAnswers = SearchStrategyTester.ask(input, createAgent(LiteralSelection.FIRST));
+			for(LiteralSelection literalSelection : LiteralSelection.values()) {
+				assertEquals("TestCase " + input + " failed with " + literalSelection + "!",
+						expectedAnswers, SearchStrategyTester.ask(input, createAgent(literalSelection)));
+			}
+		}
+	}
+}
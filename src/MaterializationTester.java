@@ -0,0 +1,208 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MaterializationTester {
+
+	private static final String ASK_RESOLUTION 	= QueryServer.ASK_COMMAND + QueryServer.ENGINE_SEPARATOR + Engine.RESOLUTION;
+
+	/**
+	 * Serves the session to an agent answering the queries by materialization.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 * @param requests the requests of the session, one per line.
+	 * @return the responses, one per request.
+	 * @throws IOException Stream exceptions.
+	 */
+	private static List<String> serve(boolean definitionalCNF, String... requests) throws IOException {
+		Agent agent = new Agent();
+		agent.setEngine(Engine.MATERIALIZATION);
+		agent.setDefinitionalCNF(definitionalCNF);
+		QueryServer server = new QueryServer(agent, 4);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			byte[] input = String.join("\n", requests).getBytes(StandardCharsets.UTF_8);
+			server.serve(new ByteArrayInputStream(input), output);
+		}
+		finally {
+			server.shutdown();
+		}
+		String responses = new String(output.toByteArray(), StandardCharsets.UTF_8).trim();
+		return new ArrayList<>(Arrays.asList(responses.split("\\R")));
+	}
+
+	/**
+	 * Returns the requests asking the query by materialization and by resolution.
+	 * @param query the query.
+	 * @return the requests.
+	 */
+	private static List<String> askBoth(String query) {
+		return Arrays.asList(QueryServer.ASK_COMMAND + " " + query, ASK_RESOLUTION + " " + query);
+	}
+
+	/**
+	 * Validates the responses of the session : each query must be answered alike by materialization and by resolution,
+	 * and as expected.<BR>
+	 * The knowledge base is only materialized by its first query, so the sessions ask a query before retracting, 
+	 * otherwise the retraction merely invalidates the materialization instead of deleting and rederiving the facts.
+	 * @param requests the requests of the session.
+	 * @param expectedResponses the expected response of each request, the queries being answered once per engine.
+	 * @throws IOException Stream exceptions.
+	 */
+	private static void validateSession(List<Object> requests, List<String> expectedResponses) throws IOException {
+		validateSession(false, requests, expectedResponses);
+	}
+	
+	/**
+	 * Validates the responses of the session, see {@link #validateSession(List, List)}.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 * @param requests the requests of the session.
+	 * @param expectedResponses the expected response of each request, the queries being answered once per engine.
+	 * @throws IOException Stream exceptions.
+	 */
+	private static void validateSession(boolean definitionalCNF, List<Object> requests, List<String> expectedResponses) throws IOException {
+		List<String> lines = new ArrayList<>();
+		List<String> expectedLines = new ArrayList<>();
+		for(int idx = 0; idx < requests.size(); idx++) {
+			Object request = requests.get(idx);
+			if(request instanceof List) {
+				for(Object line : (List<?>)request) {
+					lines.add(line.toString());
+					expectedLines.add(expectedResponses.get(idx));
+				}
+			}
+			else {
+				lines.add(request.toString());
+				expectedLines.add(expectedResponses.get(idx));
+			}
+		}
+		List<String> responses = serve(definitionalCNF, lines.toArray(new String[lines.size()]));
+		assertEquals("Unexpected number of responses!", lines.size(), responses.size());
+		for(int idx = 0; idx < lines.size(); idx++) {
+			if(lines.get(idx).startsWith(ASK_RESOLUTION)) {
+				assertEquals("Engines disagree on " + lines.get(idx) + "!", responses.get(idx - 1), responses.get(idx));
+			}
+			assertEquals("Request " + lines.get(idx) + " failed!", expectedLines.get(idx), responses.get(idx));
+		}
+	}
+
+	/**
+	 * Validates that the facts derived through a retracted rule are deleted, and the ones derived otherwise are kept.
+	 */
+	@Test
+	public void testRetractRule() throws IOException {
+		validateSession(Arrays.asList(
+				"TELL (Mother(x,y) => Parent(x,y))",
+				"TELL (Father(x,y) => Parent(x,y))",
+				"TELL ((Parent(x,y) & Parent(y,z)) => Grandparent(x,z))",
+				"TELL Mother(Liz,Charley)",
+				"TELL Father(Charley,Billy)",
+				"TELL Father(Bob,Ann)",
+				"TELL Mother(Bob,Ann)",
+				askBoth("Grandparent(Liz,Billy)"),
+				"RETRACT (Mother(x,y) => Parent(x,y))",
+				askBoth("Grandparent(Liz,Billy)"),
+				askBoth("Parent(Liz,Charley)"),
+				askBoth("Parent(Charley,Billy)"),
+				askBoth("Parent(Bob,Ann)"),
+				"TELL (Mother(x,y) => Parent(x,y))",
+				askBoth("Grandparent(Liz,Billy)")),
+			Arrays.asList("OK", "OK", "OK", "OK", "OK", "OK", "OK", "TRUE", "OK", "FALSE", "FALSE", "TRUE", "TRUE", "OK", "TRUE"));
+	}
+
+	/**
+	 * Validates that a fact told twice and retracted once is still entailed, along with its consequences.
+	 */
+	@Test
+	public void testRetractDuplicateFact() throws IOException {
+		validateSession(Arrays.asList(
+				"TELL (Mother(x,y) => Parent(x,y))",
+				"TELL Mother(Liz,Charley)",
+				"TELL Mother(Liz,Charley)",
+				askBoth("Parent(Liz,Charley)"),
+				"RETRACT Mother(Liz,Charley)",
+				askBoth("Mother(Liz,Charley)"),
+				askBoth("Parent(Liz,Charley)"),
+				"RETRACT Mother(Liz,Charley)",
+				askBoth("Mother(Liz,Charley)"),
+				askBoth("Parent(Liz,Charley)"),
+				"RETRACT Mother(Liz,Charley)"),
+			Arrays.asList("OK", "OK", "OK", "TRUE", "OK", "TRUE", "TRUE", "OK", "FALSE", "FALSE", "ERROR fact not found"));
+	}
+
+	/**
+	 * Validates that a fact both stated and derivable survives the retraction of either its statement or its derivation.
+	 */
+	@Test
+	public void testRetractStatedDerivableFact() throws IOException {
+		validateSession(Arrays.asList(
+				"TELL (Mother(x,y) => Parent(x,y))",
+				"TELL ((Parent(x,y) & Parent(y,z)) => Grandparent(x,z))",
+				"TELL Mother(Liz,Charley)",
+				"TELL Parent(Liz,Charley)",
+				"TELL Parent(Charley,Billy)",
+				askBoth("Grandparent(Liz,Billy)"),
+				"RETRACT Parent(Liz,Charley)",
+				askBoth("Parent(Liz,Charley)"),
+				askBoth("Grandparent(Liz,Billy)"),
+				"TELL Parent(Liz,Charley)",
+				"RETRACT Mother(Liz,Charley)",
+				askBoth("Parent(Liz,Charley)"),
+				askBoth("Grandparent(Liz,Billy)"),
+				"RETRACT Parent(Liz,Charley)",
+				askBoth("Parent(Liz,Charley)"),
+				askBoth("Grandparent(Liz,Billy)")),
+			Arrays.asList("OK", "OK", "OK", "OK", "OK", "TRUE", "OK", "TRUE", "TRUE", "OK", "OK", "TRUE", "TRUE", "OK", "FALSE", "FALSE"));
+	}
+
+	/**
+	 * Validates that retracting a fact which made a constraint fire restores the consistency of the knowledge base.
+	 */
+	@Test
+	public void testRetractConstraintFact() throws IOException {
+		validateSession(Arrays.asList(
+				"TELL (Mother(x,y) => Parent(x,y))",
+				"TELL (Father(x,y) => Parent(x,y))",
+				"TELL ~(Mother(x,y) & Father(x,y))",
+				"TELL Mother(Liz,Charley)",
+				askBoth("~Father(Liz,Charley)"),
+				"TELL Father(Liz,Charley)",
+				askBoth("~Father(Liz,Charley)"),
+				askBoth("~Mother(Liz,Charley)"),
+				"RETRACT Mother(Liz,Charley)",
+				askBoth("~Father(Liz,Charley)"),
+				askBoth("Parent(Liz,Charley)"),
+				askBoth("Mother(Liz,Charley)"),
+				askBoth("Father(Bob,Ann)")),
+			Arrays.asList("OK", "OK", "OK", "OK", "TRUE", "OK", "TRUE", "TRUE", "OK", "FALSE", "TRUE", "FALSE", "FALSE"));
+	}
+	
+	/**
+	 * Validates that a sentence whose clauses are not all stored is not retracted at all, as with the definitions of the 
+	 * definitional transformation, which are named after the sentence told.
+	 */
+	@Test
+	public void testRetractDefinitionalSentence() throws IOException {
+		validateSession(true, Arrays.asList(
+				"TELL ((A(x) | (B(x) & C(x))) & D(x))",
+				"TELL (D(x) => E(x))",
+				"TELL (F(x) & G(x))",
+				askBoth("D(K)"),
+				askBoth("E(K)"),
+				"RETRACT ((A(x) | (B(x) & C(x))) & D(x))",
+				askBoth("D(K)"),
+				askBoth("E(K)"),
+				"RETRACT (F(x) & G(x))",
+				askBoth("F(K)"),
+				askBoth("G(K)"),
+				askBoth("E(K)")),
+			Arrays.asList("OK", "OK", "OK", "TRUE", "TRUE", "ERROR fact not found", "TRUE", "TRUE", "OK", "FALSE", "FALSE", "TRUE"));
+	}
+}
@@ -0,0 +1,81 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class OrParallelTester {
+
+	private static final int[] OR_PARALLEL_DEPTHS 	= {1, 4};
+	private static final int[] TABLE_SIZES 			= {0, 1024};
+	private static final int QUERY_THREADS 			= 8;
+
+	/**
+	 * Creates an agent.
+	 * @param orParallelDepth the number of levels explored in parallel, 0 for the sequential search.
+	 * @param tableSize the size of the table shared across queries, 0 to disable it.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(int orParallelDepth, int tableSize) {
+		Agent agent = new Agent();
+		agent.setOrParallelDepth(orParallelDepth);
+		agent.setTableSize(tableSize);
+		return agent;
+	}
+
+	/**
+	 * Validates that the or-parallel search answers the testcases and the benchmark as the sequential search does, with
+	 * and without the table shared by the branches.
+	 */
+	@Test
+	public void testOrParallelAgreesWithSequential() throws IOException {
+		List<File> inputs = SearchStrategyTester.getTestcaseInputs();
+		inputs.add(new File(SearchStrategyTester.BENCHMARK_INPUT));
+		for(File input : inputs) {
+			List<Answer> expectedAnswers = SearchStrategyTester.ask(input, createAgent(0, 0));
+			for(int orParallelDepth : OR_PARALLEL_DEPTHS) {
+				for(int tableSize : TABLE_SIZES) {
+					assertEquals("TestCase " + input + " failed with depth " + orParallelDepth + " and table size " + tableSize + "!",
+							expectedAnswers, SearchStrategyTester.ask(input, createAgent(orParallelDepth, tableSize)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Validates that the queries of the benchmark answered concurrently by the or-parallel search, sharing the table,
+	 * are answered as by the sequential search.
+	 */
+	@Test
+	public void testConcurrentQueries() throws Exception {
+		File input = new File(SearchStrategyTester.BENCHMARK_INPUT);
+		List<Answer> expectedAnswers = SearchStrategyTester.ask(input, createAgent(0, 0));
+		List<String> lines = Files.readAllLines(input.toPath());
+		int nQueries = Integer.parseInt(lines.get(0).trim());
+		int nFacts = Integer.parseInt(lines.get(nQueries + 1).trim());
+		Agent agent = createAgent(OR_PARALLEL_DEPTHS[OR_PARALLEL_DEPTHS.length - 1], TABLE_SIZES[TABLE_SIZES.length - 1]);
+		for(String fact : lines.subList(nQueries + 2, nQueries + 2 + nFacts)) {
+			agent.tell(fact);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(QUERY_THREADS);
+		try {
+			List<Future<Answer>> answers = new ArrayList<>();
+			for(String query : lines.subList(1, nQueries + 1)) {
+				answers.add(executor.submit(() -> agent.ask(query)));
+			}
+			for(int idx = 0; idx < answers.size(); idx++) {
+				assertEquals("Query " + lines.get(idx + 1) + " failed!", expectedAnswers.get(idx), answers.get(idx).get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+}
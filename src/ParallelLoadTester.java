@@ -0,0 +1,132 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelLoadTester {
+
+	private static final int[] LOAD_THREADS 	= {1, 2, 8};
+
+	private File snapshotFile;
+	private File parallelSnapshotFile;
+
+	@Before
+	public void createSnapshotFiles() throws IOException {
+		snapshotFile = File.createTempFile("knowledge-base", ".snapshot");
+		parallelSnapshotFile = File.createTempFile("knowledge-base", ".snapshot");
+	}
+
+	@After
+	public void deleteSnapshotFiles() throws IOException {
+		Files.deleteIfExists(snapshotFile.toPath());
+		Files.deleteIfExists(parallelSnapshotFile.toPath());
+	}
+
+	/**
+	 * Reads the queries and the facts of the testcase.
+	 * @param input the input file of the testcase.
+	 * @param queries the list the queries are added to.
+	 * @param facts the list the facts are added to.
+	 * @throws IOException File reading exceptions.
+	 */
+	private static void readTestcase(File input, List<String> queries, List<String> facts) throws IOException {
+		List<String> lines = Files.readAllLines(input.toPath());
+		int nQueries = Integer.parseInt(lines.get(0).trim());
+		int nFacts = Integer.parseInt(lines.get(nQueries + 1).trim());
+		queries.addAll(lines.subList(1, nQueries + 1));
+		facts.addAll(lines.subList(nQueries + 2, nQueries + 2 + nFacts));
+	}
+
+	/**
+	 * Creates an agent.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(boolean definitionalCNF) {
+		Agent agent = new Agent();
+		agent.setDefinitionalCNF(definitionalCNF);
+		return agent;
+	}
+
+	/**
+	 * Answers the queries.
+	 * @param agent the agent.
+	 * @param queries the queries.
+	 * @return the answers, one per query.
+	 */
+	private static List<Answer> ask(Agent agent, List<String> queries) {
+		List<Answer> answers = new ArrayList<>();
+		for(String query : queries) {
+			answers.add(agent.ask(query));
+		}
+		return answers;
+	}
+
+	/**
+	 * Validates that the facts of every testcase loaded in parallel make the same knowledge base, saved byte for byte,
+	 * and answer the same as when told one by one.
+	 * @param definitionalCNF true to convert the facts by the definitional transformation.
+	 */
+	private void validateTestcases(boolean definitionalCNF) throws IOException {
+		List<File> inputs = SearchStrategyTester.getTestcaseInputs();
+		inputs.add(new File(SearchStrategyTester.BENCHMARK_INPUT));
+		for(File input : inputs) {
+			List<String> queries = new ArrayList<>();
+			List<String> facts = new ArrayList<>();
+			readTestcase(input, queries, facts);
+			Agent agent = createAgent(definitionalCNF);
+			for(String fact : facts) {
+				agent.tell(fact);
+			}
+			agent.save(snapshotFile);
+			List<Answer> expectedAnswers = ask(agent, queries);
+
+			for(int threads : LOAD_THREADS) {
+				Agent parallelAgent = createAgent(definitionalCNF);
+				parallelAgent.tellAll(facts, threads);
+				parallelAgent.save(parallelSnapshotFile);
+				assertArrayEquals("TestCase " + input + " loaded differently with " + threads + " threads!",
+						Files.readAllBytes(snapshotFile.toPath()), Files.readAllBytes(parallelSnapshotFile.toPath()));
+				assertEquals("TestCase " + input + " failed with " + threads + " threads!", expectedAnswers, ask(parallelAgent, queries));
+			}
+		}
+	}
+
+	/**
+	 * Validates the parallel load of the testcases.
+	 */
+	@Test
+	public void testParallelLoad() throws IOException {
+		validateTestcases(false);
+	}
+
+	/**
+	 * Validates the parallel load of the testcases, with the definition predicates of the definitional transformation.
+	 */
+	@Test
+	public void testParallelLoadDefinitional() throws IOException {
+		validateTestcases(true);
+	}
+
+	/**
+	 * Validates that the testcases run with several threads are answered as with a single one.
+	 */
+	@Test
+	public void testThreadsOption() throws IOException {
+		for(File input : SearchStrategyTester.getTestcaseInputs()) {
+			String expectedOutput = SearchStrategyTester.runTestcase(input, "-threads", "1");
+			for(int threads : LOAD_THREADS) {
+				assertEquals("TestCase " + input + " failed with " + threads + " threads!",
+						expectedOutput, SearchStrategyTester.runTestcase(input, "-threads", String.valueOf(threads)));
+			}
+		}
+	}
+}
@@ -0,0 +1,194 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PredicateBucketTester {
+
+	private static final int FACT_COUNT 	= 1000;
+
+	/**
+	 * Compiles the FOL disjunction to a clause.
+	 * @param KB the knowledge base interning the symbols.
+	 * @param disjunction the FOL disjunction.
+	 * @return the clause.
+	 */
+	private static Clause compile(KnowledgeBase KB, String disjunction) {
+		return KB.compile(new CNFConverter().convertToCNF(disjunction, 0).get(0));
+	}
+
+	/**
+	 * Returns the index of the literal of the clause with the same predicate and polarity as the first literal of the goal.
+	 * @param clause the clause.
+	 * @param goal the goal clause.
+	 * @return the index of the literal.
+	 */
+	private static int findLiteral(Clause clause, Clause goal) {
+		int literal = 0;
+		while(clause.getHeader(literal) != goal.getHeader(0)) {
+			literal++;
+		}
+		return literal;
+	}
+
+	/**
+	 * Validates that the ground unit facts are found by their arguments, that a removed fact is replaced by a remaining
+	 * duplicate, and that the ground literals of the non-unit clauses are never taken for facts.
+	 */
+	@Test
+	public void testGroundFacts() {
+		KnowledgeBase KB = new KnowledgeBase();
+		Clause goal = compile(KB, "Parent(A,B)");
+		Clause fact = compile(KB, "Parent(A,B)");
+		Clause otherFact = compile(KB, "Parent(A,C)");
+		Clause duplicate = compile(KB, "Parent(A,B)");
+		Clause disjunction = compile(KB, "(Parent(A,B) | Sibling(A,C))");
+		PredicateBucket bucket = new PredicateBucket();
+		bucket.add(disjunction, findLiteral(disjunction, goal));
+		bucket.add(fact, 0);
+		bucket.add(otherFact, 0);
+		bucket.add(duplicate, 0);
+
+		assertSame(fact, bucket.getGroundFact(goal, 0).getClause());
+		assertSame(otherFact, bucket.getGroundFact(compile(KB, "Parent(A,C)"), 0).getClause());
+		assertNull(bucket.getGroundFact(compile(KB, "Parent(B,A)"), 0));
+		assertNull(bucket.getGroundFact(compile(KB, "Parent(C,B)"), 0));
+
+		bucket.remove(fact);
+		assertSame("Removed fact not replaced by its duplicate!", duplicate, bucket.getGroundFact(goal, 0).getClause());
+		bucket.remove(duplicate);
+		assertNull("Non-unit clause taken for a fact!", bucket.getGroundFact(goal, 0));
+		bucket.add(fact, 0);
+		assertSame(fact, bucket.getGroundFact(goal, 0).getClause());
+		bucket.remove(otherFact);
+		assertNull(bucket.getGroundFact(compile(KB, "Parent(A,C)"), 0));
+		assertEquals(2, bucket.size());
+	}
+
+	/**
+	 * Validates that the goals are ruled out by the constants of the stored literals, and by the argument tuples of the
+	 * ground ones only while the bucket holds no non-ground literal.
+	 */
+	@Test
+	public void testMayMatch() {
+		KnowledgeBase KB = new KnowledgeBase();
+		Clause fact = compile(KB, "Parent(A,B)");
+		PredicateBucket bucket = new PredicateBucket();
+		assertFalse(bucket.mayMatch(compile(KB, "Parent(x,y)"), 0));
+		bucket.add(fact, 0);
+		bucket.add(compile(KB, "Parent(C,D)"), 0);
+
+		assertTrue(bucket.mayMatch(compile(KB, "Parent(A,B)"), 0));
+		assertTrue(bucket.mayMatch(compile(KB, "Parent(x,D)"), 0));
+		assertTrue(bucket.mayMatch(compile(KB, "Parent(x,y)"), 0));
+		assertFalse(bucket.mayMatch(compile(KB, "Parent(E,x)"), 0));
+		assertFalse(bucket.mayMatch(compile(KB, "Parent(x,E)"), 0));
+		assertFalse("Tuple of the goal not stored!", bucket.mayMatch(compile(KB, "Parent(A,D)"), 0));
+
+		Clause rule = compile(KB, "(Parent(x,E) | Sibling(x,E))");
+		bucket.add(rule, findLiteral(rule, fact));
+		assertTrue(bucket.mayMatch(compile(KB, "Parent(A,E)"), 0));
+		assertTrue(bucket.mayMatch(compile(KB, "Parent(E,E)"), 0));
+		assertFalse(bucket.mayMatch(compile(KB, "Parent(E,F)"), 0));
+		assertTrue(bucket.mayMatchRule(compile(KB, "Parent(A,E)"), 0));
+		assertFalse(bucket.mayMatchRule(compile(KB, "Parent(A,F)"), 0));
+
+		bucket.remove(rule);
+		bucket.remove(fact);
+		assertFalse(bucket.mayMatch(compile(KB, "Parent(A,E)"), 0));
+		assertFalse("Removed fact not ruled out!", bucket.mayMatch(compile(KB, "Parent(A,B)"), 0));
+		bucket.add(compile(KB, "Parent(A,B)"), 0);
+		assertTrue("Fact told back ruled out!", bucket.mayMatch(compile(KB, "Parent(A,B)"), 0));
+	}
+
+	/**
+	 * Validates that every stored literal is admitted by the filters rebuilt as the bucket grows, after half of them are
+	 * removed and half of these added back, and that most of the removed ones are ruled out.
+	 */
+	@Test
+	public void testRebuiltFilter() {
+		KnowledgeBase KB = new KnowledgeBase();
+		List<Clause> facts = new ArrayList<>();
+		PredicateBucket bucket = new PredicateBucket();
+		for(int idx = 0; idx < FACT_COUNT; idx++) {
+			Clause fact = compile(KB, "Parent(A" + idx + ",B" + idx + ")");
+			facts.add(fact);
+			bucket.add(fact, 0);
+		}
+		for(int idx = 0; idx < FACT_COUNT; idx += 2) {
+			bucket.remove(facts.get(idx));
+		}
+		for(int idx = 0; idx < FACT_COUNT; idx += 4) {
+			Clause fact = compile(KB, "Parent(A" + idx + ",B" + idx + ")");
+			facts.set(idx, fact);
+			bucket.add(fact, 0);
+		}
+		int admittedRemovals = 0;
+		for(int idx = 0; idx < FACT_COUNT; idx++) {
+			Clause goal = compile(KB, "Parent(A" + idx + ",B" + idx + ")");
+			boolean isStored = (idx % 4 == 0) || (idx % 2 == 1);
+			if(isStored) {
+				assertTrue("Fact " + idx + " not admitted!", bucket.mayMatch(goal, 0));
+				assertTrue("Fact " + idx + " not admitted!", bucket.mayMatch(compile(KB, "Parent(A" + idx + ",y)"), 0));
+			}
+			else if(bucket.mayMatch(goal, 0)) {
+				admittedRemovals++;
+			}
+			assertEquals(isStored, bucket.getGroundFact(goal, 0) != null);
+		}
+		assertTrue(admittedRemovals + " removed facts admitted!", admittedRemovals < FACT_COUNT / 40);
+	}
+
+	/**
+	 * Validates that the facts retracted and told back are entailed, past the rebuilds of the filters of their buckets.
+	 */
+	@Test
+	public void testRetractThenTell() {
+		Agent agent = new Agent();
+		agent.tell("(Parent(x,y) => Ancestor(x,y))");
+		for(int idx = 0; idx < FACT_COUNT; idx++) {
+			agent.tell("Parent(A" + idx + ",B" + idx + ")");
+		}
+		for(int idx = 0; idx < FACT_COUNT; idx += 2) {
+			assertTrue(agent.retract("Parent(A" + idx + ",B" + idx + ")"));
+		}
+		for(int idx = 0; idx < FACT_COUNT; idx += 2) {
+			assertEquals(Answer.FALSE, agent.ask("Ancestor(A" + idx + ",B" + idx + ")"));
+			agent.tell("Parent(A" + idx + ",B" + idx + ")");
+		}
+		for(int idx = 0; idx < FACT_COUNT; idx++) {
+			assertEquals("Fact " + idx + " not entailed!", Answer.TRUE, agent.ask("Parent(A" + idx + ",B" + idx + ")"));
+			assertEquals("Fact " + idx + " not entailed!", Answer.TRUE, agent.ask("Ancestor(A" + idx + ",B" + idx + ")"));
+		}
+	}
+
+	/**
+	 * Validates that a ground fact told twice is entailed until both are retracted, and again once told back.
+	 */
+	@Test
+	public void testRetractDuplicateFacts() {
+		Agent agent = new Agent();
+		agent.tell("Parent(A,B)");
+		agent.tell("((Parent(x,y) & Parent(y,z)) => Grandparent(x,z))");
+		agent.tell("Parent(B,C)");
+		agent.tell("Parent(A,B)");
+		assertEquals(Answer.TRUE, agent.ask("Grandparent(A,C)"));
+
+		assertTrue(agent.retract("Parent(A,B)"));
+		assertEquals("Duplicate fact lost!", Answer.TRUE, agent.ask("Parent(A,B)"));
+		assertEquals(Answer.TRUE, agent.ask("Grandparent(A,C)"));
+		assertTrue(agent.retract("Parent(A,B)"));
+		assertEquals(Answer.FALSE, agent.ask("Parent(A,B)"));
+		assertEquals(Answer.FALSE, agent.ask("Grandparent(A,C)"));
+
+		agent.tell("Parent(A,B)");
+		assertEquals(Answer.TRUE, agent.ask("Parent(A,B)"));
+		assertEquals(Answer.TRUE, agent.ask("Grandparent(A,C)"));
+	}
+}
@@ -0,0 +1,108 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class QueryBudgetTester {
+
+	private static final int[] OR_PARALLEL_DEPTHS 	= {0, 4};
+	private static final int DIAMOND_COUNT 			= 40;
+	private static final int SMALL_DIAMOND_COUNT 	= 3;
+	private static final long MAX_STEPS 			= 100;
+	private static final long TIMEOUT 				= 200;
+	private static final long TIMEOUT_LIMIT 		= 10000;
+	private static final long TEST_TIMEOUT 			= 60000;
+	private static final int MAX_DEPTH 				= 10;
+	private static final int MAX_VISITED 			= 10;
+
+	/**
+	 * Creates the facts of a chain of diamonds A0 -> B0|C0 -> A1 -> ... with the recursive rules of the paths, so the
+	 * number of paths from A0 doubles with every diamond and a path to a missing node is only disproved exhaustively.
+	 * @param diamondCount the number of diamonds.
+	 * @return the facts.
+	 */
+	private static List<String> createDiamonds(int diamondCount) {
+		List<String> facts = new ArrayList<>();
+		facts.add("(Edge(x,y) => Path(x,y))");
+		facts.add("((Edge(x,y) & Path(y,z)) => Path(x,z))");
+		for(int idx = 0; idx < diamondCount; idx++) {
+			facts.add("Edge(A" + idx + ",B" + idx + ")");
+			facts.add("Edge(A" + idx + ",C" + idx + ")");
+			facts.add("Edge(B" + idx + ",A" + (idx + 1) + ")");
+			facts.add("Edge(C" + idx + ",A" + (idx + 1) + ")");
+		}
+		return facts;
+	}
+
+	/**
+	 * Creates an agent without table, so the failed goals are explored again on every path.
+	 * @param budget the budget of each query.
+	 * @param orParallelDepth the number of levels explored in parallel, 0 for the sequential search.
+	 * @param diamondCount the number of diamonds told, see {@link #createDiamonds(int)}.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(QueryBudget budget, int orParallelDepth, int diamondCount) {
+		Agent agent = new Agent();
+		agent.setBudget(budget);
+		agent.setOrParallelDepth(orParallelDepth);
+		agent.setTableSize(0);
+		for(String fact : createDiamonds(diamondCount)) {
+			agent.tell(fact);
+		}
+		return agent;
+	}
+
+	/**
+	 * Validates that a recursive query running out of steps is answered UNKNOWN, sequentially, in parallel and by
+	 * iterative deepening, while a query refuted within the steps is still answered.
+	 */
+	@Test
+	public void testStepBudget() {
+		for(int orParallelDepth : OR_PARALLEL_DEPTHS) {
+			Agent agent = createAgent(new QueryBudget(MAX_STEPS, 0, 0, 0), orParallelDepth, DIAMOND_COUNT);
+			assertEquals("Failed with depth " + orParallelDepth + "!", Answer.UNKNOWN, agent.ask("Path(A0,Z)"));
+			assertEquals("Failed with depth " + orParallelDepth + "!", Answer.TRUE, agent.ask("Path(A0,A1)"));
+			agent.setIterativeDeepening(true);
+			assertEquals("Failed with depth " + orParallelDepth + " by iterative deepening!", Answer.UNKNOWN, agent.ask("Path(A0,Z)"));
+		}
+	}
+
+	/**
+	 * Validates that a query running out of time is answered UNKNOWN promptly, the branches explored in parallel being
+	 * stopped along with it.
+	 */
+	@Test(timeout = TEST_TIMEOUT)
+	public void testTimeout() {
+		for(int orParallelDepth : OR_PARALLEL_DEPTHS) {
+			Agent agent = createAgent(new QueryBudget(0, TIMEOUT, 0, 0), orParallelDepth, DIAMOND_COUNT);
+			long startTime = System.currentTimeMillis();
+			Answer answer = agent.ask("Path(A0,Z)");
+			long endTime = System.currentTimeMillis();
+			assertEquals("Failed with depth " + orParallelDepth + "!", Answer.UNKNOWN, answer);
+			assertTrue("Query timed out after " + (endTime - startTime) + " milliseconds with depth " + orParallelDepth + "!",
+					endTime - startTime < TIMEOUT_LIMIT);
+		}
+	}
+
+	/**
+	 * Validates that a query cut off by the maximum depth or by the maximum number of visited goals is answered UNKNOWN,
+	 * and FALSE when the search space is within the limits.
+	 */
+	@Test
+	public void testDepthAndVisitedLimits() {
+		List<QueryBudget> budgets = new ArrayList<>();
+		budgets.add(new QueryBudget(0, 0, MAX_DEPTH, 0));
+		budgets.add(new QueryBudget(0, 0, 0, MAX_VISITED));
+		for(QueryBudget budget : budgets) {
+			for(int orParallelDepth : OR_PARALLEL_DEPTHS) {
+				assertEquals("Failed with depth " + orParallelDepth + "!", Answer.UNKNOWN,
+						createAgent(budget, orParallelDepth, DIAMOND_COUNT).ask("Path(A0,Z)"));
+				assertEquals("Failed with depth " + orParallelDepth + "!", Answer.FALSE,
+						createAgent(budget, orParallelDepth, SMALL_DIAMOND_COUNT).ask("Path(A1,Z)"));
+			}
+		}
+	}
+}
@@ -0,0 +1,198 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class QueryServerTester {
+
+	private static final int CHAIN_LENGTH 	= 60;
+
+	/**
+	 * Returns the requests telling a chain of parents P0, P1, ... along with the Ancestor rules.
+	 * @return the requests.
+	 */
+	private static List<String> tellChain() {
+		List<String> requests = new ArrayList<>();
+		requests.add("TELL (Parent(x,y) => Ancestor(x,y))");
+		requests.add("TELL ((Parent(x,y) & Ancestor(y,z)) => Ancestor(x,z))");
+		for(int idx = 0; idx < CHAIN_LENGTH; idx++) {
+			requests.add("TELL Parent(P" + idx + ",P" + (idx + 1) + ")");
+		}
+		return requests;
+	}
+
+	/**
+	 * Returns the requests of the session and their expected responses.<BR>
+	 * The queries before the TELL are pipelined, the long ones ahead of the short ones, and one of them is only
+	 * entailed once the fact is told.
+	 * @param expectedResponses the list the expected responses are added to.
+	 * @return the requests.
+	 */
+	private static List<String> getSession(List<String> expectedResponses) {
+		List<String> requests = tellChain();
+		for(int idx = 0; idx < requests.size(); idx++) {
+			expectedResponses.add(QueryServer.OK_RESPONSE);
+		}
+		String[][] exchanges = {
+				{"ASK Ancestor(P0,P" + CHAIN_LENGTH + ")", "TRUE"},
+				{"ASK Parent(P0,P1)", "TRUE"},
+				{"ASK:RESOLUTION Ancestor(P" + CHAIN_LENGTH + ",P0)", "FALSE"},
+				{"ASK ~Ancestor(P1,P0)", "FALSE"},
+				{"FORGET Parent(P0,P1)", "ERROR unknown command FORGET"},
+				{"ASK:BOGUS Parent(P0,P1)", "ERROR unknown engine BOGUS"},
+				{"ASK Parent(P0,P0)", "FALSE"},
+				{"TELL Parent(P" + CHAIN_LENGTH + ",P0)", "OK"},
+				{"ASK Ancestor(P" + CHAIN_LENGTH + ",P0)", "TRUE"},
+				{"ask Parent(P" + CHAIN_LENGTH + ",P0)", "TRUE"},
+				{"RETRACT Parent(P" + CHAIN_LENGTH + ",P0)", "OK"},
+				{"ASK Parent(P" + CHAIN_LENGTH + ",P0)", "FALSE"},
+				{"QUIT", null},
+				{"ASK Parent(P0,P1)", null}};
+		for(String[] exchange : exchanges) {
+			requests.add(exchange[0]);
+			if(exchange[1] != null) {
+				expectedResponses.add(exchange[1]);
+			}
+		}
+		return requests;
+	}
+
+	/**
+	 * Reads the responses until the end of the stream.
+	 * @param reader the stream of responses.
+	 * @return the responses.
+	 * @throws IOException Stream exceptions.
+	 */
+	private static List<String> readResponses(BufferedReader reader) throws IOException {
+		List<String> responses = new ArrayList<>();
+		String response = null;
+		while( (response = reader.readLine()) != null ) {
+			responses.add(response);
+		}
+		return responses;
+	}
+
+	/**
+	 * Validates the responses of a session : one per request up to QUIT, in the order of the requests.
+	 * @param expectedResponses the expected responses.
+	 * @param responses the responses.
+	 */
+	private static void validateResponses(List<String> expectedResponses, List<String> responses) {
+		assertEquals("Unexpected number of responses!", expectedResponses.size(), responses.size());
+		for(int idx = 0; idx < expectedResponses.size(); idx++) {
+			assertEquals("Response " + idx + " failed!", expectedResponses.get(idx), responses.get(idx));
+		}
+	}
+
+	/**
+	 * Validates a pipelined session served on the loopback interface.
+	 */
+	@Test
+	public void testServeLoopback() throws IOException {
+		QueryServer server = new QueryServer(new Agent(), 4);
+		PrintStream stdout = System.out;
+		PipedInputStream pipe = new PipedInputStream();
+		String listening = null;
+		try {
+			//the port is announced on the standard output
+			System.setOut(new PrintStream(new PipedOutputStream(pipe), true, "UTF-8"));
+			Thread serverThread = new Thread(() -> {
+				try {
+					server.serve(0);
+				} catch (IOException e) {
+					System.err.println("Exception occured while serving : " + e.getMessage());
+				}
+			});
+			serverThread.setDaemon(true);
+			serverThread.start();
+			listening = new BufferedReader(new InputStreamReader(pipe, StandardCharsets.UTF_8)).readLine();
+		}
+		finally {
+			System.setOut(stdout);
+		}
+		try {
+			assertNotNull("Server not listening!", listening);
+			assertTrue("Unexpected announcement " + listening + "!", listening.matches("LISTENING \\d+"));
+			int port = Integer.parseInt(listening.substring(listening.indexOf(' ') + 1));
+
+			List<String> expectedResponses = new ArrayList<>();
+			List<String> requests = getSession(expectedResponses);
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+				//all the requests are sent before any response is read
+				OutputStream output = socket.getOutputStream();
+				output.write((String.join("\n", requests) + "\n").getBytes(StandardCharsets.UTF_8));
+				output.flush();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				validateResponses(expectedResponses, readResponses(reader));
+			}
+		}
+		finally {
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Validates a pipelined session served from memory.
+	 */
+	@Test
+	public void testServeStreams() throws IOException {
+		QueryServer server = new QueryServer(new Agent(), 4);
+		List<String> expectedResponses = new ArrayList<>();
+		List<String> requests = getSession(expectedResponses);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			server.serve(new ByteArrayInputStream(String.join("\n", requests).getBytes(StandardCharsets.UTF_8)), output);
+		}
+		finally {
+			server.shutdown();
+		}
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(output.toByteArray()), StandardCharsets.UTF_8));
+		validateResponses(expectedResponses, readResponses(reader));
+	}
+
+	/**
+	 * Validates that a TELL is only applied once the queries sent before it are answered, whatever their duration.
+	 */
+	@Test
+	public void testTellAwaitsQueries() throws IOException {
+		List<String> requests = tellChain();
+		List<String> expectedResponses = new ArrayList<>();
+		for(int idx = 0; idx < requests.size(); idx++) {
+			expectedResponses.add(QueryServer.OK_RESPONSE);
+		}
+		//each fact told makes the query before it entailed
+		for(int idx = 0; idx < CHAIN_LENGTH; idx++) {
+			requests.add("ASK Ancestor(P0,Q" + idx + ")");
+			requests.add("ASK Ancestor(P0,P" + CHAIN_LENGTH + ")");
+			requests.add("TELL Parent(P" + CHAIN_LENGTH + ",Q" + idx + ")");
+			expectedResponses.addAll(Arrays.asList("FALSE", "TRUE", QueryServer.OK_RESPONSE));
+		}
+		QueryServer server = new QueryServer(new Agent(), 4);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			server.serve(new ByteArrayInputStream(String.join("\n", requests).getBytes(StandardCharsets.UTF_8)), output);
+		}
+		finally {
+			server.shutdown();
+		}
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(output.toByteArray()), StandardCharsets.UTF_8));
+		validateResponses(expectedResponses, readResponses(reader));
+	}
+}
@@ -0,0 +1,143 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ResolutionTableTester {
+
+	private static final int TABLE_SIZE 	= 1024;
+	private static final long QUERY_ID 		= 1;
+	private static final long OTHER_QUERY_ID 	= 2;
+
+	/**
+	 * Compiles the goal to its canonical form, as the goals are keyed in the table.
+	 * @param KB the knowledge base interning the symbols.
+	 * @param goal the FOL disjunction.
+	 * @return the fingerprint of the goal.
+	 */
+	private static Clause fingerprint(KnowledgeBase KB, String goal) {
+		return KB.compile(new CNFConverter().convertToCNF(goal, 0).get(0)).getCanonicalForm();
+	}
+
+	/**
+	 * Creates an agent tabling the goals across queries.
+	 * @return the agent.
+	 */
+	private static Agent createAgent() {
+		Agent agent = new Agent();
+		agent.setTableSize(TABLE_SIZE);
+		return agent;
+	}
+
+	/**
+	 * Validates that the least recently used entries are evicted beyond the capacity of the table.
+	 */
+	@Test
+	public void testEviction() {
+		KnowledgeBase KB = new KnowledgeBase();
+		Clause first = fingerprint(KB, "A(x)");
+		Clause second = fingerprint(KB, "B(x)");
+		Clause third = fingerprint(KB, "C(x)");
+		ResolutionTable table = new ResolutionTable(2);
+		table.storeRefutable(first);
+		table.storeRefutable(second);
+		assertNotNull(table.lookup(first));
+		table.storeRefutable(third);
+
+		assertEquals(2, table.size());
+		assertNotNull("Recently used entry evicted!", table.lookup(first));
+		assertNull("Least recently used entry not evicted!", table.lookup(second));
+		assertNotNull(table.lookup(third));
+	}
+
+	/**
+	 * Validates that the failures are dropped once the knowledge base changes, and that the refutations are kept until
+	 * it is replaced.
+	 */
+	@Test
+	public void testInvalidation() {
+		KnowledgeBase KB = new KnowledgeBase();
+		Clause refutable = fingerprint(KB, "A(x)");
+		Clause notRefutable = fingerprint(KB, "B(x)");
+		ResolutionTable table = new ResolutionTable(TABLE_SIZE);
+		table.storeRefutable(refutable);
+		table.storeNotRefutable(notRefutable, 0, QUERY_ID);
+		assertTrue(table.lookup(refutable).isRefutable());
+		assertFalse(table.lookup(notRefutable).isRefutable());
+
+		table.invalidate();
+		assertNull("Failure kept after the knowledge base changed!", table.lookup(notRefutable));
+		assertNotNull("Refutation dropped after the knowledge base changed!", table.lookup(refutable));
+		assertEquals(1, table.size());
+
+		table.storeNotRefutable(notRefutable, 0, QUERY_ID);
+		assertNotNull("Failure of the current version dropped!", table.lookup(notRefutable));
+		table.clear();
+		assertEquals(0, table.size());
+		assertNull(table.lookup(refutable));
+	}
+
+	/**
+	 * Validates that a failure is only visible to the query which derived it and to the queries whose own sentences are
+	 * in none of the buckets looked up, while a refutation is visible to every query.
+	 */
+	@Test
+	public void testVisibility() {
+		long lookupMask = ResolutionTable.lookupBit(0) | ResolutionTable.lookupBit(5);
+		TableEntry failure = new TableEntry(false, lookupMask, QUERY_ID, 0);
+		assertTrue(failure.isVisibleTo(QUERY_ID, lookupMask));
+		assertTrue(failure.isVisibleTo(OTHER_QUERY_ID, 0));
+		assertTrue(failure.isVisibleTo(OTHER_QUERY_ID, ResolutionTable.lookupBit(6)));
+		assertFalse("Failure visible to a query with sentences looked up!", failure.isVisibleTo(OTHER_QUERY_ID, ResolutionTable.lookupBit(5)));
+
+		TableEntry refutation = new TableEntry(true, 0, -1, 0);
+		assertTrue(refutation.isVisibleTo(QUERY_ID, 0));
+		assertTrue(refutation.isVisibleTo(OTHER_QUERY_ID, lookupMask));
+	}
+
+	/**
+	 * Validates that the failures tabled by a query are dropped once the facts told entail the query, and that
+	 * the refutations are dropped once a fact they used is retracted.
+	 */
+	@Test
+	public void testFailureDroppedAfterTell() {
+		Agent agent = createAgent();
+		agent.tell("(Parent(x,y) => Ancestor(x,y))");
+		agent.tell("((Parent(x,y) & Ancestor(y,z)) => Ancestor(x,z))");
+		agent.tell("Parent(A,B)");
+		assertEquals(Answer.FALSE, agent.ask("Ancestor(A,C)"));
+		assertEquals(Answer.FALSE, agent.ask("Ancestor(A,D)"));
+
+		agent.tell("Parent(B,C)");
+		assertEquals("Cached failure kept after a TELL!", Answer.TRUE, agent.ask("Ancestor(A,C)"));
+		agent.tellAll(Arrays.asList("Parent(C,D)"), 2);
+		assertEquals("Cached failure kept after a parallel TELL!", Answer.TRUE, agent.ask("Ancestor(A,D)"));
+
+		assertTrue(agent.retract("Parent(B,C)"));
+		assertEquals("Cached refutation kept after a RETRACT!", Answer.FALSE, agent.ask("Ancestor(A,C)"));
+		assertEquals(Answer.FALSE, agent.ask("Ancestor(A,D)"));
+	}
+
+	/**
+	 * Validates that the outcomes of the goals resolved with the sentences of a query are not reused by the next queries :
+	 * the knowledge base alone refutes neither <CODE>~R(K)</CODE> nor <CODE>P(K)</CODE>, the negated queries 
+	 * <CODE>~R(K) & P(K)</CODE> and <CODE>P(K) & ~R(K)</CODE> refute both.
+	 */
+	@Test
+	public void testOverlayOutcomesNotLeaked() {
+		for(Agent agent : Arrays.asList(createAgent(), new Agent())) {
+			agent.tell("((P(x) & Q(x)) => R(x))");
+			agent.tell("Q(K)");
+			assertEquals(Answer.FALSE, agent.ask("R(K)"));
+			assertEquals("Failure leaked into a query with its own sentences!", Answer.TRUE, agent.ask("(~R(K) => ~P(K))"));
+			assertEquals("Overlay refutation leaked into the next query!", Answer.FALSE, agent.ask("R(K)"));
+			assertEquals(Answer.TRUE, agent.ask("(P(K) => R(K))"));
+			assertEquals("Overlay refutation leaked into the next query!", Answer.FALSE, agent.ask("~P(K)"));
+		}
+	}
+}
@@ -0,0 +1,185 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SaturationTester {
+
+	//the inconsistent knowledge bases, which entail every query by saturation, see README.md
+	private static final List<String> INCONSISTENT_TESTCASES 	= Arrays.asList("testing/testcases2/input8.txt", "testing/testcases2/input11.txt");
+	private static final String BENCHMARK_OUTPUT 				= "testing/benchmark/output1.txt";
+	private static final long QUERY_TIMEOUT 					= 10000;
+	private static final long BENCHMARK_TIME_LIMIT 				= 60000;
+	private static final long RESUMED_MAX_STEPS 				= 20000;
+	private static final int MAX_RESUMPTIONS 					= 1000;
+	private static final int PARTNER_COUNT 						= 10;
+
+	/**
+	 * Creates an agent answering the queries by saturation.
+	 * @param budget the budget of each query.
+	 * @return the agent.
+	 */
+	private static Agent createAgent(QueryBudget budget) {
+		Agent agent = new Agent();
+		agent.setEngine(Engine.SATURATION);
+		agent.setBudget(budget);
+		return agent;
+	}
+
+	/**
+	 * Reads the expected answers of the testcase.
+	 * @param output the output file of the testcase.
+	 * @return the answers, one per query.
+	 * @throws IOException File reading exceptions.
+	 */
+	private static List<Answer> readAnswers(File output) throws IOException {
+		List<Answer> answers = new ArrayList<>();
+		for(String line : Files.readAllLines(output.toPath())) {
+			if(!line.trim().isEmpty()) {
+				answers.add(Answer.valueOf(line.trim()));
+			}
+		}
+		return answers;
+	}
+
+	/**
+	 * Returns the expected output file of the testcase.
+	 * @param input the input file of the testcase.
+	 * @return the output file.
+	 */
+	private static File getTestcaseOutput(File input) {
+		return new File(input.getParentFile(), input.getName().replace("input", "output"));
+	}
+
+	/**
+	 * Returns true if the testcase has an inconsistent knowledge base.
+	 * @param input the input file of the testcase.
+	 * @return true if and only if the knowledge base of the testcase is inconsistent.
+	 */
+	private static boolean isInconsistent(File input) {
+		return INCONSISTENT_TESTCASES.contains(input.getPath().replace(File.separatorChar, '/'));
+	}
+
+	/**
+	 * Validates the saturation results of the consistent testcases against ground truth.
+	 */
+	@Test
+	public void testTestcases() throws IOException {
+		for(File input : SearchStrategyTester.getTestcaseInputs()) {
+			if(!isInconsistent(input)) {
+				assertEquals("TestCase " + input + " failed!", readAnswers(getTestcaseOutput(input)),
+						SearchStrategyTester.ask(input, createAgent(QueryBudget.unlimited())));
+			}
+		}
+	}
+
+	/**
+	 * Validates that every query is entailed by the inconsistent knowledge bases.
+	 */
+	@Test
+	public void testInconsistentTestcases() throws IOException {
+		for(String inconsistentTestcase : INCONSISTENT_TESTCASES) {
+			File input = new File(inconsistentTestcase);
+			for(Answer answer : SearchStrategyTester.ask(input, createAgent(QueryBudget.unlimited()))) {
+				assertEquals("TestCase " + input + " failed!", Answer.TRUE, answer);
+			}
+		}
+	}
+
+	/**
+	 * Validates the saturation results of the Horn benchmark against ground truth, within a time limit per query and overall.
+	 */
+	@Test
+	public void testBenchmark() throws IOException {
+		long startTime = System.currentTimeMillis();
+		List<Answer> answers = SearchStrategyTester.ask(new File(SearchStrategyTester.BENCHMARK_INPUT), createAgent(new QueryBudget(0, QUERY_TIMEOUT, 0, 0)));
+		long endTime = System.currentTimeMillis();
+		assertEquals("Benchmark failed!", readAnswers(new File(BENCHMARK_OUTPUT)), answers);
+		assertTrue("Benchmark took " + (endTime - startTime) + " milliseconds!", endTime - startTime < BENCHMARK_TIME_LIMIT);
+		System.out.println("The saturation took " + (endTime - startTime) + " milliseconds");
+	}
+
+	/**
+	 * Validates that the saturation of the knowledge base is resumed by the queries which ran out of steps : the queries
+	 * are asked again until they are answered, and then answered as ground truth.
+	 */
+	@Test
+	public void testResumedSaturation() throws IOException {
+		File input = new File(SearchStrategyTester.BENCHMARK_INPUT);
+		List<String> lines = Files.readAllLines(input.toPath());
+		int nQueries = Integer.parseInt(lines.get(0).trim());
+		int nFacts = Integer.parseInt(lines.get(nQueries + 1).trim());
+		Agent agent = createAgent(new QueryBudget(RESUMED_MAX_STEPS, 0, 0, 0));
+		for(String fact : lines.subList(nQueries + 2, nQueries + 2 + nFacts)) {
+			agent.tell(fact);
+		}
+		List<Answer> answers = new ArrayList<>();
+		int unknownAnswers = 0;
+		for(String query : lines.subList(1, nQueries + 1)) {
+			Answer answer = agent.ask(query);
+			while( (answer == Answer.UNKNOWN) && (unknownAnswers < MAX_RESUMPTIONS) ) {
+				unknownAnswers++;
+				answer = agent.ask(query);
+			}
+			answers.add(answer);
+		}
+		assertTrue("The saturation was not resumed!", unknownAnswers > 0);
+		assertEquals(readAnswers(new File(BENCHMARK_OUTPUT)), answers);
+	}
+
+	/**
+	 * Validates that a given clause with more inferences than the budget of a query draws them all : with a single step 
+	 * per query, the rule resolves with every fact before the saturation stops, and every query is eventually entailed.
+	 */
+	@Test
+	public void testResumedGivenClause() {
+		Agent agent = createAgent(new QueryBudget(1, 0, 0, 0));
+		agent.tell("(P(x) => Q(x))");
+		for(int idx = 0; idx < PARTNER_COUNT; idx++) {
+			agent.tell("P(A" + idx + ")");
+		}
+		int unknownAnswers = 0;
+		for(int idx = 0; idx < PARTNER_COUNT; idx++) {
+			Answer answer = agent.ask("Q(A" + idx + ")");
+			while( (answer == Answer.UNKNOWN) && (unknownAnswers < MAX_RESUMPTIONS) ) {
+				unknownAnswers++;
+				answer = agent.ask("Q(A" + idx + ")");
+			}
+			assertEquals("Query Q(A" + idx + ") failed!", Answer.TRUE, answer);
+		}
+		assertTrue("The saturation was not resumed!", unknownAnswers > 0);
+	}
+
+	/**
+	 * Validates that the active clauses subsumed by a given clause are removed, and that the given clauses subsumed by
+	 * an active clause are discarded.
+	 */
+	@Test
+	public void testSubsumption() {
+		KnowledgeBase KB = new KnowledgeBase();
+		CNFConverter cnfConverter = new CNFConverter();
+		String[] facts = {"(Q(A) | P(A))", "T(y)", "R(A)", "(R(x) => P(x))", "(R(x) => T(x))"};
+		for(int idx = 0; idx < facts.length; idx++) {
+			KB.store(cnfConverter.convertToCNF(facts[idx], idx));
+		}
+		Saturation saturation = new Saturation(KB.createIndex());
+		saturation.addClauses(KB.getClauses());
+		assertEquals(Answer.FALSE, saturation.saturate(QueryBudget.unlimited()));
+
+		//Q(A) | P(A) is subsumed by the derived P(A), and ~R(x) | T(x) by T(y)
+		Set<String> activeClauses = new HashSet<>();
+		for(Clause clause : saturation.getActive().getClauses()) {
+			activeClauses.add(clause.toString(KB.getSymbols()));
+		}
+		assertEquals(new HashSet<>(Arrays.asList("P[A]", "T[a]", "R[A]", "~R[a]|P[a]")), activeClauses);
+	}
+}
@@ -0,0 +1,143 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SearchStrategyTester {
+
+	private static final String TESTING_DIRECTORY 	= "testing";
+	static final String BENCHMARK_INPUT 			= "testing/benchmark/input1.txt";
+	private static final String BENCHMARK_OUTPUT 	= "testing/benchmark/output1.txt";
+
+	/**
+	 * Returns the input files of the testcases.
+	 * @return the input files, in the order of the testcase directories and names.
+	 */
+	static List<File> getTestcaseInputs() {
+		List<File> inputs = new ArrayList<>();
+		File[] directories = new File(TESTING_DIRECTORY).listFiles((dir, name) -> name.startsWith("testcases"));
+		assertTrue("Testcases not found!", (directories != null) && (directories.length > 0));
+		Arrays.sort(directories);
+		for(File directory : directories) {
+			File[] files = directory.listFiles((dir, name) -> name.startsWith("input"));
+			Arrays.sort(files);
+			inputs.addAll(Arrays.asList(files));
+		}
+		return inputs;
+	}
+
+	/**
+	 * Returns the expected output file of the testcase.
+	 * @param input the input file of the testcase.
+	 * @return the output file.
+	 */
+	private static File getTestcaseOutput(File input) {
+		return new File(input.getParentFile(), input.getName().replace("input", "output"));
+	}
+
+	/**
+	 * Runs the testcase through {@link homework#main(String[])}, which reads input.txt and writes output.txt next to the classes.
+	 * @param input the input file of the testcase.
+	 * @param args the command line options.
+	 * @return the output of the testcase.
+	 * @throws IOException File reading/writing exceptions.
+	 */
+	static String runTestcase(File input, String... args) throws IOException {
+		File classDirectory = new File(URLDecoder.decode(homework.class.getProtectionDomain().getCodeSource().getLocation().getPath(), "UTF-8"));
+		File outputFile = new File(classDirectory, "output.txt");
+		Files.copy(input.toPath(), new File(classDirectory, "input.txt").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.deleteIfExists(outputFile.toPath());
+		homework.main(args);
+		return HomeworkTester.readFile(outputFile.getAbsolutePath(), Charset.defaultCharset());
+	}
+
+	/**
+	 * Answers the queries of the testcase with the search strategy.
+	 * @param input the input file of the testcase.
+	 * @param searchStrategy the search strategy.
+	 * @param clauseCost the clause cost of the best-first search.
+	 * @return the answers, one per query.
+	 * @throws IOException File reading exceptions.
+	 */
+	private static List<Answer> ask(File input, SearchStrategy searchStrategy, ClauseCost clauseCost) throws IOException {
+		Agent agent = new Agent();
+		agent.setSearchStrategy(searchStrategy);
+		agent.setClauseCost(clauseCost);
+		return ask(input, agent);
+	}
+
+	/**
+	 * Tells the facts of the testcase to the agent and answers its queries.
+	 * @param input the input file of the testcase.
+	 * @param agent the agent, configured but with an empty knowledge base.
+	 * @return the answers, one per query.
+	 * @throws IOException File reading exceptions.
+	 */
+	static List<Answer> ask(File input, Agent agent) throws IOException {
+		List<String> lines = Files.readAllLines(input.toPath());
+		int nQueries = Integer.parseInt(lines.get(0).trim());
+		int nFacts = Integer.parseInt(lines.get(nQueries + 1).trim());
+		for(String fact : lines.subList(nQueries + 2, nQueries + 2 + nFacts)) {
+			agent.tell(fact);
+		}
+		List<Answer> answers = new ArrayList<>();
+		for(String query : lines.subList(1, nQueries + 1)) {
+			answers.add(agent.ask(query));
+		}
+		return answers;
+	}
+
+	/**
+	 * Validates the best-first search results against ground truth.
+	 */
+	@Test
+	public void testBestFirstTestcases() throws IOException {
+		for(File input : getTestcaseInputs()) {
+			String expectedOutput = HomeworkTester.readFile(getTestcaseOutput(input).getPath(), Charset.defaultCharset());
+			String actualOutput = runTestcase(input, "-search", "best-first");
+			assertEquals("TestCase " + input + " failed!", expectedOutput.trim(), actualOutput.trim());
+		}
+	}
+
+	/**
+	 * Validates that every clause cost of the best-first search answers the testcases and the benchmark as the
+	 * depth-first search does.
+	 */
+	@Test
+	public void testClauseCostsAgreeWithDepthFirst() throws IOException {
+		List<File> inputs = getTestcaseInputs();
+		inputs.add(new File(BENCHMARK_INPUT));
+		for(File input : inputs) {
+			List<Answer> expectedAnswers = ask(input, SearchStrategy.DEPTH_FIRST, ClauseCost.LENGTH);
+			for(ClauseCost clauseCost : ClauseCost.values()) {
+				assertEquals("TestCase " + input + " failed with " + clauseCost + "!",
+						expectedAnswers, ask(input, SearchStrategy.BEST_FIRST, clauseCost));
+			}
+		}
+	}
+
+	/**
+	 * Times both search strategies on the Horn benchmark and validates their results against ground truth.
+	 */
+	@Test
+	public void testBenchmark() throws IOException {
+		String expectedOutput = HomeworkTester.readFile(BENCHMARK_OUTPUT, Charset.defaultCharset());
+		for(String searchStrategy : new String[] {"depth-first", "best-first"}) {
+			long startTime = System.currentTimeMillis();
+			String actualOutput = runTestcase(new File(BENCHMARK_INPUT), "-search", searchStrategy);
+			long endTime = System.currentTimeMillis();
+			assertEquals("Benchmark failed with " + searchStrategy + "!", expectedOutput.trim(), actualOutput.trim());
+			System.out.println("The " + searchStrategy + " search took " + (endTime - startTime) + " milliseconds");
+		}
+	}
+}
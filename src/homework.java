@@ -1,203 +1,136 @@
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URLDecoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Class representing arithmetic and logical operators and their utility functions.
+ * Class representing the logical operators of the FOL sentences.
  * 
  * @author pachpandenikhil
  *
  */
 class Operator {
-	public static final char PLUS 							= '+';
-	public static final char MINUS 							= '-';
-	public static final char MULTIPLY 						= '*';
-	public static final char DIVIDE 						= '/';
 	public static final char NEGATE 						= '~';
 	public static final char AND 							= '&';
 	public static final char OR 							= '|';
-	public static final char EQUALS 						= '=';
+	public static final char COMMA 							= ',';
 	public static final char LEFT_PARENTHESIS 				= '(';
 	public static final char RIGHT_PARENTHESIS 				= ')';
 	public static final char PREDICATE_LEFT_PARENTHESIS 	= '[';
 	public static final char PREDICATE_RIGHT_PARENTHESIS 	= ']';
 	public static final String IMPLIES 						= "=>";
-	
-	/**
-	 * Returns true if the input is an operator.
-	 * @param input the char to be tested.
-	 * @return true if and only if the char is an operator.
-	 */
-	
-	public static boolean isOperator(char input) {
-
-		boolean retVal = false;
-		switch (input) {
-
-		case Operator.PLUS				: 
-		case Operator.MINUS				:
-		case Operator.MULTIPLY			: 
-		case Operator.DIVIDE			:
-		case Operator.NEGATE			:
-		case Operator.AND				:
-		case Operator.OR				:
-		case Operator.EQUALS			:
-		case Operator.LEFT_PARENTHESIS	: 
-		case Operator.RIGHT_PARENTHESIS	: 
-			retVal = true; 
-			break;
-
-		default: 
-			retVal = false; 
-			break;
-		}
-
-		return retVal;
-	}
-
 }
 
 /**
- * Class for infix to postfix conversion.
+ * Enumeration of the kinds of nodes in the expression tree.
  * @author pachpandenikhil
  *
  */
-class InfixToPostfix {
-
-	private Stack<Character> stack;
-	private String postfix;
-
-	public InfixToPostfix() {
-		stack = new Stack<>();
-		postfix = "";
-	}
-	
-	/**
-	 * Converts the infix expression to postfix.
-	 * @param infix the infix expression in string form.
-	 * @return postfix expression in string form.
-	 */
-	public String convertToPostfix(String infix) {
-		for (int j = 0; j < infix.length(); j++) {
-			char ch = infix.charAt(j);
-			switch (ch) {
-
-			case Operator.PLUS	: 
-			case Operator.MINUS	:
-				gotOperator(ch, 1); 
-				break; 
-
-			case Operator.MULTIPLY	: 
-			case Operator.DIVIDE	:
-			case Operator.NEGATE	:
-			case Operator.AND		:
-			case Operator.OR		:
-			case Operator.EQUALS	:
-				gotOperator(ch, 2); 
-				break; 
-
-			case Operator.LEFT_PARENTHESIS: 
-				stack.push(ch);
-				break;
-
-			case Operator.RIGHT_PARENTHESIS: 
-				gotParenthesis(); 
-				break;
-
-			default: 
-				postfix = postfix + ch; 
-				break;
-			}
-		}
-		while (!stack.isEmpty()) {
-			postfix = postfix + stack.pop();
-		}
-		return postfix; 
-	}
-	
-	/**
-	 * Called when an operator is encountered during postfix conversion.
-	 * @param opThis the current operator
-	 * @param prec1 the operator precedence
-	 */
-	private void gotOperator(char opThis, int prec1) {
-		while (!stack.isEmpty()) {
-			char opTop = stack.pop();
-			if (opTop == Operator.LEFT_PARENTHESIS) {
-				stack.push(opTop);
-				break;
-			}
-			else {
-				int prec2;
-				if (opTop == Operator.PLUS || opTop == Operator.MINUS)
-					prec2 = 1;
-				else
-					prec2 = 2;
-				if (prec2 < prec1) { 
-					stack.push(opTop);
-					break;
-				}
-				else
-					postfix = postfix + opTop;
-			}
-		}
-		stack.push(opThis);
-	}
-
-	/**
-	 * Called when a parenthesis is encountered during postfix expression conversion.
-	 *  
-	 */
-	private void gotParenthesis(){ 
-		while (!stack.isEmpty()) {
-			char chx = stack.pop();
-			if (chx == Operator.LEFT_PARENTHESIS) 
-				break; 
-			else
-				postfix = postfix + chx; 
-		}
-	}
+enum NodeKind {
+	PREDICATE,
+	NEGATION,
+	AND,
+	OR,
+	IMPLICATION
 }
 
 /**
- * Class representing a node in the expression tree.
+ * Class representing a node in the expression tree.<BR>
+ * Predicate nodes carry the predicate name, its arguments and its sign, operator nodes carry their operands. 
+ * Negation nodes only have a right operand.
  * @author pachpandenikhil
  *
  */
 class Node {
 
-	protected String value;
+	protected NodeKind kind;
+	protected String name;
+	protected List<String> arguments;
+	protected boolean negated;
 	protected Node left, right;
 
-	public Node(String item) {
-		value = item;
+	public Node(NodeKind kind) {
+		this.kind = kind;
 		left = right = null;
 	}
 	
+	/**
+	 * Creates a positive predicate node.
+	 * @param name the predicate name.
+	 * @param arguments the predicate arguments.
+	 */
+	public Node(String name, List<String> arguments) {
+		this(NodeKind.PREDICATE);
+		this.name = name;
+		this.arguments = arguments;
+	}
+	
+	/**
+	 * Creates an operator node.
+	 * @param kind the operator.
+	 * @param left the left operand, null for negation.
+	 * @param right the right operand.
+	 */
+	public Node(NodeKind kind, Node left, Node right) {
+		this(kind);
+		this.left = left;
+		this.right = right;
+	}
+	
 	/**
 	 * Return true if the node is an OR operator.
 	 * @return true if and only if the node is an OR operator.
 	 */
 	public boolean isOrOperator() {
-		return isOperatorNode(this, Operator.OR);
+		return kind == NodeKind.OR;
 	}
 	
 	/**
@@ -205,7 +138,7 @@ class Node {
 	 * @return true if and only if the node is an AND operator.
 	 */
 	public boolean isAndOperator() {
-		return isOperatorNode(this, Operator.AND);
+		return kind == NodeKind.AND;
 	}
 	
 	/**
@@ -213,7 +146,7 @@ class Node {
 	 * @return true if and only if the node is a negation operator.
 	 */
 	public boolean isNegateOperator() {
-		return isOperatorNode(this, Operator.NEGATE);
+		return kind == NodeKind.NEGATION;
 	}
 	
 	/**
@@ -221,24 +154,15 @@ class Node {
 	 * @return true if and only if the node is an implication operator.
 	 */
 	public boolean isImpliesOperator() {
-		return isOperatorNode(this, Operator.EQUALS);
+		return kind == NodeKind.IMPLICATION;
 	}
 	
 	/**
-	 * Returns true if the node is the operator specified by the <CODE>operator</CODE> argument.
-	 * @param node the node to be verified.
-	 * @param operator the operator against which the node is to be verified.
-	 * @return true if and only if the node is the operator specified by the <CODE>operator</CODE> argument.
+	 * Return true if the node is a predicate.
+	 * @return true if and only if the node is a predicate.
 	 */
-	public static boolean isOperatorNode(Node node, char operator) {
-		boolean retVal = false;
-		if(node != null) {
-			char nodeValue = node.value.charAt(0);
-			if(nodeValue == operator) {
-				retVal = true;
-			}
-		}
-		return retVal;
+	public boolean isPredicate() {
+		return kind == NodeKind.PREDICATE;
 	}
 	
 	/**
@@ -246,1115 +170,6767 @@ class Node {
 	 * @return true if and only if the node is a negated predicate.
 	 */
 	public boolean isNegatedPredicate() {
-		boolean retVal = false;
-		if(this.value != null) {
-			if( (this.value.charAt(0) == Operator.NEGATE) && (this.value.length() > 1) ) {
-				retVal = true;
-			}
-		}
-		return retVal;
-	}
-}
-
-/**
- * Class representing the postfix expression tree.
- * @author pachpandenikhil
- *
- */
-class ExpressionTree {
-	private String inorderRepresentation;
-	
-	/**
-	 * Returns the inorder traversal of the tree.
-	 * @param node the root node.
-	 * @return the inorder traversal.
-	 */
-	public String getInorderRepresentation(Node node) {
-		inorderRepresentation = "";
-		inorder(node);
-		return inorderRepresentation;
+		return isPredicate() && negated;
 	}
 	
 	/**
-	 * Performs inorder traversal of the tree rooted at <CODE>node</CODE>.
-	 * @param node the root node.
-	 */
-	private void inorder(Node node) {
-		if (node != null) {
-			inorder(node.left);
-			inorderRepresentation += node.value;
-			inorder(node.right);
-		}
-	}
-
-	/**
-	 * Constructs the expression tree from postfix expression.
-	 * @param postfix the char array representing the postfix expression.
-	 * @return the root node of the expression tree.
+	 * Returns the string form of the node as used by the knowledge base.<BR><B>For eg.</B> ~Run[x] for a negated predicate
+	 * and | for an OR operator.
+	 * @return the string form of the node.
 	 */
-	public Node constructTree(char postfix[]) {
-
-		Stack<Node> stack = new Stack<>();
-		Node t, t1, t2;
-
-		//Traverse through every character of
-		//input expression
-		for (int i = 0; i < postfix.length; i++) {
-
-			//If operand, simply push into stack
-			if (!Operator.isOperator(postfix[i])) {
-
-				String nodeValue = postfix[i++] + "";
-				while (postfix[i] != Operator.PREDICATE_RIGHT_PARENTHESIS) {
-					nodeValue += postfix[i++]; 
-				}
-				nodeValue += Operator.PREDICATE_RIGHT_PARENTHESIS;
-				t = new Node(nodeValue);
-				stack.push(t);
-			}
-			else if (postfix[i] == Operator.NEGATE) {
-				t = new Node(postfix[i] + "");
-				t1 = stack.pop();
-				t.right = t1;
-				stack.push(t);
+	@Override
+	public String toString() {
+		StringBuilder value = new StringBuilder();
+		switch (kind) {
+		
+		case PREDICATE		:
+			if(negated) {
+				value.append(Operator.NEGATE);
 			}
-			else { 	
-				t = new Node(postfix[i] + "");
-				//Pop two top nodes
-				//Store top
-				t1 = stack.pop();      //Remove top
-				t2 = stack.pop();
-				//make them children
-				t.right = t1;
-				t.left = t2;
-				//Add this subexpression to stack
-				stack.push(t);
+			value.append(name);
+			value.append(Operator.PREDICATE_LEFT_PARENTHESIS);
+			for(int idx = 0; idx < arguments.size(); idx++) {
+				if(idx > 0) {
+					value.append(Operator.COMMA);
+				}
+				value.append(arguments.get(idx));
 			}
+			value.append(Operator.PREDICATE_RIGHT_PARENTHESIS);
+			break;
+			
+		case NEGATION		:
+			value.append(Operator.NEGATE);
+			break;
+			
+		case AND			:
+			value.append(Operator.AND);
+			break;
+			
+		case OR				:
+			value.append(Operator.OR);
+			break;
+			
+		case IMPLICATION	:
+			value.append(Operator.IMPLIES);
+			break;
 		}
-		//only element will be root of expression tree
-		t = stack.peek();
-		stack.pop();
-
-		return t;
+		return value.toString();
 	}
 }
 
 /**
- * Class representing the inference engine's knowledge base.
+ * Class for parsing FOL sentences into expression trees.<BR>
+ * The sentence is tokenized and parsed in a single pass by recursive descent, straight from the raw input line. 
+ * Whitespace is allowed anywhere between the tokens.<BR>
+ * Negation binds tighter than the binary operators, which share the same precedence and associate to the left.
+ * <BR><B>For eg.</B> A(x) &amp; B(x) =&gt; C(x) is parsed as (A(x) &amp; B(x)) =&gt; C(x).
  * @author pachpandenikhil
  *
  */
-class KnowledgeBase {
+class SentenceParser {
 
-	private Map<String, Map<String, List<List<String>>>> KB;
-	private int variableSequence;
-	public static final String POSITIVE_SENTENCE_KEY 	= "Positive";
-	public static final String NEGATIVE_SENTENCE_KEY 	= "Negative";
-	public static final String ARG_TYPE_VARIABLE 		= "Variable";
-	public static final String ARG_TYPE_CONSTANT 		= "Constant";
-
-	public KnowledgeBase() {
-		KB = new HashMap<String, Map<String,List<List<String>>>>();
-		variableSequence = 0;
-	}
+	private String input;
+	private int position;
 	
 	/**
-	 * Adds a fact to the knowledge base.
-	 * @param predicate the predicate against which the fact is to be added.
-	 * @param sentenceKey the key of the predicate against which the fact is to be added.
-	 * @param fact the fact to be added.
+	 * Parses the FOL sentence into an expression tree.
+	 * @param sentence the FOL sentence.
+	 * @return the root node of the expression tree.
+	 * @throws IllegalArgumentException if the sentence is malformed.
 	 */
-	private void addFact(String predicate, String sentenceKey, List<String> fact) {
-		if((predicate != null) && (sentenceKey != null) && (fact != null) ) {
-			if(KB.containsKey(predicate)) {
-				Map<String, List<List<String>>> sentenceMap = KB.get(predicate);
-				List<List<String>> sentenceList = sentenceMap.get(sentenceKey);
-				List<String> sentence = new ArrayList<>(fact);
-				sentenceList.add(sentence);
-				sentenceMap.put(sentenceKey, sentenceList);
-				KB.put(predicate, sentenceMap);
-			}
-			else {							
-				List<String> sentence = new ArrayList<>(fact);
-				List<List<String>> sentenceList = new ArrayList<>();
-				sentenceList.add(sentence);
-				Map<String, List<List<String>>> sentenceMap = new HashMap<>();
-				sentenceMap.put(sentenceKey, sentenceList);
-
-				//creating the entry for the other key
-				if(sentenceKey.equalsIgnoreCase(POSITIVE_SENTENCE_KEY)) {
-					sentenceMap.put(NEGATIVE_SENTENCE_KEY, new ArrayList<>());
-				}
-				else {
-					sentenceMap.put(POSITIVE_SENTENCE_KEY, new ArrayList<>());
-				}
-				KB.put(predicate, sentenceMap);
-			}
+	public Node parse(String sentence) {
+		input = sentence;
+		position = 0;
+		Node root = parseSentence();
+		if(peek() != 0) {
+			throw syntaxError("unexpected '" + input.charAt(position) + "'");
 		}
+		return root;
 	}
 	
 	/**
-	 * Stores a fact in the knowledge base.<BR>Separates the conjuncts and standardizes the variables before adding the fact. 
-	 * @param fact the fact to be stored.
-	 * @return true if and only if the fact was successfully added to the knowledge base.
+	 * Parses a sequence of operands joined by binary operators.
+	 * @return the root node of the parsed sentence.
 	 */
-	public boolean store(String fact) {
-		boolean retVal = false;
-		if(fact != null) {
-			String[] conjuncts = fact.split(Operator.AND + "");
-			String[] updatedConjuncts = new String[conjuncts.length];
-
-			//Standardizing variables
-			for (int i = 0; i < conjuncts.length; i++) {
-				String conjunct = conjuncts[i];
-				conjunct = standardizeVariables(conjunct);
-				updatedConjuncts[i] = conjunct;
-			}
-
-			for(String conjunct : updatedConjuncts) {
-				String[] predicates = conjunct.split("\\" + Operator.OR + "");
-				for(String predicate : predicates) {
-					String predicateName = getPredicateName(predicate);
-					if(isNegativePredicate(predicate)) {
-						addFact(predicateName, NEGATIVE_SENTENCE_KEY, Arrays.asList(predicates));	
-					}
-					else {
-						addFact(predicateName, POSITIVE_SENTENCE_KEY, Arrays.asList(predicates));
-					}
-				}
-			}
-			retVal = true;
+	private Node parseSentence() {
+		Node node = parseUnary();
+		NodeKind operator = parseBinaryOperator();
+		while(operator != null) {
+			node = new Node(operator, node, parseUnary());
+			operator = parseBinaryOperator();
 		}
-		return retVal;
+		return node;
 	}
 	
 	/**
-	 * Returns the predicate name(i.e without the variables) of the predicate.<BR>In case of negated predicates, the negation operator is ignored.
-	 * @param predicate the predicate whose name is required.
-	 * @return the predicate name.
+	 * Consumes the binary operator at the current position, if any.
+	 * @return the kind of the operator, or null if the current token is not a binary operator.
 	 */
-	public String getPredicateName(String predicate) {
-		String name = "";
-		if(predicate != null) {
-			//removing arguments
-			name = predicate.substring(0, predicate.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			if(isNegativePredicate(name)) {
-				name = name.substring(1, name.length());
-			}
+	private NodeKind parseBinaryOperator() {
+		NodeKind operator = null;
+		char ch = peek();
+		if(ch == Operator.AND) {
+			operator = NodeKind.AND;
+			position++;
 		}
-		return name;
-	}
-	
-	/**
-	 * Returns the next alphabet in the sequence starting from 'a'.
-	 * @param index the index of the next alphabet. a's index : 0.
-	 * @return the next alphabet in the sequence.
-	 */
-	private String sequenceGenerator(int index) {
-        return index < 0 ? "" : sequenceGenerator((index / 26) - 1) + (char)(97 + index % 26);
-    }
-	
-	/**
-	 * Standardizes the variables of the fact.
-	 * @param fact the string representation of the fact.
-	 * @return the fact with standardized variables.
-	 */
-	private String standardizeVariables(String fact) {
-		if(fact != null) {
-
-			Map<String, String> replacementMap = new HashMap<>();
-			Map<String, String> processedArguments = new HashMap<>();
-
-			String argumentsRegEx = "\\[(.*?)\\]";
-			Pattern pattern = Pattern.compile(argumentsRegEx);
-			Matcher matcher = pattern.matcher(fact);
-			
-			while (matcher.find()) {
-				String group = matcher.group();
-				List<String> args = getArguments(group);
-				for(String arg : args) {
-					if(!processedArguments.containsKey(arg)) {
-						String replacementArg = "";
-						if(!isConstant(arg)) {
-							replacementArg = sequenceGenerator((variableSequence++));
-						}
-						else {
-							replacementArg = arg;
-						}
-						
-						processedArguments.put(arg, replacementArg);
-					}
-				}
-				
-				String groupReplacement = Operator.PREDICATE_LEFT_PARENTHESIS + "";
-				for(String arg : args) {
-					groupReplacement += processedArguments.get(arg);
-					groupReplacement += ",";
-				}
-				groupReplacement = groupReplacement.substring(0, groupReplacement.length()-1);
-				groupReplacement += Operator.PREDICATE_RIGHT_PARENTHESIS + "";
-				
-				group = group.replaceAll("\\[", "\\\\[");
-				group = group.replaceAll("\\]", "\\\\]");
-				
-				groupReplacement = groupReplacement.replaceAll("\\[", "\\\\[");
-				groupReplacement = groupReplacement.replaceAll("\\]", "\\\\]");
-				
-				
-				replacementMap.put(group, groupReplacement);
-			}
-			
-			//Replacing all the arguments
-			for (Map.Entry<String, String> entry : replacementMap.entrySet()) {
-			    String originalGroup = entry.getKey();
-			    String replacementGroup = entry.getValue();
-			    fact = fact.replaceAll(originalGroup, replacementGroup);
-			}
+		else if(ch == Operator.OR) {
+			operator = NodeKind.OR;
+			position++;
 		}
-
-		return fact;
-	}
-	
-	/**
-	 * Returns true if the <CODE>input</CODE> is a constant.<BR><B>For eg.</B> Bob.
-	 * @param arg the argument of the predicate to be verified
-	 * @return true if and only if the <CODE>input</CODE> is a constant.
-	 */
-	private boolean isConstant(String arg) {
-		boolean retVal = false;
-		if(arg != null) {
-			if((Character.isUpperCase(arg.charAt(0))) && (arg.length() > 1)) {
-				retVal = true;
-			}
+		else if(input.startsWith(Operator.IMPLIES, position)) {
+			operator = NodeKind.IMPLICATION;
+			position += Operator.IMPLIES.length();
 		}
-		return retVal;
+		return operator;
 	}
 	
 	/**
-	 * Return a list of arguments extracted from the <CODE>strArgs</CODE>. 
-	 * @param strArgs the arguments in comma separated string form.
-	 * @return list of arguments.
+	 * Parses a negation, a parenthesized sentence or a predicate.
+	 * @return the root node of the parsed operand.
 	 */
-	public List<String> getArguments(String strArgs) {
-		List<String> args = new ArrayList<>();
-		if(strArgs != null) {
-			String[] argsArr = strArgs.split(",");
-			for(String arg : argsArr) {
-				arg = arg.replaceAll("\\[", "");
-				arg = arg.replaceAll("\\]", "");
-				args.add(arg);
-			}
+	private Node parseUnary() {
+		Node node = null;
+		char ch = peek();
+		if(ch == Operator.NEGATE) {
+			position++;
+			node = new Node(NodeKind.NEGATION, null, parseUnary());
 		}
-		return args;
+		else if(ch == Operator.LEFT_PARENTHESIS) {
+			position++;
+			node = parseSentence();
+			expect(Operator.RIGHT_PARENTHESIS);
+		}
+		else {
+			node = parsePredicate();
+		}
+		return node;
 	}
 	
 	/**
-	 * Returns true if the predicate is preceded by a negation operator.
-	 * @param predicate the predicate to be verified.
-	 * @return true if and only if the predicate is preceded by a negation operator.
+	 * Parses a predicate.<BR><B>For eg.</B> Knows(John, x).
+	 * @return the predicate node.
 	 */
-	public boolean isNegativePredicate(String predicate) {
-		boolean retVal = false;
-		if(predicate != null) {
-			if(predicate.charAt(0) == Operator.NEGATE) {
-				retVal = true;
-			}
+	private Node parsePredicate() {
+		String name = parseIdentifier();
+		List<String> arguments = new ArrayList<>();
+		expect(Operator.LEFT_PARENTHESIS);
+		arguments.add(parseIdentifier());
+		while(peek() == Operator.COMMA) {
+			position++;
+			arguments.add(parseIdentifier());
 		}
-		return retVal;
+		expect(Operator.RIGHT_PARENTHESIS);
+		return new Node(name, arguments);
 	}
 	
 	/**
-	 * Returns true if the knowledge base contains the predicate <CODE>predicate</CODE>.
-	 * @param predicate the predicate to be found.
-	 * @return true if and only if the knowledge base contains the predicate.
+	 * Parses a predicate name, a constant or a variable.
+	 * @return the identifier.
 	 */
-	public boolean predicateExists(String predicate) {
-		boolean exists = false;
-		if(predicate != null) {
-			exists = KB.containsKey(predicate);
+	private String parseIdentifier() {
+		peek();
+		int start = position;
+		while( (position < input.length()) && isIdentifierPart(input.charAt(position)) ) {
+			position++;
+		}
+		if(start == position) {
+			throw syntaxError("identifier expected");
 		}
-		return exists;
+		return input.substring(start, position);
 	}
 	
 	/**
-	 * Returns the map of all the facts/sentences containing the predicate <CODE>predicate</CODE>.
-	 * @param predicate the sentences containing this predicate are returned.
-	 * @return the map of all the facts/sentences containing the predicate <CODE>predicate</CODE>.
+	 * Returns true if the character may be part of an identifier.
+	 * @param ch the character to be tested.
+	 * @return true if and only if the character is a letter, a digit or an underscore.
 	 */
-	public Map<String, List<List<String>>> getPredicateSentenceMap(String predicate) {
-		Map<String, List<List<String>>> sentenceMap = null;
-		if(predicate != null) {
-			sentenceMap = KB.get(predicate);
-		}
-		return sentenceMap;
+	private static boolean isIdentifierPart(char ch) {
+		return Character.isLetterOrDigit(ch) || (ch == '_');
 	}
 	
 	/**
-	 * Returns the type of argument from Constant or Variable.
-	 * @param argument the argument whose type is to be found. 
-	 * @return the type of argument from Constant or Variable.
+	 * Consumes the expected character.
+	 * @param expected the expected character.
 	 */
-	public String getArgumentType(String argument) {
-		String type = ARG_TYPE_CONSTANT;
-		if(argument != null) {
-			char firstChar = argument.charAt(0);
-			if(Character.isUpperCase(firstChar)) {
-				type = ARG_TYPE_CONSTANT;
-			}
-			else {
-				type = ARG_TYPE_VARIABLE;
-			}
+	private void expect(char expected) {
+		if(peek() != expected) {
+			throw syntaxError("'" + expected + "' expected");
 		}
-		return type;
+		position++;
 	}
 	
 	/**
-	 * Removes the fact from the knowledge base.
-	 * @param fact the fact to be removed.
-	 * @return true if and only if the fact is successfully removed.
+	 * Skips the whitespace and returns the character at the current position.
+	 * @return the character at the current position, or 0 at the end of the input.
 	 */
-	public boolean remove(String fact) {
-		boolean retVal = false;
-		if(fact != null) {
-			String predicateName = getPredicateName(fact);
-			if(isNegativePredicate(fact)) {
-				removeFact(predicateName, NEGATIVE_SENTENCE_KEY, fact);	
-			}
-			else {
-				removeFact(predicateName, POSITIVE_SENTENCE_KEY, fact);
-			}
-			retVal = true;
+	private char peek() {
+		while( (position < input.length()) && Character.isWhitespace(input.charAt(position)) ) {
+			position++;
 		}
-		return retVal;		
+		return (position < input.length()) ? input.charAt(position) : 0;
 	}
 	
 	/**
-	 * Removes the fact from the knowledge base.
-	 * @param predicate the predicate against which the fact is stored in the knowledge base.
-	 * @param sentenceKey the key of the predicate against which the fact is stored.
-	 * @param fact the fact to be removed.
+	 * Creates the exception reporting a syntax error at the current position.
+	 * @param message the error message.
+	 * @return the exception.
 	 */
-	private void removeFact(String predicate, String sentenceKey, String fact) {
-		if((predicate != null) && (sentenceKey != null) && (fact != null) ) {
-			if(KB.containsKey(predicate)) {
-				Map<String, List<List<String>>> sentenceMap = KB.get(predicate);
-				List<List<String>> sentenceList = sentenceMap.get(sentenceKey);
-				List<List<String>> updatedSentenceList = new ArrayList<>();
-				for(List<String> sentence : sentenceList) {
-					String currentFact = Agent.getQuery(sentence);
-					if(!currentFact.equalsIgnoreCase(fact)) {
-						updatedSentenceList.add(sentence);
-					}
-				}
-				sentenceMap.put(sentenceKey, updatedSentenceList);
-				KB.put(predicate, sentenceMap);
-			}
-		}		
+	private IllegalArgumentException syntaxError(String message) {
+		return new IllegalArgumentException("Syntax error at position " + position + " of '" + input + "' : " + message);
 	}
 }
 
 /**
- * Class for converting FOL sentences to CNF form.
+ * Class representing a namespace of interned names.<BR>
+ * A namespace may be scoped over a parent namespace, in which case the names of the parent are resolved first and the 
+ * names new to the scope get identifiers following the ones of the parent, without modifying the parent.
  * @author pachpandenikhil
  *
  */
-class CNFConverter {
+class SymbolNamespace {
 
-	private ExpressionTree tree;
-	private InfixToPostfix converter;
+	private SymbolNamespace parent;
+	private int base;
+	private Map<String, Integer> ids;
+	private List<String> names;
 
-
-	public CNFConverter() {
-		tree = new ExpressionTree();
-		converter = new InfixToPostfix();
+	public SymbolNamespace(SymbolNamespace parent) {
+		this.parent = parent;
+		base = (parent != null) ? parent.size() : 0;
+		ids = new HashMap<>();
+		names = new ArrayList<>();
 	}
 
 	/**
-	 * Replaces parenthesis from '()' to '[]'.
-	 * @param inputExpr the FOL sentence.
-	 * @return the FOL sentence with replaced parenthesis.
+	 * Returns the identifier of the name, assigning the next free identifier if the name is not interned yet.
+	 * @param name the name to be interned.
+	 * @return the identifier of the name.
 	 */
-	private static String replacePredicateParanthesis(String inputExpr) {
-		StringBuilder input = new StringBuilder(inputExpr);
-		if(input != null) {
-			for (int idx = 0; idx < input.length(); idx++) {
-				char ch = input.charAt(idx);
+	public int intern(String name) {
+		int id = lookup(name);
+		if(id < 0) {
+			id = base + names.size();
+			ids.put(name, id);
+			names.add(name);
+		}
+		return id;
+	}
 
-				//replacing left parenthesis
-				if(ch == Operator.LEFT_PARENTHESIS) {
-					if( (idx != 0) && (!Operator.isOperator(input.charAt(idx - 1))) ) {
-						input.setCharAt(idx, Operator.PREDICATE_LEFT_PARENTHESIS);
-					}
-				}
-				//replacing right parenthesis
-				else if(ch == Operator.RIGHT_PARENTHESIS) {
-					if( (!Operator.isOperator(input.charAt(idx - 1))) && (input.charAt(idx - 1) != Operator.PREDICATE_RIGHT_PARENTHESIS)) {
-						input.setCharAt(idx, Operator.PREDICATE_RIGHT_PARENTHESIS);
-					}
-				}
+	/**
+	 * Returns the identifier of the name.
+	 * @param name the name to be found.
+	 * @return the identifier of the name or -1 if the name is not interned.
+	 */
+	public int lookup(String name) {
+		int id = (parent != null) ? parent.lookup(name) : -1;
+		if(id < 0) {
+			Integer localId = ids.get(name);
+			if(localId != null) {
+				id = localId;
 			}
 		}
-		return input.toString();
+		return id;
 	}
-	
+
 	/**
-	 * Performs the following:<BR>
-	 * <UL>
-	 * <LI>Removes whitespaces.</LI>
-	 * <LI>Replaces implication operator.</LI>
-	 * <LI>Replaces predicate parenthesis.</LI>
-	 * </UL>
-	 * @param input the FOL sentence.
-	 * @return the updated FOL sentence.
+	 * Returns the name of the identifier.
+	 * @param id the identifier.
+	 * @return the name.
 	 */
-	public String preProcessInput(String input) {
+	public String getName(int id) {
+		return (id < base) ? parent.getName(id) : names.get(id - base);
+	}
 
-		//trimming all the whitespace
-		input = input.trim().replaceAll(" +", "");
+	/**
+	 * Returns the number of interned names, including the ones of the parent.
+	 * @return the number of interned names.
+	 */
+	public int size() {
+		return base + names.size();
+	}
+}
 
-		//replacing '=>' with '='
-		input = input.replaceAll(Operator.IMPLIES, Operator.EQUALS + "");
+/**
+ * Class for interning the predicate and constant names of the knowledge base to integer identifiers.<BR>
+ * Predicate arguments are encoded as terms : a constant is represented by its (non-negative) identifier and
+ * a variable by the negative value <CODE>-(identifier + 1)</CODE>. Variables are not interned, a variable identifier 
+ * is the numeric slot of the variable within its clause, see {@link KnowledgeBase#compile(List)}.
+ * @author pachpandenikhil
+ *
+ */
+class SymbolTable {
 
-		//replacing predicate parenthesis with '[' and ']'		
-		input = replacePredicateParanthesis(input);
+	private SymbolNamespace predicates;
+	private SymbolNamespace constants;
 
-		return input;
+	public SymbolTable() {
+		this(null);
+	}
 
+	/**
+	 * Creates a symbol table scoped over the <CODE>parent</CODE> table.<BR>The parent table is never modified through the scope.
+	 * @param parent the parent symbol table, may be null.
+	 */
+	public SymbolTable(SymbolTable parent) {
+		predicates = new SymbolNamespace((parent != null) ? parent.predicates : null);
+		constants = new SymbolNamespace((parent != null) ? parent.constants : null);
 	}
-	
+
 	/**
-	 * Converts the FOL sentence to CNF.
-	 * @param fact the FOL sentence
-	 * @return the sentence in CNF form.
+	 * Interns the predicate name.
+	 * @param name the predicate name(i.e without the negation operator and arguments).
+	 * @return the predicate identifier.
 	 */
-	public String convertToCNF(String fact) {
-		String CNFExpression = "";
-		if(fact != null) {
-			fact = preProcessInput(fact);
-			String postfix = converter.convertToPostfix(fact);
-			char[] charArray = postfix.toCharArray();
-			Node root = tree.constructTree(charArray);
-			replaceImplications(root);
-			moveNegationInwards(root);
-			root = handleRootNodeNegation(root);
-			distributeAndOverOr(root);
-			CNFExpression = tree.getInorderRepresentation(root);
-		}
-		return CNFExpression;
+	public int internPredicate(String name) {
+		return predicates.intern(name);
 	}
-	
+
 	/**
-	 * Distributes AND operator over OR operator.
-	 * @param node the root of the expression tree.
+	 * Returns the identifier of the predicate name.
+	 * @param name the predicate name.
+	 * @return the predicate identifier or -1 if the predicate is not interned.
 	 */
-	private void distributeAndOverOr(Node node) {
-		if(node != null) {
-			if(node.isOrOperator()) {
-				Node leftNode = node.left;
-				Node rightNode = node.right;
-				if( (leftNode != null) && (rightNode != null) && leftNode.isAndOperator() && rightNode.isAndOperator() ) {
-					performDoubleDistribution(node);
+	public int getPredicateId(String name) {
+		return predicates.lookup(name);
+	}
 
-				}
-				else if ( (leftNode != null) && leftNode.isAndOperator() ) {
-					performDoubleDistribution(node);
-				}
-				else if( (rightNode != null) && rightNode.isAndOperator()) {
-					node.value = Operator.AND + "";
+	/**
+	 * Returns the predicate name of the identifier.
+	 * @param id the predicate identifier.
+	 * @return the predicate name.
+	 */
+	public String getPredicateName(int id) {
+		return predicates.getName(id);
+	}
 
-					Node leftORNode = new Node(Operator.OR + "");
-					leftORNode.left = leftNode;
-					leftORNode.right = rightNode.left;
+	/**
+	 * Returns the number of interned predicates.
+	 * @return the number of interned predicates.
+	 */
+	public int getPredicateCount() {
+		return predicates.size();
+	}
 
-					Node rightORNode = new Node(Operator.OR + "");
-					rightORNode.left = leftNode;
-					rightORNode.right = rightNode.right;
-					
-					node.left = leftORNode;
-					node.right = rightORNode;
+	/**
+	 * Interns the constant and returns its term encoding.
+	 * @param constant the constant name.
+	 * @return the term representing the constant.
+	 */
+	public int internConstant(String constant) {
+		return constants.intern(constant);
+	}
 
-				}
-			}
+	/**
+	 * Returns the number of interned constants.
+	 * @return the number of interned constants.
+	 */
+	public int getConstantCount() {
+		return constants.size();
+	}
 
-			distributeAndOverOr(node.left);
-			distributeAndOverOr(node.right);
+	/**
+	 * Returns the name of the constant or variable represented by the term.<BR>
+	 * Variables are named after their slot, see {@link #variableName(int)}.
+	 * @param term the term.
+	 * @return the constant or variable name.
+	 */
+	public String getArgumentName(int term) {
+		String name = null;
+		if(isVariable(term)) {
+			name = variableName(variableId(term));
+		}
+		else {
+			name = constants.getName(term);
 		}
+		return name;
+	}
 
+	/**
+	 * Returns true if the <CODE>argument</CODE> is a constant.<BR><B>For eg.</B> Bob.
+	 * @param argument the argument of the predicate to be verified.
+	 * @return true if and only if the argument begins with an uppercase letter.
+	 */
+	public static boolean isConstant(String argument) {
+		return (argument != null) && !argument.isEmpty() && Character.isUpperCase(argument.charAt(0));
 	}
-	
+
 	/**
-	 * Performs double distribution of AND operator over OR operators.
-	 * @param node
+	 * Returns true if the term represents a variable.
+	 * @param term the term to be verified.
+	 * @return true if and only if the term represents a variable.
 	 */
-	private void performDoubleDistribution(Node node) {
-		if(node != null) {
-			Node leftNode = node.left;
-			Node rightNode = node.right;
+	public static boolean isVariable(int term) {
+		return term < 0;
+	}
 
-			node.value = Operator.AND + "";
+	/**
+	 * Returns the term representing the variable identifier.
+	 * @param id the variable identifier.
+	 * @return the term representing the variable.
+	 */
+	public static int variableTerm(int id) {
+		return -(id + 1);
+	}
 
-			Node leftORNode = new Node(Operator.OR + "");
-			if(leftNode != null) {
-				leftORNode.left = leftNode.left;
-			}
+	/**
+	 * Returns the variable identifier of the term.
+	 * @param term the term representing a variable.
+	 * @return the variable identifier.
+	 */
+	public static int variableId(int term) {
+		return -(term + 1);
+	}
 
-			leftORNode.right = rightNode;
+	/**
+	 * Renames the variable term by adding the offset to its identifier, constants are left unchanged.
+	 * @param term the term to be renamed.
+	 * @param offset the offset added to the variable identifier.
+	 * @return the renamed term.
+	 */
+	public static int renameVariable(int term, int offset) {
+		return isVariable(term) ? term - offset : term;
+	}
 
-			Node rightORNode = new Node(Operator.OR + "");
-			if(leftNode != null) {
-				rightORNode.left = leftNode.right;
-			}
+	/**
+	 * Returns the name of the variable identifier, the alphabet in the sequence starting from 'a'.
+	 * @param id the variable identifier. a's identifier : 0.
+	 * @return the variable name.
+	 */
+	public static String variableName(int id) {
+		return id < 0 ? "" : variableName((id / 26) - 1) + (char)(97 + id % 26);
+	}
+}
+
+/**
+ * Class representing a growable list of primitive integers.
+ * @author pachpandenikhil
+ *
+ */
+class IntList {
+
+	private int[] values;
+	private int size;
+
+	public IntList() {
+		this(16);
+	}
 
-			rightORNode.right = rightNode;
+	public IntList(int capacity) {
+		values = new int[Math.max(capacity, 1)];
+		size = 0;
+	}
 
-			node.left = leftORNode;
-			node.right = rightORNode;
+	/**
+	 * Appends the value to the list.
+	 * @param value the value to be appended.
+	 */
+	public void add(int value) {
+		if(size == values.length) {
+			values = Arrays.copyOf(values, size << 1);
 		}
+		values[size++] = value;
+	}
 
+	/**
+	 * Returns the value at the index.
+	 * @param index the index.
+	 * @return the value at the index.
+	 */
+	public int get(int index) {
+		return values[index];
 	}
-	
+
 	/**
-	 * Moves negation inwards the expression.
-	 * @param node the root node of the expression tree.
+	 * Replaces the value at the index.
+	 * @param index the index.
+	 * @param value the new value.
 	 */
-	private void moveNegationInwards(Node node) {
-		if(node != null) {
-			moveNegationInwards(node.left);
-			moveNegationInwards(node.right);
-			Node leftNode = node.left;
-			Node rightNode = node.right;
+	public void set(int index, int value) {
+		values[index] = value;
+	}
 
-			if( (leftNode != null) && (leftNode.isNegateOperator()) ) {
-				negateTree(leftNode.right);
-				node.left = leftNode.right;
+	/**
+	 * Returns the number of values in the list.
+	 * @return the number of values in the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Discards all the values beyond <CODE>newSize</CODE>.
+	 * @param newSize the new size of the list.
+	 */
+	public void truncate(int newSize) {
+		if(newSize < size) {
+			size = newSize;
+		}
+	}
+
+	/**
+	 * Removes all the values.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the values as an array.
+	 * @return the array of values.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
+
+/**
+ * Class representing a sentence in CNF form(i.e a disjunction of literals) compiled to a flat integer array.<BR>
+ * Every literal is laid out as <CODE>[header, arity, argument<SUB>1</SUB>, ..., argument<SUB>arity</SUB>]</CODE>
+ * where the header holds the predicate identifier and the negation flag.
+ * @author pachpandenikhil
+ *
+ */
+class Clause {
+
+	//the offsets of every single-literal clause, shared as the offsets are never modified
+	private static final int[] SINGLE_LITERAL_OFFSETS 	= {0};
+
+	private final int[] data;
+	private final int[] offsets;
+	private int hash;
+	private int variableBound = -1;
+
+	public Clause(int[] data) {
+		this.data = data;
+		int count = 0;
+		for(int idx = 0; idx < data.length; idx += data[idx + 1] + 2) {
+			count++;
+		}
+		if(count == 1) {
+			offsets = SINGLE_LITERAL_OFFSETS;
+		}
+		else {
+			offsets = new int[count];
+			count = 0;
+			for(int idx = 0; idx < data.length; idx += data[idx + 1] + 2) {
+				offsets[count++] = idx;
 			}
+		}
+	}
 
-			if( (rightNode != null) && (rightNode.isNegateOperator()) ) {
-				negateTree(rightNode.right);
-				node.right = rightNode.right;
+	private Clause(int[] data, int[] offsets) {
+		this.data = data;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Returns the literal header for the predicate.
+	 * @param predicate the predicate identifier.
+	 * @param negative true if the literal is negated.
+	 * @return the literal header.
+	 */
+	public static int header(int predicate, boolean negative) {
+		return (predicate << 1) | (negative ? 1 : 0);
+	}
+
+	/**
+	 * Returns the number of literals in the clause.
+	 * @return the number of literals.
+	 */
+	public int size() {
+		return offsets.length;
+	}
+
+	/**
+	 * Returns true if the clause does not contain any literal.
+	 * @return true if and only if the clause is empty.
+	 */
+	public boolean isEmpty() {
+		return offsets.length == 0;
+	}
+
+	/**
+	 * Returns a copy of the flat representation of the clause.
+	 * @return the literal headers, arities and arguments of the clause, in order.
+	 */
+	public int[] toArray() {
+		return data.clone();
+	}
+
+	/**
+	 * Returns the header(predicate and negation flag) of the literal.
+	 * @param literal the literal index.
+	 * @return the literal header.
+	 */
+	public int getHeader(int literal) {
+		return data[offsets[literal]];
+	}
+
+	/**
+	 * Returns the predicate identifier of the literal.
+	 * @param literal the literal index.
+	 * @return the predicate identifier.
+	 */
+	public int getPredicate(int literal) {
+		return data[offsets[literal]] >>> 1;
+	}
+
+	/**
+	 * Returns true if the literal is preceded by a negation operator.
+	 * @param literal the literal index.
+	 * @return true if and only if the literal is negated.
+	 */
+	public boolean isNegative(int literal) {
+		return (data[offsets[literal]] & 1) != 0;
+	}
+
+	/**
+	 * Returns the number of arguments of the literal.
+	 * @param literal the literal index.
+	 * @return the number of arguments.
+	 */
+	public int getArity(int literal) {
+		return data[offsets[literal] + 1];
+	}
+
+	/**
+	 * Returns the argument of the literal.
+	 * @param literal the literal index.
+	 * @param argument the argument position.
+	 * @return the term at the argument position.
+	 */
+	public int getArgument(int literal, int argument) {
+		return data[offsets[literal] + 2 + argument];
+	}
+
+	/**
+	 * Returns the tuple of the arguments of the literal, sharing the data of the clause.
+	 * @param literal the literal index.
+	 * @return the argument tuple.
+	 */
+	public GroundTuple getTuple(int literal) {
+		return new GroundTuple(data, offsets[literal] + 2, data[offsets[literal] + 1]);
+	}
+
+	/**
+	 * Returns true if the literal does not contain any variable.
+	 * @param literal the literal index.
+	 * @return true if and only if all the arguments of the literal are constants.
+	 */
+	public boolean isGround(int literal) {
+		boolean isGround = true;
+		int offset = offsets[literal];
+		for(int idx = offset + 2; isGround && (idx < offset + 2 + data[offset + 1]); idx++) {
+			isGround = !SymbolTable.isVariable(data[idx]);
+		}
+		return isGround;
+	}
+
+	/**
+	 * Returns one more than the largest variable identifier of the clause, i.e the number of variables of a clause 
+	 * in canonical form, see {@link #getCanonicalForm()}.<BR>
+	 * Offsetting the variables of another clause by the bound renames that clause apart from this one.
+	 * @return the variable bound, or 0 if the clause is ground.
+	 */
+	public int getVariableBound() {
+		int bound = variableBound;
+		if(bound < 0) {
+			bound = 0;
+			for(int offset : offsets) {
+				for(int idx = offset + 2; idx < offset + 2 + data[offset + 1]; idx++) {
+					if(SymbolTable.isVariable(data[idx])) {
+						bound = Math.max(bound, SymbolTable.variableId(data[idx]) + 1);
+					}
+				}
 			}
+			variableBound = bound;
 		}
+		return bound;
 	}
-	
+
 	/**
-	 * Handles special scenario where the root node is a negation operator.
-	 * @param root the root node of the expression tree.
-	 * @return the root node of the negated subtree.
+	 * Returns the clause with the literal moved to the front, the other literals keeping their order.
+	 * @param literal the literal index.
+	 * @return the reordered clause, or this clause if the literal is already the first one.
 	 */
-	private Node handleRootNodeNegation(Node root) {
-		Node updatedRoot = root;
-		if(root != null) {
-			if(root.isNegateOperator()) {
-				negateTree(root.right);
-				updatedRoot = root.right;
+	public Clause select(int literal) {
+		Clause selected = this;
+		if(literal > 0) {
+			int[] reordered = new int[data.length];
+			int start = offsets[literal];
+			int end = (literal + 1 < offsets.length) ? offsets[literal + 1] : data.length;
+			System.arraycopy(data, start, reordered, 0, end - start);
+			System.arraycopy(data, 0, reordered, end - start, start);
+			System.arraycopy(data, end, reordered, end, data.length - end);
+			selected = new Clause(reordered);
+		}
+		return selected;
+	}
+
+	/**
+	 * Returns the clause without its first literal.
+	 * @return the remaining literals as a clause.
+	 */
+	public Clause tail() {
+		int start = (offsets.length > 1) ? offsets[1] : data.length;
+		return new Clause(Arrays.copyOfRange(data, start, data.length));
+	}
+
+	/**
+	 * Appends the literal to the clause data under construction, replacing the bound variables by their values.
+	 * @param literal the literal index.
+	 * @param bindings the variable bindings, may be null.
+	 * @param target the clause data under construction.
+	 */
+	public void copyLiteral(int literal, Bindings bindings, IntList target) {
+		copyLiteral(literal, 0, bindings, target);
+	}
+
+	/**
+	 * Appends the literal to the clause data under construction with its variables renamed by the offset, 
+	 * replacing the bound variables by their values.
+	 * @param literal the literal index.
+	 * @param variableOffset the offset added to the variable identifiers, see {@link SymbolTable#renameVariable(int, int)}.
+	 * @param bindings the variable bindings, may be null.
+	 * @param target the clause data under construction.
+	 */
+	public void copyLiteral(int literal, int variableOffset, Bindings bindings, IntList target) {
+		int offset = offsets[literal];
+		int arity = data[offset + 1];
+		target.add(data[offset]);
+		target.add(arity);
+		for(int idx = 0; idx < arity; idx++) {
+			int argument = SymbolTable.renameVariable(data[offset + 2 + idx], variableOffset);
+			if(bindings != null) {
+				argument = bindings.dereference(argument);
 			}
+			target.add(argument);
 		}
-		return updatedRoot;
 	}
 
 	/**
-	 * Negates the operator and predicate nodes of the expression tree rooted at <CODE>node</CODE>.
-	 * @param node the root node of the expression tree.
+	 * Returns true if the clause is equal to the <CODE>other</CODE> clause up to the renaming of variables.
+	 * @param other the clause to be compared.
+	 * @return true if and only if both clauses are variants of each other.
 	 */
-	private void negateTree(Node node) {
-		if(node != null) {
+	public boolean isVariant(Clause other) {
+		boolean isVariant = false;
+		if( (other != null) && (other.data.length == data.length) ) {
+			isVariant = getCanonicalForm().equals(other.getCanonicalForm());
+		}
+		return isVariant;
+	}
 
-			//negating the current node first
-			char nodeValue = node.value.charAt(0);
-			if(node.isNegatedPredicate()) {
-				node.value = node.value.substring(1, node.value.length());
-			}		
-			else if(Operator.isOperator(nodeValue)) {
-				switch (nodeValue) {
-
-				case Operator.AND		:
-					node.value = Operator.OR + "";
-					break;
+	/**
+	 * Returns the canonical form of the clause in which the variables are renumbered in the order of their first occurrence.<BR>
+	 * Clauses that are equal up to the renaming of variables have equal canonical forms, 
+	 * which makes the canonical form usable as a fingerprint of the clause.
+	 * @return the canonical form of the clause.
+	 */
+	public Clause getCanonicalForm() {
+		int[] canonical = new int[data.length];
+		int[] variables = null;
+		int variableCount = 0;
+		for(int offset : offsets) {
+			int arity = data[offset + 1];
+			canonical[offset] = data[offset];
+			canonical[offset + 1] = arity;
+			for(int idx = offset + 2; idx < offset + 2 + arity; idx++) {
+				int term = data[idx];
+				if(SymbolTable.isVariable(term)) {
+					int variable = 0;
+					while( (variable < variableCount) && (variables[variable] != term) ) {
+						variable++;
+					}
+					if(variable == variableCount) {
+						if(variables == null) {
+							variables = new int[data.length];
+						}
+						variables[variableCount++] = term;
+					}
+					term = SymbolTable.variableTerm(variable);
+				}
+				canonical[idx] = term;
+			}
+		}
+		return new Clause(canonical, offsets);
+	}
 
-				case Operator.OR		:
-					node.value = Operator.AND + "";
-					break;
+	@Override
+	public boolean equals(Object obj) {
+		boolean isEqual = false;
+		if(obj == this) {
+			isEqual = true;
+		}
+		else if(obj instanceof Clause) {
+			isEqual = Arrays.equals(data, ((Clause) obj).data);
+		}
+		return isEqual;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if(h == 0) {
+			h = Arrays.hashCode(data);
+			hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the string representation of the clause.<BR><B>For eg.</B> ~Parent[x,y]|Ancestor[x,y].
+	 * @param symbols the symbol table used to resolve the identifiers.
+	 * @return the string representation of the clause.
+	 */
+	public String toString(SymbolTable symbols) {
+		StringBuilder clause = new StringBuilder();
+		for(int literal = 0; literal < offsets.length; literal++) {
+			if(literal > 0) {
+				clause.append(Operator.OR);
+			}
+			if(isNegative(literal)) {
+				clause.append(Operator.NEGATE);
+			}
+			clause.append(symbols.getPredicateName(getPredicate(literal)));
+			clause.append(Operator.PREDICATE_LEFT_PARENTHESIS);
+			for(int argument = 0; argument < getArity(literal); argument++) {
+				if(argument > 0) {
+					clause.append(',');
 				}
+				clause.append(symbols.getArgumentName(getArgument(literal, argument)));
+			}
+			clause.append(Operator.PREDICATE_RIGHT_PARENTHESIS);
+		}
+		if(clause.length() == 0) {
+			clause.append("<<EMPTY>>");
+		}
+		return clause.toString();
+	}
+}
+
+/**
+ * Class representing the immutable shape of a literal : its arity, the positions of its constants and the pattern of 
+ * its repeated variables.<BR>
+ * Shapes are hash-consed by the predicate buckets, so the literals of a bucket having the same shape share a single instance,
+ * and comparing two interned shapes by reference tells whether they are equal. Comparing the shapes and constants of 
+ * two literals rules out most pairs of literals which cannot unify with a few bitwise and integer comparisons, 
+ * without recording any binding. Only the first {@link #MAX_MASKED_POSITION} argument positions are compared, 
+ * the remaining ones are left to the unification.
+ * @author pachpandenikhil
+ *
+ */
+class LiteralShape {
+
+	public static final int MAX_MASKED_POSITION 	= 64;
+
+	private final int arity;
+	private final long constantMask;
+	private final long repeatMask;
+	private final int[] firstOccurrences;
+	private final int hash;
+
+	/**
+	 * Computes the shape of the literal.
+	 * @param clause the clause containing the literal.
+	 * @param literal the index of the literal.
+	 */
+	public LiteralShape(Clause clause, int literal) {
+		arity = clause.getArity(literal);
+		int maskedArity = Math.min(arity, MAX_MASKED_POSITION);
+		long constants = 0;
+		long repeats = 0;
+		int[] occurrences = null;
+		for(int position = 0; position < maskedArity; position++) {
+			int argument = clause.getArgument(literal, position);
+			if(!SymbolTable.isVariable(argument)) {
+				constants |= 1L << position;
 			}
 			else {
-				node.value = Operator.NEGATE + node.value;
+				for(int previous = 0; previous < position; previous++) {
+					if(clause.getArgument(literal, previous) == argument) {
+						if(occurrences == null) {
+							occurrences = new int[maskedArity];
+						}
+						occurrences[position] = previous;
+						repeats |= 1L << position;
+						break;
+					}
+				}
+			}
+		}
+		constantMask = constants;
+		repeatMask = repeats;
+		firstOccurrences = occurrences;
+		hash = 31 * (31 * (31 * arity + Long.hashCode(constants)) + Long.hashCode(repeats)) + Arrays.hashCode(occurrences);
+	}
+
+	/**
+	 * Returns the number of arguments of the literal.
+	 * @return the arity.
+	 */
+	public int getArity() {
+		return arity;
+	}
+
+	/**
+	 * Returns false if the two literals definitely cannot unify : their arities differ, they hold different constants at 
+	 * the same position, or a repeated variable of one literal faces two different constants of the other.<BR>
+	 * Literals of the same interned shape only need their constants to be compared.
+	 * @param clause the clause containing the literal of this shape.
+	 * @param literal the index of the literal of this shape.
+	 * @param otherShape the shape of the other literal.
+	 * @param other the clause containing the other literal.
+	 * @param otherLiteral the index of the other literal.
+	 * @return false if the literals cannot unify, true if they may.
+	 */
+	public boolean isCompatible(Clause clause, int literal, LiteralShape otherShape, Clause other, int otherLiteral) {
+		boolean isCompatible = (arity == otherShape.arity);
+		for(long both = constantMask & otherShape.constantMask; isCompatible && (both != 0); both &= both - 1) {
+			int position = Long.numberOfTrailingZeros(both);
+			isCompatible = (clause.getArgument(literal, position) == other.getArgument(otherLiteral, position));
+		}
+		if( isCompatible && (otherShape != this) ) {
+			isCompatible = isRepeatCompatible(otherShape, other, otherLiteral) && otherShape.isRepeatCompatible(this, clause, literal);
+		}
+		return isCompatible;
+	}
+
+	/**
+	 * Returns false if a repeated variable of this shape faces two different constants of the other literal.
+	 * @param otherShape the shape of the other literal.
+	 * @param other the clause containing the other literal.
+	 * @param otherLiteral the index of the other literal.
+	 * @return false if the repeated variables of this shape cannot be bound.
+	 */
+	private boolean isRepeatCompatible(LiteralShape otherShape, Clause other, int otherLiteral) {
+		boolean isCompatible = true;
+		for(long repeats = repeatMask & otherShape.constantMask; isCompatible && (repeats != 0); repeats &= repeats - 1) {
+			int position = Long.numberOfTrailingZeros(repeats);
+			int first = firstOccurrences[position];
+			if( (otherShape.constantMask & (1L << first)) != 0 ) {
+				isCompatible = (other.getArgument(otherLiteral, position) == other.getArgument(otherLiteral, first));
 			}
+		}
+		return isCompatible;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		boolean isEqual = false;
+		if(obj == this) {
+			isEqual = true;
+		}
+		else if(obj instanceof LiteralShape) {
+			LiteralShape other = (LiteralShape) obj;
+			isEqual = (arity == other.arity) && (constantMask == other.constantMask) && (repeatMask == other.repeatMask) 
+					&& Arrays.equals(firstOccurrences, other.firstOccurrences);
+		}
+		return isEqual;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
+
+/**
+ * Class representing a literal of a clause stored in the knowledge base, along with its interned shape.
+ * @author pachpandenikhil
+ *
+ */
+class StoredLiteral {
+
+	private final Clause clause;
+	private final int literal;
+	private final int sequence;
+	private final LiteralShape shape;
+
+	public StoredLiteral(Clause clause, int literal, int sequence, LiteralShape shape) {
+		this.clause = clause;
+		this.literal = literal;
+		this.sequence = sequence;
+		this.shape = shape;
+	}
+
+	/**
+	 * Returns the clause containing the literal.
+	 * @return the clause.
+	 */
+	public Clause getClause() {
+		return clause;
+	}
+
+	/**
+	 * Returns the index of the literal within the clause.
+	 * @return the literal index.
+	 */
+	public int getLiteral() {
+		return literal;
+	}
+
+	/**
+	 * Returns the insertion sequence number of the literal within its bucket.
+	 * @return the sequence number.
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns the shape of the literal.
+	 * @return the interned literal shape.
+	 */
+	public LiteralShape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Returns false if the literal definitely cannot unify with the goal literal, see {@link LiteralShape#isCompatible(Clause, int, LiteralShape, Clause, int)}.
+	 * @param goal the clause containing the goal literal.
+	 * @param goalLiteral the index of the goal literal.
+	 * @param goalShape the shape of the goal literal.
+	 * @return false if the literals cannot unify, true if they may.
+	 */
+	public boolean isCompatible(Clause goal, int goalLiteral, LiteralShape goalShape) {
+		return shape.isCompatible(clause, literal, goalShape, goal, goalLiteral);
+	}
+}
+
+/**
+ * Class representing the ground arguments of a literal, used as the key of the ground facts.<BR>
+ * The tuple is a view over a range of an array which is never modified, such as the data of a clause, 
+ * so the tuple shares the memory of the arguments rather than copying them.
+ * @author pachpandenikhil
+ *
+ */
+class GroundTuple {
+
+	private final int[] values;
+	private final int start;
+	private final int length;
+	private final int hash;
+
+	/**
+	 * Creates the tuple of the ground arguments.
+	 * @param arguments the constants of the tuple, not copied.
+	 */
+	public GroundTuple(int[] arguments) {
+		this(arguments, 0, arguments.length);
+	}
+
+	/**
+	 * Creates the tuple of a range of constants.
+	 * @param values the array holding the constants, not copied.
+	 * @param start the index of the first constant of the tuple.
+	 * @param length the number of constants of the tuple.
+	 */
+	public GroundTuple(int[] values, int start, int length) {
+		this.values = values;
+		this.start = start;
+		this.length = length;
+		int h = 1;
+		for(int idx = start; idx < start + length; idx++) {
+			h = 31 * h + values[idx];
+		}
+		hash = h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		boolean isEqual = false;
+		if(obj == this) {
+			isEqual = true;
+		}
+		else if(obj instanceof GroundTuple) {
+			GroundTuple other = (GroundTuple) obj;
+			isEqual = (length == other.length) && (hash == other.hash);
+			for(int idx = 0; isEqual && (idx < length); idx++) {
+				isEqual = (values[start + idx] == other.values[other.start + idx]);
+			}
+		}
+		return isEqual;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
+
+/**
+ * Class representing a counting Bloom filter over 64-bit keys.<BR>
+ * Each key increments a few saturating 8-bit counters, so keys can be removed as well as added : a counter which 
+ * saturated is never decremented again, which may only cause false positives. A negative answer is always exact.
+ * @author pachpandenikhil
+ *
+ */
+class CountingBloomFilter {
+
+	private static final int PROBES 			= 3;
+	private static final int COUNTERS_PER_KEY 	= 8;
+	private static final int SATURATED 			= 0xFF;
+
+	private byte[] counters;
+	private int keys;
+
+	/**
+	 * Creates the filter.
+	 * @param capacity the number of keys the filter is sized for.
+	 */
+	public CountingBloomFilter(int capacity) {
+		counters = new byte[Math.max(capacity, 1) * COUNTERS_PER_KEY];
+		keys = 0;
+	}
+
+	/**
+	 * Adds the key to the filter.
+	 * @param key the key.
+	 */
+	public void add(long key) {
+		long hash = mix(key);
+		for(int probe = 0; probe < PROBES; probe++) {
+			int idx = index(hash, probe);
+			if( (counters[idx] & SATURATED) != SATURATED ) {
+				counters[idx]++;
+			}
+		}
+		keys++;
+	}
+
+	/**
+	 * Removes the key, previously added, from the filter.
+	 * @param key the key.
+	 */
+	public void remove(long key) {
+		long hash = mix(key);
+		for(int probe = 0; probe < PROBES; probe++) {
+			int idx = index(hash, probe);
+			int counter = counters[idx] & SATURATED;
+			if( (counter != 0) && (counter != SATURATED) ) {
+				counters[idx]--;
+			}
+		}
+		keys--;
+	}
+
+	/**
+	 * Returns false if the key is definitely not in the filter.
+	 * @param key the key.
+	 * @return false if the key was never added or was removed, true if it may be in the filter.
+	 */
+	public boolean mightContain(long key) {
+		boolean mightContain = true;
+		long hash = mix(key);
+		for(int probe = 0; mightContain && (probe < PROBES); probe++) {
+			mightContain = counters[index(hash, probe)] != 0;
+		}
+		return mightContain;
+	}
+
+	/**
+	 * Returns true if the filter holds more keys than it is sized for, and is to be rebuilt larger.
+	 * @return true if and only if the filter is overloaded.
+	 */
+	public boolean isOverloaded() {
+		return keys > counters.length / COUNTERS_PER_KEY;
+	}
+
+	/**
+	 * Returns the number of keys in the filter.
+	 * @return the number of keys.
+	 */
+	public int size() {
+		return keys;
+	}
+
+	/**
+	 * Returns the counter probed for the key, by double hashing.
+	 * @param hash the mixed key.
+	 * @param probe the probe number.
+	 * @return the counter index.
+	 */
+	private int index(long hash, int probe) {
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32) | 1;
+		return Math.floorMod(h1 + probe * h2, counters.length);
+	}
+
+	/**
+	 * Mixes the bits of the key(finalizer of MurmurHash3).
+	 * @param key the key.
+	 * @return the mixed key.
+	 */
+	public static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
+
+/**
+ * Class representing the sentences of the knowledge base containing a predicate with a given polarity.<BR>
+ * The literals are additionally indexed by argument position : for every position, the literals having a constant at 
+ * that position are hashed by the constant and the literals having a variable at that position are kept aside.<BR>
+ * Ground unit facts are also hashed by their argument tuple, for resolving ground goals by a single lookup.<BR>
+ * A counting Bloom filter over the argument tuples of the ground literals and the (position, constant) pairs of all the 
+ * literals rules out most goals which have no candidate in the bucket before any index is looked up.<BR>
+ * The bucket is the arena in which the shapes of its literals are hash-consed, see {@link LiteralShape}.
+ * @author pachpandenikhil
+ *
+ */
+class PredicateBucket {
+
+	private List<StoredLiteral> literals;
+	private List<Map<Integer, List<StoredLiteral>>> constantIndex;
+	private List<List<StoredLiteral>> variableIndex;
+	private Map<GroundTuple, StoredLiteral> groundFacts;
+	private Map<LiteralShape, LiteralShape> shapes;
+	private CountingBloomFilter filter;
+	private int nonGroundLiterals;
+	private int ruleLiterals;
+	private int literalSequence;
+
+	public PredicateBucket() {
+		literals = new ArrayList<>();
+		constantIndex = new ArrayList<>();
+		variableIndex = new ArrayList<>();
+		groundFacts = new HashMap<>();
+		shapes = new HashMap<>();
+		filter = new CountingBloomFilter(16);
+		nonGroundLiterals = 0;
+		ruleLiterals = 0;
+		literalSequence = 0;
+	}
+
+	/**
+	 * Adds the literal of the clause to the bucket.
+	 * @param clause the clause containing the literal.
+	 * @param literal the index of the literal within the clause.
+	 */
+	public void add(Clause clause, int literal) {
+		StoredLiteral storedLiteral = new StoredLiteral(clause, literal, literalSequence++, internShape(new LiteralShape(clause, literal)));
+		literals.add(storedLiteral);
+		if(clause.size() > 1) {
+			ruleLiterals++;
+		}
+		else if(clause.isGround(literal)) {
+			groundFacts.putIfAbsent(clause.getTuple(literal), storedLiteral);
+		}
+		updateFilter(clause, literal, true);
+		if(filter.isOverloaded()) {
+			rebuildFilter();
+		}
+		for(int position = 0; position < clause.getArity(literal); position++) {
+			while(constantIndex.size() <= position) {
+				constantIndex.add(new HashMap<>());
+				variableIndex.add(new ArrayList<>());
+			}
+			int argument = clause.getArgument(literal, position);
+			if(SymbolTable.isVariable(argument)) {
+				variableIndex.get(position).add(storedLiteral);
+			}
+			else {
+				Map<Integer, List<StoredLiteral>> constants = constantIndex.get(position);
+				List<StoredLiteral> constantLiterals = constants.get(argument);
+				if(constantLiterals == null) {
+					constantLiterals = new ArrayList<>(2);
+					constants.put(argument, constantLiterals);
+				}
+				constantLiterals.add(storedLiteral);
+			}
+		}
+	}
+
+	/**
+	 * Returns the instance of the shape shared by the literals of the bucket, adding the shape if no literal has it yet.<BR>
+	 * Shapes are never removed, a bucket only holds a handful of distinct shapes.
+	 * @param shape the shape of a literal.
+	 * @return the interned shape.
+	 */
+	private LiteralShape internShape(LiteralShape shape) {
+		LiteralShape interned = shapes.putIfAbsent(shape, shape);
+		return (interned != null) ? interned : shape;
+	}
+
+	/**
+	 * Removes all the literals belonging to the clause.
+	 * @param clause the clause to be removed.
+	 */
+	public void remove(Clause clause) {
+		for(int idx = literals.size() - 1; idx >= 0; idx--) {
+			StoredLiteral storedLiteral = literals.get(idx);
+			if(storedLiteral.getClause() == clause) {
+				literals.remove(idx);
+				if(clause.size() > 1) {
+					ruleLiterals--;
+				}
+				updateFilter(clause, storedLiteral.getLiteral(), false);
+				for(int position = 0; position < clause.getArity(storedLiteral.getLiteral()); position++) {
+					int argument = clause.getArgument(storedLiteral.getLiteral(), position);
+					if(SymbolTable.isVariable(argument)) {
+						variableIndex.get(position).remove(storedLiteral);
+					}
+					else {
+						Map<Integer, List<StoredLiteral>> constants = constantIndex.get(position);
+						List<StoredLiteral> constantLiterals = constants.get(argument);
+						constantLiterals.remove(storedLiteral);
+						if(constantLiterals.isEmpty()) {
+							constants.remove(argument);
+						}
+					}
+				}
+				if( (clause.size() == 1) && clause.isGround(storedLiteral.getLiteral()) ) {
+					GroundTuple tuple = clause.getTuple(storedLiteral.getLiteral());
+					if(groundFacts.get(tuple) == storedLiteral) {
+						//the fact is replaced by a remaining duplicate, if any
+						groundFacts.remove(tuple);
+						StoredLiteral duplicate = findGroundFact(clause, storedLiteral.getLiteral());
+						if(duplicate != null) {
+							groundFacts.put(duplicate.getClause().getTuple(duplicate.getLiteral()), duplicate);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the first ground unit fact of the bucket with the same arguments as the ground literal, looking through 
+	 * the literals having the same first argument only.
+	 * @param clause the clause containing the ground literal.
+	 * @param literal the index of the ground literal.
+	 * @return the literal of the unit fact, or null if the bucket has no such fact.
+	 */
+	private StoredLiteral findGroundFact(Clause clause, int literal) {
+		StoredLiteral fact = null;
+		List<StoredLiteral> candidates = literals;
+		if(clause.getArity(literal) > 0) {
+			candidates = constantIndex.get(0).get(clause.getArgument(literal, 0));
+		}
+		if(candidates != null) {
+			GroundTuple tuple = clause.getTuple(literal);
+			for(StoredLiteral candidate : candidates) {
+				Clause candidateClause = candidate.getClause();
+				if( (candidateClause.size() == 1) && candidateClause.isGround(0) && candidateClause.getTuple(0).equals(tuple) ) {
+					fact = candidate;
+					break;
+				}
+			}
+		}
+		return fact;
+	}
+
+	/**
+	 * Adds or removes the keys of the literal to or from the Bloom filter.
+	 * @param clause the clause containing the literal.
+	 * @param literal the index of the literal.
+	 * @param add true to add the keys, false to remove them.
+	 */
+	private void updateFilter(Clause clause, int literal, boolean add) {
+		if(clause.isGround(literal)) {
+			long key = tupleKey(clause, literal);
+			if(add) {
+				filter.add(key);
+			}
+			else {
+				filter.remove(key);
+			}
+		}
+		else {
+			nonGroundLiterals += add ? 1 : -1;
+		}
+		for(int position = 0; position < clause.getArity(literal); position++) {
+			int argument = clause.getArgument(literal, position);
+			if(!SymbolTable.isVariable(argument)) {
+				if(add) {
+					filter.add(pairKey(position, argument));
+				}
+				else {
+					filter.remove(pairKey(position, argument));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the Bloom filter from the stored literals, sized for twice as many keys.
+	 */
+	private void rebuildFilter() {
+		int keys = filter.size();
+		filter = new CountingBloomFilter(2 * keys);
+		nonGroundLiterals = 0;
+		for(StoredLiteral storedLiteral : literals) {
+			updateFilter(storedLiteral.getClause(), storedLiteral.getLiteral(), true);
+		}
+	}
+
+	/**
+	 * Returns the Bloom filter key of the arguments of the ground literal.
+	 * @param clause the clause containing the literal.
+	 * @param literal the index of the literal.
+	 * @return the key.
+	 */
+	private static long tupleKey(Clause clause, int literal) {
+		long key = clause.getArity(literal);
+		for(int position = 0; position < clause.getArity(literal); position++) {
+			key = CountingBloomFilter.mix(key) + clause.getArgument(literal, position);
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the Bloom filter key of the constant at the argument position.
+	 * @param position the argument position.
+	 * @param constant the constant.
+	 * @return the key, distinct from the keys of the tuples.
+	 */
+	private static long pairKey(int position, int constant) {
+		return ~(((long)position << 32) | (constant & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Returns false if the bucket definitely has no literal compatible with the goal literal, after a few Bloom filter probes.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return false if no literal of the bucket can unify with the goal literal, true if some may.
+	 */
+	public boolean mayMatch(Clause goal, int literal) {
+		boolean mayMatch = !literals.isEmpty();
+		boolean isGround = true;
+		int arity = goal.getArity(literal);
+		for(int position = 0; mayMatch && (position < arity); position++) {
+			int argument = goal.getArgument(literal, position);
+			if(SymbolTable.isVariable(argument)) {
+				isGround = false;
+			}
+			else if( (position >= variableIndex.size()) || variableIndex.get(position).isEmpty() ) {
+				//only the literals having the same constant at the position can match
+				mayMatch = filter.mightContain(pairKey(position, argument));
+			}
+		}
+		if(mayMatch && isGround && (nonGroundLiterals == 0)) {
+			mayMatch = filter.mightContain(tupleKey(goal, literal));
+		}
+		return mayMatch;
+	}
+
+	/**
+	 * Returns the literals whose constants are compatible with the constants of the goal literal, in insertion order.<BR>
+	 * The argument position with the fewest compatible literals is used for the lookup, the literals found are then 
+	 * filtered by comparing their shapes and constants with the ones of the goal literal, see {@link StoredLiteral#isCompatible(Clause, int, LiteralShape)}.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return the list of candidate literals.
+	 */
+	public List<StoredLiteral> getCandidates(Clause goal, int literal) {
+		List<StoredLiteral> candidates = Collections.emptyList();
+		if(mayMatch(goal, literal)) {
+			candidates = literals;
+			List<StoredLiteral> constantCandidates = null;
+			List<StoredLiteral> variableCandidates = null;
+			int candidateCount = literals.size();
+			int arity = Math.min(goal.getArity(literal), constantIndex.size());
+			for(int position = 0; (position < arity) && (candidateCount > 0); position++) {
+				int argument = goal.getArgument(literal, position);
+				if(!SymbolTable.isVariable(argument)) {
+					List<StoredLiteral> constants = constantIndex.get(position).get(argument);
+					List<StoredLiteral> variables = variableIndex.get(position);
+					int count = ((constants != null) ? constants.size() : 0) + variables.size();
+					if(count < candidateCount) {
+						candidateCount = count;
+						constantCandidates = constants;
+						variableCandidates = variables;
+					}
+				}
+			}
+			if(candidateCount < literals.size()) {
+				candidates = merge(constantCandidates, variableCandidates);
+			}
+			LiteralShape goalShape = new LiteralShape(goal, literal);
+			LiteralShape internedShape = shapes.get(goalShape);
+			candidates = filter(candidates, goal, literal, (internedShape != null) ? internedShape : goalShape);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns the literals compatible with the goal literal, in order.
+	 * @param candidates the candidate literals, not modified.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @param goalShape the shape of the goal literal, interned by this bucket if any of its literals has the same shape.
+	 * @return the candidates themselves if all of them are compatible, otherwise a filtered copy.
+	 */
+	private static List<StoredLiteral> filter(List<StoredLiteral> candidates, Clause goal, int literal, LiteralShape goalShape) {
+		List<StoredLiteral> compatible = null;
+		for(int idx = 0; idx < candidates.size(); idx++) {
+			StoredLiteral candidate = candidates.get(idx);
+			boolean isCompatible = candidate.isCompatible(goal, literal, goalShape);
+			if( !isCompatible && (compatible == null) ) {
+				compatible = new ArrayList<>(candidates.subList(0, idx));
+			}
+			else if( isCompatible && (compatible != null) ) {
+				compatible.add(candidate);
+			}
+		}
+		return (compatible != null) ? compatible : candidates;
+	}
+
+	/**
+	 * Returns an upper bound on the number of literals {@link #getCandidates(Clause, int)} would return, without building 
+	 * the list.<BR>The candidates are counted from the argument indexes only : the ones the shape check would drop are 
+	 * included.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return the upper bound on the number of candidate literals.
+	 */
+	public int countCandidates(Clause goal, int literal) {
+		int candidateCount = 0;
+		if(mayMatch(goal, literal)) {
+			candidateCount = literals.size();
+			int arity = Math.min(goal.getArity(literal), constantIndex.size());
+			for(int position = 0; (position < arity) && (candidateCount > 0); position++) {
+				int argument = goal.getArgument(literal, position);
+				if(!SymbolTable.isVariable(argument)) {
+					List<StoredLiteral> constants = constantIndex.get(position).get(argument);
+					int count = ((constants != null) ? constants.size() : 0) + variableIndex.get(position).size();
+					candidateCount = Math.min(candidateCount, count);
+				}
+			}
+		}
+		return candidateCount;
+	}
+
+	/**
+	 * Returns false if the bucket definitely has no literal of a non-unit clause compatible with the goal literal.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return false if no literal of a non-unit clause can unify with the goal literal, true if some may.
+	 */
+	public boolean mayMatchRule(Clause goal, int literal) {
+		return (ruleLiterals > 0) && mayMatch(goal, literal);
+	}
+
+	/**
+	 * Returns a ground unit fact of the bucket with the same arguments as the ground goal literal.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the ground goal literal.
+	 * @return the literal of the unit fact, or null if the bucket has no such fact.
+	 */
+	public StoredLiteral getGroundFact(Clause goal, int literal) {
+		StoredLiteral fact = null;
+		if(!groundFacts.isEmpty() && filter.mightContain(tupleKey(goal, literal))) {
+			fact = groundFacts.get(goal.getTuple(literal));
+		}
+		return fact;
+	}
+
+	/**
+	 * Merges the two lists of literals sorted by insertion sequence.
+	 * @param first the first list, may be null.
+	 * @param second the second list.
+	 * @return the merged list sorted by insertion sequence.
+	 */
+	private static List<StoredLiteral> merge(List<StoredLiteral> first, List<StoredLiteral> second) {
+		List<StoredLiteral> merged = null;
+		if( (first == null) || first.isEmpty() ) {
+			merged = second;
+		}
+		else if(second.isEmpty()) {
+			merged = first;
+		}
+		else {
+			merged = new ArrayList<>(first.size() + second.size());
+			int i = 0, j = 0;
+			while( (i < first.size()) && (j < second.size()) ) {
+				if(first.get(i).getSequence() < second.get(j).getSequence()) {
+					merged.add(first.get(i++));
+				}
+				else {
+					merged.add(second.get(j++));
+				}
+			}
+			while(i < first.size()) {
+				merged.add(first.get(i++));
+			}
+			while(j < second.size()) {
+				merged.add(second.get(j++));
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Returns the literals stored in the bucket.
+	 * @return the list of stored literals.
+	 */
+	public List<StoredLiteral> getLiterals() {
+		return literals;
+	}
+
+	/**
+	 * Returns the number of literals stored in the bucket.
+	 * @return the number of stored literals.
+	 */
+	public int size() {
+		return literals.size();
+	}
+}
+
+/**
+ * Class representing the inference engine's knowledge base.<BR>
+ * A knowledge base may be an overlay over a parent knowledge base : the sentences stored in the overlay are visible only
+ * through the overlay and the parent is never modified, which lets a query add its own sentences without affecting 
+ * the shared knowledge base. The overlay is discarded simply by dropping the reference to it.
+ * @author pachpandenikhil
+ *
+ */
+class KnowledgeBase {
+
+	private KnowledgeBase parent;
+	private SymbolTable symbols;
+	private List<PredicateBucket> positiveBuckets;
+	private List<PredicateBucket> negativeBuckets;
+	private long overlayMask;
+	private KnowledgeBaseSnapshot snapshot;
+
+	public KnowledgeBase() {
+		this((KnowledgeBase)null);
+	}
+
+	private KnowledgeBase(KnowledgeBase parent) {
+		this.parent = parent;
+		symbols = new SymbolTable((parent != null) ? parent.symbols : null);
+		positiveBuckets = new ArrayList<>();
+		negativeBuckets = new ArrayList<>();
+		overlayMask = 0;
+		snapshot = null;
+	}
+
+	/**
+	 * Creates a knowledge base backed by a snapshot.<BR>
+	 * The buckets are decoded from the snapshot on first access, new facts are stored on top of them.
+	 * @param snapshot the opened snapshot.
+	 */
+	public KnowledgeBase(KnowledgeBaseSnapshot snapshot) {
+		this((KnowledgeBase)null);
+		this.snapshot = snapshot;
+		symbols = snapshot.getSymbols();
+	}
+	
+	/**
+	 * Creates an empty knowledge base sharing the symbols of this knowledge base, used as an index of the clauses compiled 
+	 * against them, see {@link #addClause(Clause)}.
+	 * @return the empty knowledge base.
+	 */
+	public KnowledgeBase createIndex() {
+		KnowledgeBase index = new KnowledgeBase((KnowledgeBase)null);
+		index.symbols = symbols;
+		return index;
+	}
+	
+	/**
+	 * Creates an overlay over the knowledge base.<BR>
+	 * The knowledge base must not be modified while the overlay is in use.
+	 * @return the overlay knowledge base.
+	 */
+	public KnowledgeBase createOverlay() {
+		return new KnowledgeBase(this);
+	}
+	
+	/**
+	 * Adds a fact to the knowledge base.<BR>The fact is indexed against the predicate and polarity of each of its literals.
+	 * @param fact the compiled fact to be added.
+	 */
+	private void addFact(Clause fact) {
+		if(fact != null) {
+			for(int literal = 0; literal < fact.size(); literal++) {
+				List<PredicateBucket> buckets = fact.isNegative(literal) ? negativeBuckets : positiveBuckets;
+				int predicate = fact.getPredicate(literal);
+				PredicateBucket bucket = getBucket(predicate, fact.isNegative(literal));
+				while(buckets.size() <= predicate) {
+					buckets.add(null);
+				}
+				if(bucket == null) {
+					bucket = new PredicateBucket();
+				}
+				buckets.set(predicate, bucket);
+				bucket.add(fact, literal);
+				overlayMask |= ResolutionTable.lookupBit(fact.getHeader(literal));
+			}
+		}
+	}
+	
+	/**
+	 * Returns the mask of the predicate buckets holding the sentences stored in this knowledge base(excluding the parent).
+	 * @return the overlay mask, see {@link ResolutionTable#lookupBit(int)}.
+	 */
+	public long getOverlayMask() {
+		return overlayMask;
+	}
+	
+	/**
+	 * Returns true if the clause is stored in this overlay rather than in the parent knowledge base.
+	 * @param clause the stored clause.
+	 * @return true if and only if this knowledge base is an overlay storing the clause.
+	 */
+	public boolean isOverlayClause(Clause clause) {
+		boolean isOverlayClause = false;
+		if( (parent != null) && (clause != null) && !clause.isEmpty() ) {
+			PredicateBucket bucket = getBucket(clause.getPredicate(0), clause.isNegative(0));
+			if(bucket != null) {
+				for(StoredLiteral storedLiteral : bucket.getLiterals()) {
+					if(storedLiteral.getClause() == clause) {
+						isOverlayClause = true;
+						break;
+					}
+				}
+			}
+		}
+		return isOverlayClause;
+	}
+	
+	/**
+	 * Stores a fact in the knowledge base.<BR>Each clause of the fact is compiled with its own variable slots, so no two clauses share a variable. 
+	 * @param fact the clauses of the fact in CNF, see {@link CNFConverter#convertToCNF(String, long)}.
+	 * @return true if and only if the fact was successfully added to the knowledge base.
+	 */
+	public boolean store(List<List<Node>> fact) {
+		return store(fact, null);
+	}
+	
+	/**
+	 * Stores a fact in the knowledge base, collecting its stored clauses.
+	 * @param fact the clauses of the fact in CNF, see {@link CNFConverter#convertToCNF(String, long)}.
+	 * @param storedClauses the list the compiled clauses are added to, may be null.
+	 * @return true if and only if the fact was successfully added to the knowledge base.
+	 */
+	public boolean store(List<List<Node>> fact, List<Clause> storedClauses) {
+		boolean retVal = false;
+		if(fact != null) {
+			for(List<Node> clause : fact) {
+				Clause compiledClause = compile(clause);
+				addFact(compiledClause);
+				if(storedClauses != null) {
+					storedClauses.add(compiledClause);
+				}
+			}
+			retVal = true;
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Compiles the disjunction of predicates to a clause, interning its predicates and constants.<BR>
+	 * The variables are numbered as slots 0, 1, ... of the clause in the order of first occurrence, so the clause is renamed 
+	 * apart from another by offsetting its variables, see {@link Bindings#unify(Clause, int, Clause, int, int)}.
+	 * @param literals the predicate nodes of the disjunction.<BR><B>For eg.</B> ~Parent[x,y], Ancestor[x,y].
+	 * @return the compiled clause.
+	 */
+	public Clause compile(List<Node> literals) {
+		Clause clause = null;
+		if(literals != null) {
+			IntList data = new IntList();
+			List<String> variables = new ArrayList<>();
+			for(Node predicate : literals) {
+				int predicateId = symbols.internPredicate(predicate.name);
+				List<String> args = predicate.arguments;
+				data.add(Clause.header(predicateId, predicate.negated));
+				data.add(args.size());
+				for(String arg : args) {
+					if(SymbolTable.isConstant(arg)) {
+						data.add(symbols.internConstant(arg));
+					}
+					else {
+						int slot = variables.indexOf(arg);
+						if(slot < 0) {
+							slot = variables.size();
+							variables.add(arg);
+						}
+						data.add(SymbolTable.variableTerm(slot));
+					}
+				}
+			}
+			clause = new Clause(data.toArray());
+		}
+		return clause;
+	}
+	
+	/**
+	 * Returns the symbol table of the knowledge base.
+	 * @return the symbol table.
+	 */
+	public SymbolTable getSymbols() {
+		return symbols;
+	}
+	
+	/**
+	 * Returns true if the knowledge base contains the predicate <CODE>predicate</CODE>.
+	 * @param predicate the predicate identifier.
+	 * @return true if and only if the knowledge base contains the predicate.
+	 */
+	public boolean predicateExists(int predicate) {
+		return (getSentenceCount(predicate, false) > 0) || (getSentenceCount(predicate, true) > 0);
+	}
+	
+	/**
+	 * Returns the bucket of all the facts/sentences stored in this knowledge base(excluding the parent) 
+	 * containing the predicate <CODE>predicate</CODE> with the given polarity.<BR>
+	 * Buckets not stored since the knowledge base was loaded are decoded from its snapshot.
+	 * @param predicate the predicate identifier.
+	 * @param negative true for the sentences containing the negated predicate.
+	 * @return the bucket of sentences or null if no such sentence exists.
+	 */
+	public PredicateBucket getBucket(int predicate, boolean negative) {
+		PredicateBucket bucket = null;
+		List<PredicateBucket> buckets = negative ? negativeBuckets : positiveBuckets;
+		if( (predicate >= 0) && (predicate < buckets.size()) ) {
+			bucket = buckets.get(predicate);
+		}
+		if( (bucket == null) && (snapshot != null) ) {
+			bucket = snapshot.getBucket(predicate, negative);
+		}
+		return bucket;
+	}
+	
+	/**
+	 * Returns the clauses stored in this knowledge base(excluding the parent), each clause once.
+	 * @return the list of stored clauses.
+	 */
+	public List<Clause> getClauses() {
+		List<Clause> clauses = new ArrayList<>();
+		for(int predicate = 0; predicate < symbols.getPredicateCount(); predicate++) {
+			for(int polarity = 0; polarity < 2; polarity++) {
+				PredicateBucket bucket = getBucket(predicate, polarity == 1);
+				if(bucket != null) {
+					for(StoredLiteral storedLiteral : bucket.getLiterals()) {
+						//a clause is collected from the bucket of its first literal only
+						if(storedLiteral.getLiteral() == 0) {
+							clauses.add(storedLiteral.getClause());
+						}
+					}
+				}
+			}
+		}
+		return clauses;
+	}
+	
+	/**
+	 * Returns the number of sentences containing the predicate <CODE>predicate</CODE> with the given polarity, 
+	 * including the ones of the parent.
+	 * @param predicate the predicate identifier.
+	 * @param negative true for the sentences containing the negated predicate.
+	 * @return the number of sentences.
+	 */
+	public int getSentenceCount(int predicate, boolean negative) {
+		int count = 0;
+		List<PredicateBucket> buckets = negative ? negativeBuckets : positiveBuckets;
+		if( (predicate >= 0) && (predicate < buckets.size()) && (buckets.get(predicate) != null) ) {
+			count = buckets.get(predicate).size();
+		}
+		else if(snapshot != null) {
+			count = snapshot.getSentenceCount(predicate, negative);
+		}
+		if(parent != null) {
+			count += parent.getSentenceCount(predicate, negative);
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the stored literals which are complementary to the goal literal and whose constants are compatible with it.<BR>
+	 * The literals of the parent are returned before the ones stored in the overlay.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return the list of candidate literals.
+	 */
+	public List<StoredLiteral> getCandidates(Clause goal, int literal) {
+		return getCandidates(goal, literal, !goal.isNegative(literal));
+	}
+	
+	/**
+	 * Returns the stored literals of the given polarity having the predicate of the goal literal and constants compatible with it.<BR>
+	 * The literals of the parent are returned before the ones stored in the overlay.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @param negative true for the negated literals, i.e the literals complementary to a positive goal literal.
+	 * @return the list of candidate literals.
+	 */
+	public List<StoredLiteral> getCandidates(Clause goal, int literal, boolean negative) {
+		List<StoredLiteral> candidates = Collections.emptyList();
+		PredicateBucket bucket = getBucket(goal.getPredicate(literal), negative);
+		if(bucket != null) {
+			candidates = bucket.getCandidates(goal, literal);
+		}
+		if(parent != null) {
+			List<StoredLiteral> parentCandidates = parent.getCandidates(goal, literal, negative);
+			if(candidates.isEmpty()) {
+				candidates = parentCandidates;
+			}
+			else if(!parentCandidates.isEmpty()) {
+				List<StoredLiteral> allCandidates = new ArrayList<>(parentCandidates.size() + candidates.size());
+				allCandidates.addAll(parentCandidates);
+				allCandidates.addAll(candidates);
+				candidates = allCandidates;
+			}
+		}
+		return candidates;
+	}
+	
+	/**
+	 * Returns an upper bound on the number of stored literals {@link #getCandidates(Clause, int)} would return, including 
+	 * the ones of the parent, see {@link PredicateBucket#countCandidates(Clause, int)}.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return the upper bound on the number of candidate literals.
+	 */
+	public int countCandidates(Clause goal, int literal) {
+		int count = 0;
+		PredicateBucket bucket = getBucket(goal.getPredicate(literal), !goal.isNegative(literal));
+		if(bucket != null) {
+			count = bucket.countCandidates(goal, literal);
+		}
+		if(parent != null) {
+			count += parent.countCandidates(goal, literal);
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns false if no literal of a non-unit clause, including the ones of the parent, can unify with the goal literal, 
+	 * see {@link PredicateBucket#mayMatchRule(Clause, int)}.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the goal literal.
+	 * @return false if the goal literal can only be resolved upon unit clauses, true if a non-unit clause may resolve it.
+	 */
+	public boolean mayMatchRule(Clause goal, int literal) {
+		PredicateBucket bucket = getBucket(goal.getPredicate(literal), !goal.isNegative(literal));
+		boolean mayMatch = (bucket != null) && bucket.mayMatchRule(goal, literal);
+		if( !mayMatch && (parent != null) ) {
+			mayMatch = parent.mayMatchRule(goal, literal);
+		}
+		return mayMatch;
+	}
+	
+	/**
+	 * Returns a ground unit fact complementary to the ground goal literal, looking up the parent first.
+	 * @param goal the clause containing the goal literal.
+	 * @param literal the index of the ground goal literal.
+	 * @return the literal of the unit fact, or null if no such fact exists.
+	 */
+	public StoredLiteral getGroundFact(Clause goal, int literal) {
+		StoredLiteral fact = null;
+		if(parent != null) {
+			fact = parent.getGroundFact(goal, literal);
+		}
+		if(fact == null) {
+			PredicateBucket bucket = getBucket(goal.getPredicate(literal), !goal.isNegative(literal));
+			if(bucket != null) {
+				fact = bucket.getGroundFact(goal, literal);
+			}
+		}
+		return fact;
+	}
+	
+	/**
+	 * Removes the fact from the knowledge base.<BR>The most recently stored variant of the fact is removed.
+	 * @param fact the predicate nodes of the clause to be removed.
+	 * @return true if and only if the fact is successfully removed.
+	 */
+	public boolean remove(List<Node> fact) {
+		return retract(fact) != null;
+	}
+	
+	/**
+	 * Removes the fact from the knowledge base.<BR>The most recently stored variant of the fact is removed.
+	 * @param fact the predicate nodes of the clause to be removed.
+	 * @return the removed clause, as it was stored, or null if no variant of the fact is stored.
+	 */
+	public Clause retract(List<Node> fact) {
+		Clause retractedClause = null;
+		if(fact != null) {
+			retractedClause = findVariant(compile(fact), Collections.emptySet());
+			if(retractedClause != null) {
+				removeFact(retractedClause);
+			}
+		}
+		return retractedClause;
+	}
+	
+	/**
+	 * Removes the clauses of a sentence from the knowledge base, either all of them or none.<BR>
+	 * Each clause removes the most recently stored variant of it which is not removed by a previous clause of the sentence.
+	 * @param clauses the predicate nodes of the clauses to be removed.
+	 * @return the removed clauses, as they were stored, or null if a clause has no stored variant, the knowledge base 
+	 * being left unchanged.
+	 */
+	public List<Clause> retractAll(List<List<Node>> clauses) {
+		List<Clause> retractedClauses = new ArrayList<>();
+		Set<Clause> found = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(List<Node> clause : clauses) {
+			Clause storedClause = findVariant(compile(clause), found);
+			if(storedClause == null) {
+				return null;
+			}
+			found.add(storedClause);
+			retractedClauses.add(storedClause);
+		}
+		for(Clause retractedClause : retractedClauses) {
+			removeFact(retractedClause);
+		}
+		return retractedClauses;
+	}
+	
+	/**
+	 * Returns the most recently stored variant of the clause.
+	 * @param clause the compiled clause.
+	 * @param excluded the stored clauses to be skipped.
+	 * @return the stored variant, or null if no other variant of the clause is stored.
+	 */
+	private Clause findVariant(Clause clause, Set<Clause> excluded) {
+		PredicateBucket bucket = getBucket(clause.getPredicate(0), clause.isNegative(0));
+		if(bucket != null) {
+			List<StoredLiteral> literals = bucket.getLiterals();
+			for(int idx = literals.size() - 1; idx >= 0; idx--) {
+				Clause storedClause = literals.get(idx).getClause();
+				if(!excluded.contains(storedClause) && storedClause.isVariant(clause)) {
+					return storedClause;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Stores a compiled clause in the knowledge base.<BR>The clause must be compiled against the symbols of this knowledge base.
+	 * @param clause the compiled clause.
+	 */
+	public void addClause(Clause clause) {
+		addFact(clause);
+	}
+	
+	/**
+	 * Removes a clause stored in this knowledge base(excluding the parent).
+	 * @param clause the stored clause, as returned by the buckets.
+	 */
+	public void removeClause(Clause clause) {
+		removeFact(clause);
+	}
+	
+	/**
+	 * Removes the fact from the buckets of all its literals.
+	 * @param fact the stored fact to be removed.
+	 */
+	private void removeFact(Clause fact) {
+		for(int literal = 0; literal < fact.size(); literal++) {
+			PredicateBucket bucket = getBucket(fact.getPredicate(literal), fact.isNegative(literal));
+			if(bucket != null) {
+				bucket.remove(fact);
+			}
+		}
+	}
+}
+
+/**
+ * Class representing a compiled knowledge base saved to a versioned binary file.<BR>
+ * The file holds the interned symbols, the clauses and the predicate buckets. It is memory-mapped when opened, the symbols 
+ * are decoded eagerly and each bucket is decoded, along with its clauses, on first access.<BR>
+ * Layout(big-endian) : magic, version, sentence sequence, the predicate and constant names,
+ * the clause positions followed by the clauses, then the position and size of each bucket followed by the (clause, literal) 
+ * pairs of the buckets.
+ * @author pachpandenikhil
+ *
+ */
+class KnowledgeBaseSnapshot {
+
+	public static final int MAGIC 		= 0x4B425346;
+	public static final int VERSION 	= 2;
+
+	private MappedByteBuffer buffer;
+	private SymbolTable symbols;
+	private long sentenceSequence;
+	private int clausePositions;
+	private Clause[] clauses;
+	private int bucketDirectory;
+	private int predicateCount;
+	private AtomicReferenceArray<PredicateBucket> buckets;
+
+	private KnowledgeBaseSnapshot(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if(buffer.getInt() != MAGIC) {
+			throw new IOException("Not a knowledge base snapshot");
+		}
+		int version = buffer.getInt();
+		if(version != VERSION) {
+			throw new IOException("Unsupported knowledge base snapshot version " + version);
+		}
+		sentenceSequence = buffer.getLong();
+		
+		symbols = new SymbolTable();
+		predicateCount = buffer.getInt();
+		for(int idx = 0; idx < predicateCount; idx++) {
+			symbols.internPredicate(readString());
+		}
+		int constantCount = buffer.getInt();
+		for(int idx = 0; idx < constantCount; idx++) {
+			symbols.internConstant(readString());
+		}
+		
+		clauses = new Clause[buffer.getInt()];
+		clausePositions = buffer.position();
+		bucketDirectory = buffer.getInt(clausePositions + 4 * clauses.length);
+		buckets = new AtomicReferenceArray<>(2 * predicateCount);
+	}
+
+	/**
+	 * Opens the snapshot file.
+	 * @param file the snapshot file.
+	 * @return the opened snapshot.
+	 * @throws IOException if the file cannot be read or is not a snapshot of the supported version.
+	 */
+	public static KnowledgeBaseSnapshot open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new KnowledgeBaseSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Saves the knowledge base(excluding its parent) to the snapshot file.
+	 * @param KB the knowledge base to be saved.
+	 * @param sentenceSequence the number of sentences told to the knowledge base.
+	 * @param file the snapshot file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void save(KnowledgeBase KB, long sentenceSequence, File file) throws IOException {
+		SymbolTable symbols = KB.getSymbols();
+		int predicateCount = symbols.getPredicateCount();
+		
+		//numbering the distinct clauses in the order of the buckets
+		Map<Clause, Integer> clauseIds = new IdentityHashMap<>();
+		List<Clause> clauses = new ArrayList<>();
+		for(int predicate = 0; predicate < predicateCount; predicate++) {
+			for(int polarity = 0; polarity < 2; polarity++) {
+				PredicateBucket bucket = KB.getBucket(predicate, polarity == 1);
+				if(bucket != null) {
+					for(StoredLiteral storedLiteral : bucket.getLiterals()) {
+						if(clauseIds.putIfAbsent(storedLiteral.getClause(), clauses.size()) == null) {
+							clauses.add(storedLiteral.getClause());
+						}
+					}
+				}
+			}
+		}
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(sentenceSequence);
+			out.writeInt(predicateCount);
+			for(int idx = 0; idx < predicateCount; idx++) {
+				writeString(out, symbols.getPredicateName(idx));
+			}
+			out.writeInt(symbols.getConstantCount());
+			for(int idx = 0; idx < symbols.getConstantCount(); idx++) {
+				writeString(out, symbols.getArgumentName(idx));
+			}
+			
+			//clause positions, followed by the position of the bucket directory and the clauses
+			List<int[]> clauseData = new ArrayList<>(clauses.size());
+			out.writeInt(clauses.size());
+			int position = out.size() + 4 * (clauses.size() + 1);
+			for(Clause clause : clauses) {
+				int[] data = clause.toArray();
+				clauseData.add(data);
+				out.writeInt(position);
+				position += 4 * (data.length + 1);
+			}
+			out.writeInt(position);
+			for(int[] data : clauseData) {
+				out.writeInt(data.length);
+				for(int value : data) {
+					out.writeInt(value);
+				}
+			}
+			
+			//bucket directory, followed by the buckets
+			position += 8 * 2 * predicateCount;
+			for(int predicate = 0; predicate < predicateCount; predicate++) {
+				for(int polarity = 0; polarity < 2; polarity++) {
+					PredicateBucket bucket = KB.getBucket(predicate, polarity == 1);
+					int size = (bucket != null) ? bucket.size() : 0;
+					out.writeInt((size > 0) ? position : -1);
+					out.writeInt(size);
+					position += 8 * size;
+				}
+			}
+			for(int predicate = 0; predicate < predicateCount; predicate++) {
+				for(int polarity = 0; polarity < 2; polarity++) {
+					PredicateBucket bucket = KB.getBucket(predicate, polarity == 1);
+					if(bucket != null) {
+						for(StoredLiteral storedLiteral : bucket.getLiterals()) {
+							out.writeInt(clauseIds.get(storedLiteral.getClause()));
+							out.writeInt(storedLiteral.getLiteral());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the symbol table decoded from the snapshot.
+	 * @return the symbol table.
+	 */
+	public SymbolTable getSymbols() {
+		return symbols;
+	}
+
+	/**
+	 * Returns the number of sentences told to the saved knowledge base.
+	 * @return the sentence sequence.
+	 */
+	public long getSentenceSequence() {
+		return sentenceSequence;
+	}
+
+	/**
+	 * Returns the bucket of the predicate with the given polarity, decoding it on first access.
+	 * @param predicate the predicate identifier.
+	 * @param negative true for the bucket of the negated predicate.
+	 * @return the bucket or null if the snapshot has no such bucket.
+	 */
+	public PredicateBucket getBucket(int predicate, boolean negative) {
+		PredicateBucket bucket = null;
+		if( (predicate >= 0) && (predicate < predicateCount) ) {
+			int index = 2 * predicate + (negative ? 1 : 0);
+			bucket = buckets.get(index);
+			if(bucket == null) {
+				bucket = decodeBucket(index);
+			}
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns the number of sentences in the bucket of the predicate with the given polarity, without decoding it.
+	 * @param predicate the predicate identifier.
+	 * @param negative true for the bucket of the negated predicate.
+	 * @return the number of sentences.
+	 */
+	public int getSentenceCount(int predicate, boolean negative) {
+		int count = 0;
+		if( (predicate >= 0) && (predicate < predicateCount) ) {
+			int index = 2 * predicate + (negative ? 1 : 0);
+			PredicateBucket bucket = buckets.get(index);
+			count = (bucket != null) ? bucket.size() : buffer.getInt(bucketDirectory + 8 * index + 4);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if the bucket of the predicate with the given polarity has already been decoded.
+	 * @param predicate the predicate identifier.
+	 * @param negative true for the bucket of the negated predicate.
+	 * @return true if and only if the bucket is decoded.
+	 */
+	public boolean isDecoded(int predicate, boolean negative) {
+		return (predicate >= 0) && (predicate < predicateCount) && (buckets.get(2 * predicate + (negative ? 1 : 0)) != null);
+	}
+
+	/**
+	 * Decodes the bucket and the clauses it refers to.
+	 * @param index the index of the bucket in the directory.
+	 * @return the decoded bucket or null if the bucket is empty.
+	 */
+	private synchronized PredicateBucket decodeBucket(int index) {
+		PredicateBucket bucket = buckets.get(index);
+		int position = buffer.getInt(bucketDirectory + 8 * index);
+		if( (bucket == null) && (position >= 0) ) {
+			bucket = new PredicateBucket();
+			int size = buffer.getInt(bucketDirectory + 8 * index + 4);
+			for(int idx = 0; idx < size; idx++) {
+				bucket.add(getClause(buffer.getInt(position)), buffer.getInt(position + 4));
+				position += 8;
+			}
+			buckets.set(index, bucket);
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns the clause, decoding it on first access.
+	 * @param id the clause number.
+	 * @return the clause.
+	 */
+	private Clause getClause(int id) {
+		Clause clause = clauses[id];
+		if(clause == null) {
+			int position = buffer.getInt(clausePositions + 4 * id);
+			int[] data = new int[buffer.getInt(position)];
+			for(int idx = 0; idx < data.length; idx++) {
+				data[idx] = buffer.getInt(position + 4 * (idx + 1));
+			}
+			clause = new Clause(data);
+			clauses[id] = clause;
+		}
+		return clause;
+	}
+
+	/**
+	 * Reads a length-prefixed UTF-8 string at the current position of the buffer.
+	 * @return the string.
+	 */
+	private String readString() {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a length-prefixed UTF-8 string.
+	 * @param out the output stream.
+	 * @param value the string to be written.
+	 * @throws IOException if the string cannot be written.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
+
+/**
+ * Class for converting FOL sentences to CNF form.
+ * @author pachpandenikhil
+ *
+ */
+class CNFConverter {
+
+	public static final String DEFINITION_PREFIX 	= "Def$";
+
+	private boolean definitional;
+
+
+	public CNFConverter() {
+		definitional = false;
+	}
+	
+	/**
+	 * Enables the definitional(Tseitin) transformation.<BR>
+	 * The conjunctions nested in disjunctions are then replaced by fresh definition predicates over their variables
+	 * instead of being distributed, so that the size of the CNF stays linear in the size of the sentence. 
+	 * The CNF is satisfiable if and only if the sentence is, which preserves the refutations.
+	 * @param definitional true to enable the definitional transformation.
+	 */
+	public void setDefinitional(boolean definitional) {
+		this.definitional = definitional;
+	}
+
+	/**
+	 * Converts the FOL sentence to CNF.<BR>
+	 * The conversion does not modify the converter, so sentences may be converted concurrently.
+	 * @param fact the FOL sentence
+	 * @param sentence the sequence number of the sentence, naming its definition predicates <B>For eg.</B> Def$3_0.
+	 * @return the clauses of the sentence, each clause being the list of its predicate nodes.
+	 */
+	public List<List<Node>> convertToCNF(String fact, long sentence) {
+		List<List<Node>> clauses = Collections.emptyList();
+		if(fact != null) {
+			clauses = convertToCNF(new SentenceParser().parse(fact), definitional ? (DEFINITION_PREFIX + sentence + "_") : null);
+		}
+		return clauses;
+	}
+	
+	/**
+	 * Converts the negation of the FOL sentence to CNF.<BR>The definitional transformation is never applied to the negation.
+	 * @param sentence the FOL sentence
+	 * @return the clauses of the negated sentence, each clause being the list of its predicate nodes.
+	 */
+	public List<List<Node>> convertNegationToCNF(String sentence) {
+		List<List<Node>> clauses = Collections.emptyList();
+		if(sentence != null) {
+			clauses = convertToCNF(new Node(NodeKind.NEGATION, null, new SentenceParser().parse(sentence)), null);
+		}
+		return clauses;
+	}
+	
+	/**
+	 * Converts the expression tree to CNF.
+	 * @param root the root node of the expression tree.
+	 * @param definitionPrefix the name prefix of the definition predicates, null to distribute the conjunctions instead.
+	 * @return the clauses of the sentence.
+	 */
+	private List<List<Node>> convertToCNF(Node root, String definitionPrefix) {
+		replaceImplications(root);
+		moveNegationInwards(root);
+		root = handleRootNodeNegation(root);
+		List<List<Node>> definitions = new ArrayList<>();
+		List<List<Node>> clauses = new ArrayList<>(toClauses(root, definitionPrefix, definitions));
+		clauses.addAll(definitions);
+		return clauses;
+	}
+	
+	/**
+	 * Returns the clauses of the expression tree in negation normal form.<BR>
+	 * Conjunctions concatenate the clauses of their operands, disjunctions combine every clause of the left operand with 
+	 * every clause of the right operand.
+	 * @param node the root node of the expression tree.
+	 * @param definitionPrefix the name prefix of the definition predicates, null to distribute the conjunctions instead.
+	 * @param definitions the list the clauses defining the definition predicates are added to.
+	 * @return the clauses.
+	 */
+	private List<List<Node>> toClauses(Node node, String definitionPrefix, List<List<Node>> definitions) {
+		List<List<Node>> clauses = null;
+		if(node.isAndOperator()) {
+			clauses = new ArrayList<>(toClauses(node.left, definitionPrefix, definitions));
+			clauses.addAll(toClauses(node.right, definitionPrefix, definitions));
+		}
+		else if(node.isOrOperator()) {
+			List<List<Node>> leftClauses = toClauses(node.left, definitionPrefix, definitions);
+			List<List<Node>> rightClauses = toClauses(node.right, definitionPrefix, definitions);
+			if(definitionPrefix != null) {
+				leftClauses = define(node.left, leftClauses, definitionPrefix, definitions);
+				rightClauses = define(node.right, rightClauses, definitionPrefix, definitions);
+			}
+			clauses = new ArrayList<>(leftClauses.size() * rightClauses.size());
+			for(List<Node> leftClause : leftClauses) {
+				for(List<Node> rightClause : rightClauses) {
+					List<Node> clause = new ArrayList<>(leftClause.size() + rightClause.size());
+					clause.addAll(leftClause);
+					clause.addAll(rightClause);
+					clauses.add(clause);
+				}
+			}
+		}
+		else {
+			clauses = Collections.singletonList(Collections.singletonList(node));
+		}
+		return clauses;
+	}
+	
+	/**
+	 * Replaces the clauses of a disjunct by a fresh definition predicate when they are more than one.<BR>
+	 * The definition predicate takes the variables of the disjunct as arguments and the clause ~Def$n(x)|C is added
+	 * for each clause C of the disjunct. Since the disjunct occurs positively, the converse implication is not required.
+	 * @param node the root node of the disjunct.
+	 * @param clauses the clauses of the disjunct.
+	 * @param definitionPrefix the name prefix of the definition predicates of the sentence.
+	 * @param definitions the list the defining clauses are added to.
+	 * @return the single clause made of the definition predicate, or the clauses of the disjunct if there is only one.
+	 */
+	private List<List<Node>> define(Node node, List<List<Node>> clauses, String definitionPrefix, List<List<Node>> definitions) {
+		List<List<Node>> definedClauses = clauses;
+		if(clauses.size() > 1) {
+			List<String> variables = new ArrayList<>();
+			collectVariables(node, variables);
+			//the defining clauses only grow, so their count names the definition uniquely within the sentence
+			String name = definitionPrefix + definitions.size();
+			
+			Node negatedDefinition = new Node(name, variables);
+			negatedDefinition.negated = true;
+			for(List<Node> clause : clauses) {
+				List<Node> definition = new ArrayList<>(clause.size() + 1);
+				definition.add(negatedDefinition);
+				definition.addAll(clause);
+				definitions.add(definition);
+			}
+			definedClauses = Collections.singletonList(Collections.singletonList(new Node(name, variables)));
+		}
+		return definedClauses;
+	}
+	
+	/**
+	 * Collects the variables of the expression tree in the order of their first occurrence.
+	 * @param node the root node of the expression tree.
+	 * @param variables the list the variables are added to.
+	 */
+	private void collectVariables(Node node, List<String> variables) {
+		if(node != null) {
+			if(node.isPredicate()) {
+				for(String argument : node.arguments) {
+					if(!SymbolTable.isConstant(argument) && !variables.contains(argument)) {
+						variables.add(argument);
+					}
+				}
+			}
+			collectVariables(node.left, variables);
+			collectVariables(node.right, variables);
+		}
+	}
+	
+	/**
+	 * Moves negation inwards the expression.
+	 * @param node the root node of the expression tree.
+	 */
+	private void moveNegationInwards(Node node) {
+		if(node != null) {
+			moveNegationInwards(node.left);
+			moveNegationInwards(node.right);
+			Node leftNode = node.left;
+			Node rightNode = node.right;
+
+			if( (leftNode != null) && (leftNode.isNegateOperator()) ) {
+				negateTree(leftNode.right);
+				node.left = leftNode.right;
+			}
+
+			if( (rightNode != null) && (rightNode.isNegateOperator()) ) {
+				negateTree(rightNode.right);
+				node.right = rightNode.right;
+			}
+		}
+	}
+	
+	/**
+	 * Handles special scenario where the root node is a negation operator.
+	 * @param root the root node of the expression tree.
+	 * @return the root node of the negated subtree.
+	 */
+	private Node handleRootNodeNegation(Node root) {
+		Node updatedRoot = root;
+		if(root != null) {
+			if(root.isNegateOperator()) {
+				negateTree(root.right);
+				updatedRoot = root.right;
+			}
+		}
+		return updatedRoot;
+	}
+
+	/**
+	 * Negates the operator and predicate nodes of the expression tree rooted at <CODE>node</CODE>.
+	 * @param node the root node of the expression tree.
+	 */
+	private void negateTree(Node node) {
+		if(node != null) {
+
+			//negating the current node first
+			switch (node.kind) {
+
+			case PREDICATE	:
+				node.negated = !node.negated;
+				break;
+
+			case AND		:
+				node.kind = NodeKind.OR;
+				break;
+
+			case OR			:
+				node.kind = NodeKind.AND;
+				break;
+
+			default			:
+				break;
+			}
+
+			negateTree(node.left);
+			negateTree(node.right);
+		}
+	}
+
+	/**
+	 * Replaces implication operators in the expression tree with the corresponding logic sentence.
+	 * @param node the root node of the expression tree.
+	 */
+	private void replaceImplications(Node node) {
+		if(node != null) {
+			replaceImplications(node.left);
+			replaceImplications(node.right); 
+			if(node.isImpliesOperator()) {
+				node.kind = NodeKind.OR;
+				Node negationNode = new Node(NodeKind.NEGATION);
+				negationNode.right = node.left;
+				node.left = negationNode;
+			}
+		}
+	}
+}
+
+/**
+ * Class representing the set of goals visited on the current resolution path.<BR>
+ * Goals are keyed by their canonical form so that goals equal up to the renaming of variables are treated as the same goal.
+ * @author pachpandenikhil
+ *
+ */
+class VisitedGoals {
+
+	private Map<Clause, Integer> goals;
+
+	public VisitedGoals() {
+		goals = new HashMap<>();
+	}
+
+	/**
+	 * Creates a copy of the visited goals, used by a branch of the resolution explored in parallel.
+	 * @param visitedGoals the visited goals to be copied.
+	 */
+	public VisitedGoals(VisitedGoals visitedGoals) {
+		goals = new HashMap<>(visitedGoals.goals);
+	}
+
+	/**
+	 * Marks the goal as visited.
+	 * @param fingerprint the canonical form of the goal.
+	 * @param depth the depth of the goal in the proof tree.
+	 * @return true if and only if the goal was not visited already.
+	 */
+	public boolean push(Clause fingerprint, int depth) {
+		return goals.putIfAbsent(fingerprint, depth) == null;
+	}
+
+	/**
+	 * Removes the goal from the visited goals when the resolution backtracks over it.
+	 * @param fingerprint the canonical form of the goal.
+	 */
+	public void pop(Clause fingerprint) {
+		goals.remove(fingerprint);
+	}
+
+	/**
+	 * Returns true if the goal has already been visited.
+	 * @param fingerprint the canonical form of the goal.
+	 * @return true if and only if the goal has already been visited.
+	 */
+	public boolean contains(Clause fingerprint) {
+		return goals.containsKey(fingerprint);
+	}
+
+	/**
+	 * Returns the depth at which the goal was visited.
+	 * @param fingerprint the canonical form of the goal.
+	 * @return the depth of the goal in the proof tree or -1 if the goal has not been visited.
+	 */
+	public int getDepth(Clause fingerprint) {
+		Integer depth = goals.get(fingerprint);
+		return (depth != null) ? depth : -1;
+	}
+
+	/**
+	 * Returns the number of visited goals.
+	 * @return the number of visited goals.
+	 */
+	public int size() {
+		return goals.size();
+	}
+}
+
+/**
+ * Class representing the outcome of a completely resolved goal recorded in the {@link ResolutionTable}.
+ * @author pachpandenikhil
+ *
+ */
+class TableEntry {
+
+	private final boolean refutable;
+	private final long lookupMask;
+	private final long queryId;
+	private final long version;
+
+	public TableEntry(boolean refutable, long lookupMask, long queryId, long version) {
+		this.refutable = refutable;
+		this.lookupMask = lookupMask;
+		this.queryId = queryId;
+		this.version = version;
+	}
+
+	/**
+	 * Returns true if a contradiction was derived from the goal.
+	 * @return true if and only if the goal is refutable.
+	 */
+	public boolean isRefutable() {
+		return refutable;
+	}
+
+	/**
+	 * Returns the mask of the predicate buckets looked up while resolving the goal.
+	 * @return the lookup mask.
+	 */
+	public long getLookupMask() {
+		return lookupMask;
+	}
+
+	/**
+	 * Returns the knowledge base version the outcome was derived from.
+	 * @return the knowledge base version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns true if the outcome holds for the query.<BR>
+	 * A refutation only uses the sentences of the knowledge base and holds for every query. A failure holds for the query 
+	 * that derived it, and for any other query whose own sentences were never looked up while resolving the goal.
+	 * @param queryId the identifier of the query.
+	 * @param overlayMask the mask of the predicate buckets holding the sentences of the query.
+	 * @return true if and only if the outcome holds for the query.
+	 */
+	public boolean isVisibleTo(long queryId, long overlayMask) {
+		return refutable || (this.queryId == queryId) || ((lookupMask & overlayMask) == 0);
+	}
+}
+
+/**
+ * Class representing the table of goals resolved completely, shared across queries(tabled resolution).<BR>
+ * Goals are keyed by their canonical form. The table holds at most <CODE>capacity</CODE> entries and evicts the least
+ * recently used entries beyond it. Since telling new facts can only turn failures into refutations, a change of the
+ * knowledge base only invalidates the recorded failures.
+ * @author pachpandenikhil
+ *
+ */
+class ResolutionTable {
+
+	private Map<Clause, TableEntry> entries;
+	private long version;
+
+	public ResolutionTable(final int capacity) {
+		entries = new LinkedHashMap<Clause, TableEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Clause, TableEntry> eldest) {
+				return size() > capacity;
+			}
+		};
+		version = 0;
+	}
+
+	/**
+	 * Returns the bit of the lookup mask representing the predicate bucket with the given literal header.
+	 * @param header the literal header of the bucket.
+	 * @return the lookup mask bit.
+	 */
+	public static long lookupBit(int header) {
+		return 1L << (header & 63);
+	}
+
+	/**
+	 * Returns the recorded outcome of the goal.
+	 * @param fingerprint the canonical form of the goal.
+	 * @return the table entry or null if no valid outcome is recorded.
+	 */
+	public synchronized TableEntry lookup(Clause fingerprint) {
+		TableEntry entry = entries.get(fingerprint);
+		if( (entry != null) && !entry.isRefutable() && (entry.getVersion() != version) ) {
+			entries.remove(fingerprint);
+			entry = null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Records that a contradiction was derived from the goal using the sentences of the knowledge base only.
+	 * @param fingerprint the canonical form of the goal.
+	 */
+	public synchronized void storeRefutable(Clause fingerprint) {
+		entries.put(fingerprint, new TableEntry(true, 0, -1, version));
+	}
+
+	/**
+	 * Records that no contradiction can be derived from the goal.
+	 * @param fingerprint the canonical form of the goal.
+	 * @param lookupMask the mask of the predicate buckets looked up while resolving the goal.
+	 * @param queryId the identifier of the query which resolved the goal.
+	 */
+	public synchronized void storeNotRefutable(Clause fingerprint, long lookupMask, long queryId) {
+		entries.put(fingerprint, new TableEntry(false, lookupMask, queryId, version));
+	}
+
+	/**
+	 * Invalidates the recorded failures after new sentences are added to the knowledge base.
+	 */
+	public synchronized void invalidate() {
+		version++;
+	}
+
+	/**
+	 * Removes all the recorded outcomes, used when the knowledge base is replaced.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		version++;
+	}
+
+	/**
+	 * Returns the number of recorded outcomes.
+	 * @return the number of table entries.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+}
+
+/**
+ * Class representing the variable bindings of a resolution step.<BR>
+ * Every binding is recorded on an array-backed trail so that the bindings made after a mark can be undone on backtrack
+ * without allocating any substitution map.
+ * @author pachpandenikhil
+ *
+ */
+class Bindings {
+
+	private static final int UNBOUND = Integer.MIN_VALUE;
+	private int[] values;
+	private IntList trail;
+
+	public Bindings() {
+		values = new int[64];
+		Arrays.fill(values, UNBOUND);
+		trail = new IntList(64);
+	}
+
+	/**
+	 * Returns the value the term is bound to, following chains of bound variables.
+	 * @param term the term to be dereferenced.
+	 * @return the constant or unbound variable the term is bound to.
+	 */
+	public int dereference(int term) {
+		while(SymbolTable.isVariable(term)) {
+			int id = SymbolTable.variableId(term);
+			if( (id >= values.length) || (values[id] == UNBOUND) ) {
+				break;
+			}
+			term = values[id];
+		}
+		return term;
+	}
+
+	/**
+	 * Binds the unbound variable to the term and records the binding on the trail.
+	 * @param variable the unbound variable term.
+	 * @param term the value of the variable.
+	 */
+	private void bind(int variable, int term) {
+		int id = SymbolTable.variableId(variable);
+		if(id >= values.length) {
+			int oldLength = values.length;
+			values = Arrays.copyOf(values, Math.max(oldLength << 1, id + 1));
+			Arrays.fill(values, oldLength, values.length, UNBOUND);
+		}
+		values[id] = term;
+		trail.add(id);
+	}
+
+	/**
+	 * Returns the current position of the trail.
+	 * @return the trail mark to be passed to {@link #undo(int)}.
+	 */
+	public int mark() {
+		return trail.size();
+	}
+
+	/**
+	 * Undoes all the bindings recorded after the mark.
+	 * @param mark the trail mark.
+	 */
+	public void undo(int mark) {
+		for(int idx = trail.size() - 1; idx >= mark; idx--) {
+			values[trail.get(idx)] = UNBOUND;
+		}
+		trail.truncate(mark);
+	}
+
+	/**
+	 * Unifies the arguments of the two literals, recording the bindings on the trail.<BR>
+	 * On failure the bindings made so far are left on the trail and are to be undone by the caller.
+	 * @param query the first clause.
+	 * @param queryLiteral the index of the literal of the first clause.
+	 * @param unifier the second clause.
+	 * @param unifierLiteral the index of the literal of the second clause.
+	 * @return true if and only if the literals are unifiable.
+	 */
+	public boolean unify(Clause query, int queryLiteral, Clause unifier, int unifierLiteral) {
+		return unify(query, queryLiteral, unifier, unifierLiteral, 0);
+	}
+
+	/**
+	 * Unifies the arguments of the two literals with the variables of the second clause renamed by the offset, 
+	 * recording the bindings on the trail.<BR>
+	 * Renaming by an offset of at least the variable bound of the first clause standardizes the second clause apart 
+	 * without copying it, see {@link Clause#getVariableBound()}.
+	 * On failure the bindings made so far are left on the trail and are to be undone by the caller.
+	 * @param query the first clause.
+	 * @param queryLiteral the index of the literal of the first clause.
+	 * @param unifier the second clause.
+	 * @param unifierLiteral the index of the literal of the second clause.
+	 * @param variableOffset the offset added to the variable identifiers of the second clause.
+	 * @return true if and only if the literals are unifiable.
+	 */
+	public boolean unify(Clause query, int queryLiteral, Clause unifier, int unifierLiteral, int variableOffset) {
+		boolean isUnified = false;
+		int arity = query.getArity(queryLiteral);
+		if(arity == unifier.getArity(unifierLiteral)) {
+			isUnified = true;
+			for(int idx = 0; idx < arity; idx++) {
+				int queryArg = dereference(query.getArgument(queryLiteral, idx));
+				int unifierArg = dereference(SymbolTable.renameVariable(unifier.getArgument(unifierLiteral, idx), variableOffset));
+				if(queryArg != unifierArg) {
+					if(SymbolTable.isVariable(unifierArg)) {
+						bind(unifierArg, queryArg);
+					}
+					else if(SymbolTable.isVariable(queryArg)) {
+						bind(queryArg, unifierArg);
+					}
+					else {
+						isUnified = false;
+						break;
+					}
+				}
+			}
+		}
+		return isUnified;
+	}
+}
+
+/**
+ * Enumeration of the answers to a query.<BR>UNKNOWN is the answer to a query which ran out of its budget before being proved or disproved.
+ * @author pachpandenikhil
+ *
+ */
+enum Answer {
+	TRUE,
+	FALSE,
+	UNKNOWN
+}
+
+/**
+ * Enumeration of the inference engines answering the queries.<BR>
+ * MATERIALIZATION answers the queries against the ground facts derived bottom-up from a Horn knowledge base, 
+ * and falls back to RESOLUTION for the knowledge bases and queries it does not support. SATURATION saturates the negated 
+ * query against the knowledge base with a given-clause loop, which is complete for non-Horn knowledge bases, see {@link Saturation}.
+ * @author pachpandenikhil
+ *
+ */
+enum Engine {
+	RESOLUTION,
+	MATERIALIZATION,
+	SATURATION
+}
+
+/**
+ * Enumeration of the strategies selecting the literal of a goal to be resolved upon.<BR>
+ * FIRST resolves upon the literals in the order they were stored. MOST_INSTANTIATED selects the literal with the most 
+ * constant arguments, FEWEST_CANDIDATES the literal complementary to the fewest stored literals, according to the 
+ * predicate indexes, and NEGATIVE_FIRST the first negative literal. FEWEST_CANDIDATES prefers the literals which only 
+ * unit clauses can resolve, then breaks ties toward the literal with the most constant arguments. Other ties are broken 
+ * by the order of the literals.
+ * @author pachpandenikhil
+ *
+ */
+enum LiteralSelection {
+	FIRST,
+	MOST_INSTANTIATED,
+	FEWEST_CANDIDATES,
+	NEGATIVE_FIRST
+}
+
+/**
+ * Enumeration of the strategies searching the resolvents of a query.<BR>
+ * DEPTH_FIRST tries the unifiers of each goal in order and backtracks, with a loop check against the goals of the current 
+ * resolution path. BEST_FIRST keeps the open resolvents in a priority queue ordered by their cost, see {@link ClauseCost}, 
+ * and never expands two variants of the same goal.
+ * @author pachpandenikhil
+ *
+ */
+enum SearchStrategy {
+	DEPTH_FIRST,
+	BEST_FIRST
+}
+
+/**
+ * Enumeration of the costs ordering the open resolvents of the best-first search, the cheapest resolvent being expanded first.<BR>
+ * LENGTH is the number of literals of the resolvent, DEPTH_PLUS_LENGTH adds the depth of the resolvent in the proof tree, 
+ * and SUCCESS_RATE adds to the depth the expected number of expansions refuting each literal, learned across the queries 
+ * from how often resolving upon a literal of the same predicate and polarity led to a refutation.
+ * Ties are broken in the order the resolvents were generated.
+ * @author pachpandenikhil
+ *
+ */
+enum ClauseCost {
+	LENGTH,
+	DEPTH_PLUS_LENGTH,
+	SUCCESS_RATE
+}
+
+/**
+ * Class representing the resource budget of a query.<BR>
+ * The budget limits the number of resolution steps, the wall-clock time, the depth of the proof tree and the number 
+ * of goals on the current resolution path. A limit of 0 means unlimited. Running out of steps, time or visited goals 
+ * exhausts the budget, which cooperatively stops the resolution; reaching the maximum depth only cuts the branch off.
+ * Either way the query is no longer complete, and its failure is reported as {@link Answer#UNKNOWN}.
+ * @author pachpandenikhil
+ *
+ */
+class QueryBudget {
+
+	//the clock is read once every CLOCK_INTERVAL steps
+	private static final long CLOCK_INTERVAL_MASK 	= 255;
+
+	private final long maxSteps;
+	private final long timeoutMillis;
+	private final int maxDepth;
+	private final int maxVisited;
+	private final long deadline;
+	private final AtomicLong steps;
+	private volatile boolean exhausted;
+	private volatile boolean complete;
+
+	/**
+	 * Creates the limits of the budget.
+	 * @param maxSteps the maximum number of resolution steps.
+	 * @param timeoutMillis the maximum wall-clock time in milliseconds.
+	 * @param maxDepth the maximum depth of the proof tree.
+	 * @param maxVisited the maximum number of goals on the resolution path.
+	 */
+	public QueryBudget(long maxSteps, long timeoutMillis, int maxDepth, int maxVisited) {
+		this.maxSteps = maxSteps;
+		this.timeoutMillis = timeoutMillis;
+		this.maxDepth = maxDepth;
+		this.maxVisited = maxVisited;
+		deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		steps = new AtomicLong();
+		exhausted = false;
+		complete = true;
+	}
+
+	/**
+	 * Starts a new budget of a query, with the same limits as <CODE>limits</CODE>. The deadline counts from now.
+	 * @param limits the budget whose limits are to be used.
+	 */
+	public QueryBudget(QueryBudget limits) {
+		this(limits.maxSteps, limits.timeoutMillis, limits.maxDepth, limits.maxVisited);
+	}
+
+	/**
+	 * Returns a budget without any limit.
+	 * @return the unlimited budget.
+	 */
+	public static QueryBudget unlimited() {
+		return new QueryBudget(0, 0, 0, 0);
+	}
+
+	/**
+	 * Accounts for a resolution step on a goal.
+	 * @param depth the depth of the goal in the proof tree.
+	 * @param visited the number of goals on the resolution path.
+	 * @return true if the goal may be resolved, false if the budget is exhausted or the goal is too deep.
+	 */
+	public boolean step(int depth, int visited) {
+		long count = steps.incrementAndGet();
+		if( ((maxSteps > 0) && (count > maxSteps)) || ((maxVisited > 0) && (visited >= maxVisited)) ) {
+			exhaust();
+		}
+		else if( (timeoutMillis > 0) && ((count & CLOCK_INTERVAL_MASK) == 0) && (System.nanoTime() - deadline > 0) ) {
+			exhaust();
+		}
+		
+		boolean canResolve = !exhausted;
+		if(canResolve && (maxDepth > 0) && (depth > maxDepth)) {
+			complete = false;
+			canResolve = false;
+		}
+		return canResolve;
+	}
+
+	/**
+	 * Exhausts the budget, stopping the resolution of the query.
+	 */
+	public void exhaust() {
+		exhausted = true;
+		complete = false;
+	}
+
+	/**
+	 * Returns true if the budget is exhausted.
+	 * @return true if and only if the resolution of the query is to be stopped.
+	 */
+	public boolean isExhausted() {
+		return exhausted;
+	}
+
+	/**
+	 * Returns true if no part of the search space was left unexplored because of the budget.
+	 * @return true if and only if a failure to refute the query is conclusive.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Returns the number of resolution steps taken so far.
+	 * @return the number of steps.
+	 */
+	public long getSteps() {
+		return steps.get();
+	}
+}
+
+/**
+ * Class representing the state of a single query : the overlay of the knowledge base holding the negated query,
+ * the goals visited on the resolution path and the unification bindings.<BR>
+ * Every query gets its own context, so that concurrent queries never share any mutable state.
+ * @author pachpandenikhil
+ *
+ */
+class QueryContext {
+
+	private KnowledgeBase knowledgeBase;
+	private VisitedGoals visitedGoals;
+	private Bindings bindings;
+	private IntList resolventBuffer;
+	private AtomicBoolean refuted;
+	private long queryId;
+	private int dependency;
+	private long lookupMask;
+	private boolean overlayProof;
+	private QueryBudget budget;
+	private int depthBound;
+	private boolean cutOff;
+
+	public QueryContext(KnowledgeBase knowledgeBase, long queryId) {
+		this(knowledgeBase, queryId, QueryBudget.unlimited());
+	}
+
+	public QueryContext(KnowledgeBase knowledgeBase, long queryId, QueryBudget budget) {
+		this(knowledgeBase, queryId, new VisitedGoals(), new AtomicBoolean(false), budget);
+	}
+
+	private QueryContext(KnowledgeBase knowledgeBase, long queryId, VisitedGoals visitedGoals, AtomicBoolean refuted, QueryBudget budget) {
+		this.knowledgeBase = knowledgeBase;
+		this.queryId = queryId;
+		this.visitedGoals = visitedGoals;
+		this.refuted = refuted;
+		this.budget = budget;
+		depthBound = Integer.MAX_VALUE;
+		cutOff = false;
+		bindings = new Bindings();
+		resolventBuffer = new IntList();
+		dependency = Integer.MAX_VALUE;
+		lookupMask = 0;
+		overlayProof = false;
+	}
+
+	/**
+	 * Creates the context of a branch of the resolution explored in parallel.<BR>
+	 * The branch gets its own copy of the visited goals and its own bindings, and shares the refutation flag and the budget of the query.
+	 * @return the context of the branch.
+	 */
+	public QueryContext fork() {
+		QueryContext branch = new QueryContext(knowledgeBase, queryId, new VisitedGoals(visitedGoals), refuted, budget);
+		branch.depthBound = depthBound;
+		return branch;
+	}
+
+	/**
+	 * Returns the maximum depth of the proof tree searched, used by the iterative deepening.
+	 * @return the depth bound, {@link Integer#MAX_VALUE} if the search is not bounded.
+	 */
+	public int getDepthBound() {
+		return depthBound;
+	}
+
+	/**
+	 * Sets the maximum depth of the proof tree searched.
+	 * @param depthBound the depth bound.
+	 */
+	public void setDepthBound(int depthBound) {
+		this.depthBound = depthBound;
+	}
+
+	/**
+	 * Records that a goal deeper than the depth bound was cut off.
+	 */
+	public void setCutOff() {
+		cutOff = true;
+	}
+
+	/**
+	 * Returns true if a goal deeper than the depth bound was cut off.
+	 * @return true if and only if the search was cut off by the depth bound.
+	 */
+	public boolean isCutOff() {
+		return cutOff;
+	}
+
+	/**
+	 * Returns the resource budget of the query.
+	 * @return the budget.
+	 */
+	public QueryBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the identifier of the query.
+	 * @return the query identifier.
+	 */
+	public long getQueryId() {
+		return queryId;
+	}
+
+	/**
+	 * Returns the shallowest depth of the visited goals the loop check pruned against, within the current goal.
+	 * @return the dependency depth, {@link Integer#MAX_VALUE} if no goal was pruned.
+	 */
+	public int getDependency() {
+		return dependency;
+	}
+
+	/**
+	 * Records that the loop check pruned against a visited goal.
+	 * @param depth the depth of the visited goal.
+	 */
+	public void addDependency(int depth) {
+		dependency = Math.min(dependency, depth);
+	}
+
+	/**
+	 * Returns the mask of the predicate buckets looked up within the current goal.
+	 * @return the lookup mask, see {@link ResolutionTable#lookupBit(int)}.
+	 */
+	public long getLookupMask() {
+		return lookupMask;
+	}
+
+	/**
+	 * Records the predicate buckets looked up within the current goal.
+	 * @param mask the lookup mask.
+	 */
+	public void addLookupMask(long mask) {
+		lookupMask |= mask;
+	}
+
+	/**
+	 * Starts tracking the dependencies of a new goal.
+	 */
+	public void resetDependencies() {
+		dependency = Integer.MAX_VALUE;
+		lookupMask = 0;
+	}
+
+	/**
+	 * Merges the dependencies of a completed branch into the dependencies of the current goal.
+	 * @param branch the context of the branch.
+	 */
+	public void mergeDependencies(QueryContext branch) {
+		addDependency(branch.dependency);
+		addLookupMask(branch.lookupMask);
+		overlayProof |= branch.overlayProof;
+		cutOff |= branch.cutOff;
+	}
+
+	/**
+	 * Returns true if the contradiction derived so far uses a sentence of the query overlay.
+	 * @return true if and only if the proof uses the query overlay.
+	 */
+	public boolean isOverlayProof() {
+		return overlayProof;
+	}
+
+	/**
+	 * Records that the contradiction derived uses a sentence of the query overlay.
+	 */
+	public void setOverlayProof() {
+		overlayProof = true;
+	}
+
+	/**
+	 * Records that a refutation of the query was found, cancelling the branches still being explored.
+	 */
+	public void setRefuted() {
+		refuted.set(true);
+	}
+
+	/**
+	 * Returns true if a refutation of the query was found by any branch.
+	 * @return true if and only if the query was refuted.
+	 */
+	public boolean isRefuted() {
+		return refuted.get();
+	}
+
+	/**
+	 * Returns the knowledge base overlay of the query.
+	 * @return the knowledge base overlay.
+	 */
+	public KnowledgeBase getKnowledgeBase() {
+		return knowledgeBase;
+	}
+
+	/**
+	 * Returns the goals visited on the current resolution path.
+	 * @return the visited goals.
+	 */
+	public VisitedGoals getVisitedGoals() {
+		return visitedGoals;
+	}
+
+	/**
+	 * Returns the unification bindings.
+	 * @return the bindings.
+	 */
+	public Bindings getBindings() {
+		return bindings;
+	}
+
+	/**
+	 * Returns the reusable buffer in which resolvents are built.
+	 * @return the resolvent buffer.
+	 */
+	public IntList getResolventBuffer() {
+		return resolventBuffer;
+	}
+}
+
+/**
+ * Class representing a choice point of the resolution : a goal on the resolution path and the position of the next 
+ * unifier to be tried for it.<BR>
+ * The unifiers are the candidate list of the knowledge base, which is shared rather than copied.
+ * @author pachpandenikhil
+ *
+ */
+class ChoicePoint {
+
+	private final Clause goal;
+	private final Clause fingerprint;
+	private final int depth;
+	private final int outerDependency;
+	private final long outerLookupMask;
+	private List<StoredLiteral> unifiers;
+	private int next;
+
+	/**
+	 * Creates the choice point of the goal.
+	 * @param goal the goal as a clause.
+	 * @param fingerprint the canonical form of the goal.
+	 * @param depth the depth of the goal in the proof tree.
+	 * @param outerDependency the dependency depth of the enclosing goal, see {@link QueryContext#getDependency()}.
+	 * @param outerLookupMask the lookup mask of the enclosing goal, see {@link QueryContext#getLookupMask()}.
+	 */
+	public ChoicePoint(Clause goal, Clause fingerprint, int depth, int outerDependency, long outerLookupMask) {
+		this.goal = goal;
+		this.fingerprint = fingerprint;
+		this.depth = depth;
+		this.outerDependency = outerDependency;
+		this.outerLookupMask = outerLookupMask;
+		unifiers = Collections.emptyList();
+		next = 0;
+	}
+
+	/**
+	 * Sets the unifiers to be tried for the goal.
+	 * @param unifiers the candidate literals.
+	 */
+	public void setUnifiers(List<StoredLiteral> unifiers) {
+		this.unifiers = unifiers;
+	}
+
+	/**
+	 * Returns true if some unifiers are left to be tried.
+	 * @return true if and only if some unifiers are left.
+	 */
+	public boolean hasNextUnifier() {
+		return next < unifiers.size();
+	}
+
+	/**
+	 * Returns the next unifier to be tried and moves past it.
+	 * @return the next unifier.
+	 */
+	public StoredLiteral nextUnifier() {
+		return unifiers.get(next++);
+	}
+
+	/**
+	 * Returns the unifier tried last.
+	 * @return the current unifier.
+	 */
+	public StoredLiteral getUnifier() {
+		return unifiers.get(next - 1);
+	}
+
+	/**
+	 * Returns the goal.
+	 * @return the goal as a clause.
+	 */
+	public Clause getGoal() {
+		return goal;
+	}
+
+	/**
+	 * Returns the canonical form of the goal.
+	 * @return the fingerprint of the goal.
+	 */
+	public Clause getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the depth of the goal in the proof tree.
+	 * @return the depth.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Returns the dependency depth of the enclosing goal, restored once the goal is resolved.
+	 * @return the outer dependency depth.
+	 */
+	public int getOuterDependency() {
+		return outerDependency;
+	}
+
+	/**
+	 * Returns the lookup mask of the enclosing goal, restored once the goal is resolved.
+	 * @return the outer lookup mask.
+	 */
+	public long getOuterLookupMask() {
+		return outerLookupMask;
+	}
+}
+
+/**
+ * Class representing an open resolvent of the best-first search, along with the node it was resolved from.
+ * @author pachpandenikhil
+ *
+ */
+class SearchNode implements Comparable<SearchNode> {
+
+	private final Clause goal;
+	private final SearchNode parent;
+	private final int depth;
+	private final double cost;
+	private final long sequence;
+	private int selectedHeader;
+
+	public SearchNode(Clause goal, SearchNode parent, int depth, double cost, long sequence) {
+		this.goal = goal;
+		this.parent = parent;
+		this.depth = depth;
+		this.cost = cost;
+		this.sequence = sequence;
+		selectedHeader = -1;
+	}
+
+	/**
+	 * Returns the resolvent.
+	 * @return the goal as a clause.
+	 */
+	public Clause getGoal() {
+		return goal;
+	}
+
+	/**
+	 * Returns the node the resolvent was resolved from.
+	 * @return the parent node, null for the query.
+	 */
+	public SearchNode getParent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the depth of the resolvent in the proof tree.
+	 * @return the depth.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Returns the header of the literal resolved upon when the node was expanded.
+	 * @return the literal header, -1 if the node was not expanded.
+	 */
+	public int getSelectedHeader() {
+		return selectedHeader;
+	}
+
+	/**
+	 * Sets the header of the literal resolved upon when the node is expanded.
+	 * @param selectedHeader the literal header.
+	 */
+	public void setSelectedHeader(int selectedHeader) {
+		this.selectedHeader = selectedHeader;
+	}
+
+	@Override
+	public int compareTo(SearchNode other) {
+		int comparison = Double.compare(cost, other.cost);
+		if(comparison == 0) {
+			comparison = Long.compare(sequence, other.sequence);
+		}
+		return comparison;
+	}
+}
+
+/**
+ * Class learning, for each literal header(predicate and polarity), how often resolving upon such a literal led to a refutation.<BR>
+ * The statistics are shared by the queries, which may update them concurrently.
+ * @author pachpandenikhil
+ *
+ */
+class PredicateStatistics {
+
+	//attempts and successes by literal header
+	private final Map<Integer, long[]> counts;
+
+	public PredicateStatistics() {
+		counts = new HashMap<>();
+	}
+
+	/**
+	 * Records that a goal was expanded by resolving upon a literal with the header.
+	 * @param header the literal header.
+	 */
+	public synchronized void recordAttempt(int header) {
+		counts.computeIfAbsent(header, key -> new long[2])[0]++;
+	}
+
+	/**
+	 * Records that resolving upon a literal with the header was a step of a refutation.
+	 * @param header the literal header.
+	 */
+	public synchronized void recordSuccess(int header) {
+		counts.computeIfAbsent(header, key -> new long[2])[1]++;
+	}
+
+	/**
+	 * Returns the expected number of expansions of goals resolved upon a literal with the header before one leads to a 
+	 * refutation, i.e the inverse of the success rate with a uniform prior.
+	 * @param header the literal header.
+	 * @return the expected number of expansions, 2 for a literal header never resolved upon.
+	 */
+	public synchronized double getExpectedExpansions(int header) {
+		long[] count = counts.get(header);
+		return (count != null) ? (count[0] + 2.0) / (count[1] + 1.0) : 2.0;
+	}
+}
+
+/**
+ * Class representing a branch of the resolution explored as a fork/join task.
+ * @author pachpandenikhil
+ *
+ */
+class ResolutionTask extends RecursiveTask<Boolean> {
+
+	private static final long serialVersionUID = 1L;
+	private final Agent agent;
+	private final Clause query;
+	private final QueryContext context;
+	private final int depth;
+
+	public ResolutionTask(Agent agent, Clause query, QueryContext context, int depth) {
+		this.agent = agent;
+		this.query = query;
+		this.context = context;
+		this.depth = depth;
+	}
+
+	/**
+	 * Returns the state of the branch.
+	 * @return the query context of the branch.
+	 */
+	public QueryContext getContext() {
+		return context;
+	}
+
+	@Override
+	protected Boolean compute() {
+		boolean isContradiction = agent.isContradiction(query, context, depth);
+		if(isContradiction) {
+			//a contradiction in any branch refutes the whole query
+			context.setRefuted();
+		}
+		return isContradiction;
+	}
+}
+
+/**
+ * Class representing the ground facts of a predicate derived by the materialization, as a table of argument tuples.<BR>
+ * The rows are numbered in the order they are added. Hash indexes over subsets of the argument positions are kept up to 
+ * date as rows are added. A deleted row is only marked as such until the relation is compacted, so the row identifiers
+ * stay stable in between. The relation also counts how many times each row was stated as a fact.<BR>
+ * A relation may be an overlay over a parent relation : the rows of the parent come first and the parent is never 
+ * modified, its indexes are only read.
+ * @author pachpandenikhil
+ *
+ */
+class FactRelation {
+
+	//argument positions beyond this one are not indexed
+	public static final int MAX_INDEXED_POSITION 	= 30;
+
+	private final FactRelation parent;
+	private final int base;
+	private final List<int[]> rows;
+	private final Map<GroundTuple, Integer> rowIds;
+	private final Map<Integer, Map<GroundTuple, IntList>> indexes;
+	private final Map<GroundTuple, Integer> statedFacts;
+	private final BitSet deletedRows;
+	private int deletedCount;
+	private int propagated;
+
+	/**
+	 * Creates an empty relation over the parent relation, with the same indexes.
+	 * @param parent the parent relation, may be null.
+	 */
+	public FactRelation(FactRelation parent) {
+		this.parent = parent;
+		base = (parent != null) ? parent.size() : 0;
+		rows = new ArrayList<>();
+		rowIds = new HashMap<>();
+		indexes = new HashMap<>();
+		statedFacts = new HashMap<>();
+		deletedRows = new BitSet();
+		deletedCount = 0;
+		propagated = base;
+		if(parent != null) {
+			for(Integer mask : parent.indexes.keySet()) {
+				indexes.put(mask, new HashMap<>());
+			}
+		}
+	}
+
+	/**
+	 * Returns the parent relation.
+	 * @return the parent relation, null if the relation is not an overlay.
+	 */
+	public FactRelation getParent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the identifier of the first row stored in this relation(excluding the parent).
+	 * @return the number of rows of the parent.
+	 */
+	public int getBase() {
+		return base;
+	}
+
+	/**
+	 * Returns the number of rows, including the ones of the parent.
+	 * @return the number of rows.
+	 */
+	public int size() {
+		return base + rows.size();
+	}
+
+	/**
+	 * Returns the number of rows whose consequences have been derived by the materialization.
+	 * @return the number of propagated rows, including the ones of the parent.
+	 */
+	public int getPropagated() {
+		return propagated;
+	}
+
+	/**
+	 * Sets the number of rows whose consequences have been derived by the materialization.
+	 * @param propagated the number of propagated rows, including the ones of the parent.
+	 */
+	public void setPropagated(int propagated) {
+		this.propagated = propagated;
+	}
+
+	/**
+	 * Returns true if the row of this relation(excluding the parent) is deleted.
+	 * @param row the row identifier.
+	 * @return true if and only if the row is deleted.
+	 */
+	public boolean isDeleted(int row) {
+		return (deletedCount > 0) && deletedRows.get(row - base);
+	}
+
+	/**
+	 * Returns the arguments of the row.
+	 * @param row the row identifier.
+	 * @return the arguments of the row.
+	 */
+	public int[] getRow(int row) {
+		return (row < base) ? parent.getRow(row) : rows.get(row - base);
+	}
+
+	/**
+	 * Returns the identifier of the row holding the arguments, looking up the parent first.
+	 * @param tuple the arguments.
+	 * @return the row identifier, or -1 if no row holds the arguments.
+	 */
+	public int getRowId(GroundTuple tuple) {
+		int rowId = (parent != null) ? parent.getRowId(tuple) : -1;
+		if(rowId < 0) {
+			Integer id = rowIds.get(tuple);
+			if(id != null) {
+				rowId = id;
+			}
+		}
+		return rowId;
+	}
+
+	/**
+	 * Adds the row to the relation, unless a row holds the same arguments.
+	 * @param arguments the arguments of the row.
+	 * @return true if and only if the row was added.
+	 */
+	public boolean add(int[] arguments) {
+		GroundTuple tuple = new GroundTuple(arguments);
+		boolean isAdded = getRowId(tuple) < 0;
+		if(isAdded) {
+			int rowId = size();
+			rows.add(arguments);
+			rowIds.put(tuple, rowId);
+			for(Map.Entry<Integer, Map<GroundTuple, IntList>> index : indexes.entrySet()) {
+				indexRow(index.getKey(), index.getValue(), arguments, rowId);
+			}
+		}
+		return isAdded;
+	}
+
+	/**
+	 * Adds the row stated as a fact to the relation, unless a row holds the same arguments.
+	 * @param arguments the arguments of the row.
+	 * @return true if and only if the row was added.
+	 */
+	public boolean addFact(int[] arguments) {
+		statedFacts.merge(new GroundTuple(arguments), 1, Integer::sum);
+		return add(arguments);
+	}
+
+	/**
+	 * Withdraws one statement of the fact. The row itself is kept.
+	 * @param tuple the arguments of the fact.
+	 */
+	public void removeFact(GroundTuple tuple) {
+		Integer count = statedFacts.get(tuple);
+		if( (count != null) && (count > 1) ) {
+			statedFacts.put(tuple, count - 1);
+		}
+		else {
+			statedFacts.remove(tuple);
+		}
+	}
+
+	/**
+	 * Returns true if the arguments are stated as a fact in this relation(excluding the parent).
+	 * @param tuple the arguments.
+	 * @return true if and only if the fact is stated at least once.
+	 */
+	public boolean isFact(GroundTuple tuple) {
+		return statedFacts.containsKey(tuple);
+	}
+
+	/**
+	 * Deletes the row of this relation(excluding the parent) holding the arguments. The row is only marked as deleted.
+	 * @param tuple the arguments.
+	 * @return true if and only if a row was deleted.
+	 */
+	public boolean delete(GroundTuple tuple) {
+		Integer rowId = rowIds.remove(tuple);
+		if(rowId != null) {
+			deletedRows.set(rowId - base);
+			deletedCount++;
+		}
+		return rowId != null;
+	}
+
+	/**
+	 * Returns true if most of the rows of this relation(excluding the parent) are deleted.
+	 * @return true if and only if the relation is worth compacting.
+	 */
+	public boolean isSparse() {
+		return deletedCount > rows.size() / 2;
+	}
+
+	/**
+	 * Drops the deleted rows of this relation and renumbers the remaining ones in order, rebuilding the indexes.<BR>
+	 * The relation must not be an overlay nor have any overlay. All the rows are considered propagated afterwards.
+	 */
+	public void compact() {
+		List<int[]> liveRows = new ArrayList<>(rows.size() - deletedCount);
+		for(int row = 0; row < rows.size(); row++) {
+			if(!deletedRows.get(row)) {
+				liveRows.add(rows.get(row));
+			}
+		}
+		rows.clear();
+		rowIds.clear();
+		deletedRows.clear();
+		deletedCount = 0;
+		for(Map<GroundTuple, IntList> index : indexes.values()) {
+			index.clear();
+		}
+		for(int[] row : liveRows) {
+			add(row);
+		}
+		propagated = size();
+	}
+
+	/**
+	 * Adds a hash index over the argument positions of the mask, indexing the rows of this relation(excluding the parent).
+	 * @param mask the bit mask of the argument positions.
+	 */
+	public void addIndex(int mask) {
+		if( (mask != 0) && !indexes.containsKey(mask) ) {
+			Map<GroundTuple, IntList> index = new HashMap<>();
+			for(int row = 0; row < rows.size(); row++) {
+				if(!isDeleted(base + row)) {
+					indexRow(mask, index, rows.get(row), base + row);
+				}
+			}
+			indexes.put(mask, index);
+		}
+	}
+
+	/**
+	 * Returns true if this relation(excluding the parent) has an index over the argument positions of the mask.
+	 * @param mask the bit mask of the argument positions.
+	 * @return true if and only if the index exists.
+	 */
+	public boolean hasIndex(int mask) {
+		return indexes.containsKey(mask);
+	}
+
+	/**
+	 * Returns the rows of this relation(excluding the parent) holding the key at the argument positions of the mask.
+	 * @param mask the bit mask of the argument positions, see {@link #addIndex(int)}.
+	 * @param key the arguments at the positions of the mask, in order.
+	 * @return the identifiers of the rows in ascending order, possibly including deleted rows, or null if no row holds the key.
+	 */
+	public IntList lookup(int mask, GroundTuple key) {
+		IntList rowIds = null;
+		Map<GroundTuple, IntList> index = indexes.get(mask);
+		if(index != null) {
+			rowIds = index.get(key);
+		}
+		return rowIds;
+	}
+
+	/**
+	 * Adds the row to the index.
+	 * @param mask the bit mask of the argument positions of the index.
+	 * @param index the index.
+	 * @param arguments the arguments of the row.
+	 * @param rowId the row identifier.
+	 */
+	private static void indexRow(int mask, Map<GroundTuple, IntList> index, int[] arguments, int rowId) {
+		//rows too short for the mask cannot match the literals using the index
+		if( (32 - Integer.numberOfLeadingZeros(mask)) <= arguments.length ) {
+			int[] key = new int[Integer.bitCount(mask)];
+			int count = 0;
+			for(int position = 0; position < arguments.length; position++) {
+				if((mask & (1 << position)) != 0) {
+					key[count++] = arguments[position];
+				}
+			}
+			index.computeIfAbsent(new GroundTuple(key), tuple -> new IntList(2)).add(rowId);
+		}
+	}
+}
+
+/**
+ * Class representing a Horn clause compiled for the bottom-up evaluation : the negative literals form the body and the 
+ * positive literal, if any, forms the head. A clause without a head is a constraint, whose body must never be satisfied.<BR>
+ * The variables are numbered as slots in the order of their first occurrence. For each body literal, the body is joined 
+ * starting from that literal and then greedily on the literal with the most bound arguments. Two more join orders 
+ * evaluate the whole body, one with no variable bound and one with the head variables bound.
+ * @author pachpandenikhil
+ *
+ */
+class HornRule {
+
+	private final int headPredicate;
+	private final int[] head;
+	private final int[] bodyPredicates;
+	private final int[][] body;
+	private final int slotCount;
+	private final int[][] joinOrders;
+	private final int[][] joinMasks;
+	private final boolean[][][] bindingPositions;
+
+	private HornRule(int headPredicate, int[] head, int[] bodyPredicates, int[][] body, int slotCount) {
+		this.headPredicate = headPredicate;
+		this.head = head;
+		this.bodyPredicates = bodyPredicates;
+		this.body = body;
+		this.slotCount = slotCount;
+		joinOrders = new int[body.length + 2][];
+		joinMasks = new int[body.length + 2][];
+		bindingPositions = new boolean[body.length + 2][][];
+		for(int first = 0; first < joinOrders.length; first++) {
+			planJoin(first);
+		}
+	}
+
+	/**
+	 * Compiles the Horn clause.
+	 * @param clause the clause.
+	 * @return the rule, or null if the clause is not a Horn clause, is empty or has a head variable missing from its body.
+	 */
+	public static HornRule compile(Clause clause) {
+		HornRule rule = null;
+		int headLiteral = -1;
+		int positiveLiterals = 0;
+		for(int literal = 0; literal < clause.size(); literal++) {
+			if(!clause.isNegative(literal)) {
+				headLiteral = literal;
+				positiveLiterals++;
+			}
+		}
+		if( (positiveLiterals <= 1) && !clause.isEmpty() ) {
+			int termCount = 0;
+			for(int literal = 0; literal < clause.size(); literal++) {
+				termCount += clause.getArity(literal);
+			}
+			int[] variables = new int[termCount];
+			int[] slotCount = new int[1];
+			int[] bodyPredicates = new int[clause.size() - positiveLiterals];
+			int[][] body = new int[bodyPredicates.length][];
+			int bodyLiteral = 0;
+			for(int literal = 0; literal < clause.size(); literal++) {
+				if(literal != headLiteral) {
+					bodyPredicates[bodyLiteral] = clause.getPredicate(literal);
+					body[bodyLiteral++] = slotTerms(clause, literal, variables, slotCount);
+				}
+			}
+			int bodySlots = slotCount[0];
+			int[] head = null;
+			if(headLiteral >= 0) {
+				head = slotTerms(clause, headLiteral, variables, slotCount);
+			}
+			//range restriction : the head is ground once the body is matched
+			if(slotCount[0] == bodySlots) {
+				rule = new HornRule((headLiteral >= 0) ? clause.getPredicate(headLiteral) : -1, head, bodyPredicates, body, bodySlots);
+			}
+		}
+		return rule;
+	}
+
+	/**
+	 * Returns the arguments of the literal with each variable replaced by the term of its slot.
+	 * @param clause the clause.
+	 * @param literal the literal index.
+	 * @param variables the variables numbered so far, in the order of their slots.
+	 * @param slotCount the number of slots so far, updated.
+	 * @return the terms of the literal.
+	 */
+	private static int[] slotTerms(Clause clause, int literal, int[] variables, int[] slotCount) {
+		int[] terms = new int[clause.getArity(literal)];
+		for(int position = 0; position < terms.length; position++) {
+			int term = clause.getArgument(literal, position);
+			if(SymbolTable.isVariable(term)) {
+				int slot = 0;
+				while( (slot < slotCount[0]) && (variables[slot] != term) ) {
+					slot++;
+				}
+				if(slot == slotCount[0]) {
+					variables[slotCount[0]++] = term;
+				}
+				term = SymbolTable.variableTerm(slot);
+			}
+			terms[position] = term;
+		}
+		return terms;
+	}
+
+	/**
+	 * Plans the join of the body starting from the literal.
+	 * @param first the index of the first body literal, see {@link #getBodyJoin()} and {@link #getHeadJoin()} for the whole body.
+	 */
+	private void planJoin(int first) {
+		int[] order = new int[body.length];
+		int[] masks = new int[body.length];
+		boolean[][] binds = new boolean[body.length][];
+		boolean[] bound = new boolean[slotCount];
+		boolean[] joined = new boolean[body.length];
+		if( (first == getHeadJoin()) && (head != null) ) {
+			for(int term : head) {
+				if(SymbolTable.isVariable(term)) {
+					bound[SymbolTable.variableId(term)] = true;
+				}
+			}
+		}
+		for(int step = 0; step < body.length; step++) {
+			int next = first;
+			if( (step > 0) || (first >= body.length) ) {
+				int mostBound = -1;
+				for(int literal = 0; literal < body.length; literal++) {
+					if(!joined[literal] && (Integer.bitCount(boundMask(body[literal], bound)) > mostBound)) {
+						mostBound = Integer.bitCount(boundMask(body[literal], bound));
+						next = literal;
+					}
+				}
+			}
+			joined[next] = true;
+			order[step] = next;
+			masks[step] = boundMask(body[next], bound);
+			binds[step] = new boolean[body[next].length];
+			for(int position = 0; position < body[next].length; position++) {
+				int term = body[next][position];
+				if(SymbolTable.isVariable(term) && !bound[SymbolTable.variableId(term)]) {
+					bound[SymbolTable.variableId(term)] = true;
+					binds[step][position] = true;
+				}
+			}
+		}
+		joinOrders[first] = order;
+		joinMasks[first] = masks;
+		bindingPositions[first] = binds;
+	}
+
+	/**
+	 * Returns the bit mask of the indexable argument positions holding a constant or a bound variable.
+	 * @param terms the terms of the literal.
+	 * @param bound the bound slots.
+	 * @return the bit mask of the bound positions.
+	 */
+	private static int boundMask(int[] terms, boolean[] bound) {
+		int mask = 0;
+		for(int position = 0; position < Math.min(terms.length, FactRelation.MAX_INDEXED_POSITION); position++) {
+			int term = terms[position];
+			if(!SymbolTable.isVariable(term) || bound[SymbolTable.variableId(term)]) {
+				mask |= 1 << position;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns true if the rule is a constraint, i.e it has no head.
+	 * @return true if and only if the rule is a constraint.
+	 */
+	public boolean isConstraint() {
+		return head == null;
+	}
+
+	/**
+	 * Returns the predicate of the head.
+	 * @return the predicate identifier, -1 for a constraint.
+	 */
+	public int getHeadPredicate() {
+		return headPredicate;
+	}
+
+	/**
+	 * Returns the terms of the head.
+	 * @return the head terms, null for a constraint.
+	 */
+	public int[] getHead() {
+		return head;
+	}
+
+	/**
+	 * Returns the number of body literals.
+	 * @return the body length.
+	 */
+	public int getBodyLength() {
+		return body.length;
+	}
+
+	/**
+	 * Returns the predicate of the body literal.
+	 * @param literal the body literal index.
+	 * @return the predicate identifier.
+	 */
+	public int getBodyPredicate(int literal) {
+		return bodyPredicates[literal];
+	}
+
+	/**
+	 * Returns the terms of the body literal.
+	 * @param literal the body literal index.
+	 * @return the terms.
+	 */
+	public int[] getBody(int literal) {
+		return body[literal];
+	}
+
+	/**
+	 * Returns the join order evaluating the whole body with no variable bound.
+	 * @return the join order identifier, see {@link #getJoinOrder(int)}.
+	 */
+	public int getBodyJoin() {
+		return body.length;
+	}
+
+	/**
+	 * Returns the join order evaluating the whole body with the head variables bound, see {@link #bindHead(int[], int[])}.
+	 * @return the join order identifier, see {@link #getJoinOrder(int)}.
+	 */
+	public int getHeadJoin() {
+		return body.length + 1;
+	}
+
+	/**
+	 * Binds the slots of the head variables to the arguments of the fact, if the head matches the fact.
+	 * @param arguments the arguments of the fact.
+	 * @param slots the values of the variable slots, bound by this method.
+	 * @return true if and only if the head matches the fact.
+	 */
+	public boolean bindHead(int[] arguments, int[] slots) {
+		boolean isMatch = (head != null) && (head.length == arguments.length);
+		Arrays.fill(slots, -1);
+		for(int position = 0; isMatch && (position < head.length); position++) {
+			int term = head[position];
+			if(!SymbolTable.isVariable(term)) {
+				isMatch = term == arguments[position];
+			}
+			else if(slots[SymbolTable.variableId(term)] < 0) {
+				slots[SymbolTable.variableId(term)] = arguments[position];
+			}
+			else {
+				isMatch = slots[SymbolTable.variableId(term)] == arguments[position];
+			}
+		}
+		return isMatch;
+	}
+
+	/**
+	 * Returns the number of variable slots.
+	 * @return the number of slots.
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * Returns the order in which the body literals are joined.
+	 * @param first the index of the first body literal, see {@link #getBodyJoin()} and {@link #getHeadJoin()} for the whole body.
+	 * @return the body literal indexes in join order.
+	 */
+	public int[] getJoinOrder(int first) {
+		return joinOrders[first];
+	}
+
+	/**
+	 * Returns the bit masks of the argument positions bound before each step of the join.
+	 * @param first the index of the first body literal, see {@link #getBodyJoin()} and {@link #getHeadJoin()} for the whole body.
+	 * @return the bound masks in join order.
+	 */
+	public int[] getJoinMasks(int first) {
+		return joinMasks[first];
+	}
+
+	/**
+	 * Returns the argument positions binding a slot at each step of the join.
+	 * @param first the index of the first body literal, see {@link #getBodyJoin()} and {@link #getHeadJoin()} for the whole body.
+	 * @return for each step, true at the positions of the first occurrence of a variable.
+	 */
+	public boolean[][] getBindingPositions(int first) {
+		return bindingPositions[first];
+	}
+}
+
+/**
+ * Class representing the materialization of a Horn knowledge base : all the ground facts derivable from it, computed 
+ * bottom-up by semi-naive evaluation.<BR>
+ * Every round joins the rule bodies with the facts derived in the previous round(the delta) only, so no derivation is 
+ * repeated. The bodies are evaluated as hash joins over the relations of the facts. A constraint whose body is satisfied 
+ * makes the knowledge base inconsistent.<BR>
+ * A ground query is answered by a lookup when its negation is a constraint. When the negated query holds ground facts, 
+ * they are propagated in a scratch overlay, so the materialization itself is never modified by the queries.<BR>
+ * The materialization is maintained incrementally : told clauses only propagate their own consequences, and retracted 
+ * clauses are handled by delete and rederive(DRed) : every fact with a derivation using a retracted clause is deleted, 
+ * the deleted facts still derivable from the remaining ones are derived again and their consequences propagated.
+ * @author pachpandenikhil
+ *
+ */
+class Materialization {
+
+	private final Materialization parent;
+	private final List<HornRule> rules;
+	private final List<List<HornRule>> triggers;
+	private final List<List<HornRule>> producers;
+	private final Map<Clause, HornRule> ruleClauses;
+	private final List<FactRelation> relations;
+	private QueryBudget budget;
+	private boolean inconsistent;
+	private Set<GroundTuple> overdeleted;
+	private List<int[]> deletedFacts;
+	private IntList deletedPredicates;
+
+	private Materialization(Materialization parent) {
+		this.parent = parent;
+		rules = (parent != null) ? parent.rules : new ArrayList<>();
+		triggers = (parent != null) ? parent.triggers : new ArrayList<>();
+		producers = (parent != null) ? parent.producers : new ArrayList<>();
+		ruleClauses = (parent != null) ? parent.ruleClauses : new IdentityHashMap<>();
+		relations = new ArrayList<>();
+		budget = null;
+		inconsistent = (parent != null) && parent.inconsistent;
+		overdeleted = null;
+		deletedFacts = null;
+		deletedPredicates = null;
+	}
+
+	/**
+	 * Materializes the knowledge base.
+	 * @param knowledgeBase the knowledge base.
+	 * @return the materialization, or null if the knowledge base is not made of Horn clauses whose facts are ground and 
+	 * whose head variables occur in their bodies.
+	 */
+	public static Materialization build(KnowledgeBase knowledgeBase) {
+		Materialization materialization = new Materialization(null);
+		if(!materialization.tell(knowledgeBase.getClauses())) {
+			materialization = null;
+		}
+		return materialization;
+	}
+
+	/**
+	 * Adds the clauses stored in the knowledge base and derives their consequences.<BR>
+	 * The new rules are joined with the facts already propagated, then the new facts and the facts derived by the new 
+	 * rules are propagated as the delta.
+	 * @param clauses the stored clauses.
+	 * @return true if the clauses were added, false if one of them cannot be materialized, in which case none is added.
+	 */
+	public boolean tell(List<Clause> clauses) {
+		boolean canTell = true;
+		List<HornRule> compiledRules = new ArrayList<>(clauses.size());
+		for(Clause clause : clauses) {
+			HornRule rule = HornRule.compile(clause);
+			canTell &= rule != null;
+			compiledRules.add(rule);
+		}
+		if(canTell) {
+			List<HornRule> newRules = new ArrayList<>();
+			for(int idx = 0; idx < clauses.size(); idx++) {
+				HornRule rule = compiledRules.get(idx);
+				if(rule.getBodyLength() == 0) {
+					getRelation(rule.getHeadPredicate(), true).addFact(rule.getHead());
+				}
+				else {
+					addRule(rule, clauses.get(idx));
+					newRules.add(rule);
+				}
+			}
+			
+			//the combinations involving an unpropagated fact are joined by the propagation
+			int[] propagatedRows = getPropagatedRows();
+			for(HornRule rule : newRules) {
+				join(rule, rule.getBodyJoin(), 0, new int[rule.getSlotCount()], propagatedRows, propagatedRows);
+			}
+			propagate();
+		}
+		return canTell;
+	}
+
+	/**
+	 * Removes the clauses retracted from the knowledge base along with the facts no longer derivable.
+	 * @param clauses the retracted clauses, as they were stored.
+	 * @return true if the clauses were removed, false if one of them is unknown to the materialization, which is then 
+	 * left in an undefined state.
+	 */
+	public boolean retract(List<Clause> clauses) {
+		boolean canRetract = true;
+		overdeleted = new HashSet<>();
+		deletedFacts = new ArrayList<>();
+		deletedPredicates = new IntList();
+		
+		//deleting the retracted facts and the facts derived by the retracted rules
+		for(Clause clause : clauses) {
+			HornRule rule = ruleClauses.remove(clause);
+			if(rule != null) {
+				removeRule(rule);
+				if(!rule.isConstraint()) {
+					join(rule, rule.getBodyJoin(), 0, new int[rule.getSlotCount()], null, null);
+				}
+			}
+			else {
+				HornRule fact = HornRule.compile(clause);
+				FactRelation relation = (fact != null) ? getRelation(fact.getHeadPredicate(), false) : null;
+				canRetract &= (relation != null) && (fact.getBodyLength() == 0);
+				if(canRetract) {
+					relation.removeFact(new GroundTuple(fact.getHead()));
+					overdelete(fact.getHeadPredicate(), fact.getHead());
+				}
+			}
+		}
+		
+		//deleting every fact with a derivation using a deleted fact
+		for(int idx = 0; canRetract && (idx < deletedFacts.size()); idx++) {
+			int predicate = deletedPredicates.get(idx);
+			int[] fact = deletedFacts.get(idx);
+			List<HornRule> predicateRules = (predicate < triggers.size()) ? triggers.get(predicate) : Collections.emptyList();
+			for(HornRule rule : predicateRules) {
+				for(int literal = 0; literal < rule.getBodyLength(); literal++) {
+					int[] slots = new int[rule.getSlotCount()];
+					if( !rule.isConstraint() && (rule.getBodyPredicate(literal) == predicate) 
+							&& match(rule.getBody(literal), rule.getBindingPositions(literal)[0], fact, slots) ) {
+						join(rule, literal, 1, slots, null, null);
+					}
+				}
+			}
+		}
+		for(int idx = 0; idx < deletedFacts.size(); idx++) {
+			getRelation(deletedPredicates.get(idx), false).delete(new GroundTuple(deletedFacts.get(idx)));
+		}
+		List<int[]> facts = deletedFacts;
+		IntList predicates = deletedPredicates;
+		overdeleted = null;
+		deletedFacts = null;
+		deletedPredicates = null;
+		
+		//rederiving the deleted facts having a derivation from the remaining ones
+		for(int idx = 0; canRetract && (idx < facts.size()); idx++) {
+			int predicate = predicates.get(idx);
+			int[] fact = facts.get(idx);
+			List<HornRule> predicateRules = (predicate < producers.size()) ? producers.get(predicate) : Collections.emptyList();
+			FactRelation relation = getRelation(predicate, false);
+			for(int ruleIdx = 0; (ruleIdx < predicateRules.size()) && (relation.getRowId(new GroundTuple(fact)) < 0); ruleIdx++) {
+				HornRule rule = predicateRules.get(ruleIdx);
+				int[] slots = new int[rule.getSlotCount()];
+				if(rule.bindHead(fact, slots)) {
+					join(rule, rule.getHeadJoin(), 0, slots, null, null);
+				}
+			}
+		}
+		propagate();
+		
+		//a retracted clause may have been the cause of the inconsistency
+		if(inconsistent) {
+			inconsistent = false;
+			for(HornRule rule : rules) {
+				if(rule.isConstraint()) {
+					join(rule, rule.getBodyJoin(), 0, new int[rule.getSlotCount()], null, null);
+				}
+			}
+		}
+		for(FactRelation relation : relations) {
+			if( (relation != null) && relation.isSparse() ) {
+				relation.compact();
+			}
+		}
+		return canRetract;
+	}
+
+	/**
+	 * Marks the fact as deleted, unless it is stated as a fact, not materialized or already marked.
+	 * @param predicate the predicate of the fact.
+	 * @param arguments the arguments of the fact.
+	 */
+	private void overdelete(int predicate, int[] arguments) {
+		FactRelation relation = getRelation(predicate, false);
+		GroundTuple tuple = new GroundTuple(arguments);
+		if( (relation != null) && (relation.getRowId(tuple) >= 0) && !relation.isFact(tuple) ) {
+			int[] key = Arrays.copyOf(arguments, arguments.length + 1);
+			key[arguments.length] = predicate;
+			if(overdeleted.add(new GroundTuple(key))) {
+				deletedFacts.add(arguments);
+				deletedPredicates.add(predicate);
+			}
+		}
+	}
+
+	/**
+	 * Adds the rule, creating the relations and indexes its evaluation requires.
+	 * @param rule the rule, with a non-empty body.
+	 * @param clause the stored clause of the rule.
+	 */
+	private void addRule(HornRule rule, Clause clause) {
+		rules.add(rule);
+		ruleClauses.put(clause, rule);
+		if(!rule.isConstraint()) {
+			getRelation(rule.getHeadPredicate(), true);
+			ruleList(producers, rule.getHeadPredicate()).add(rule);
+		}
+		for(int literal = 0; literal < rule.getBodyLength(); literal++) {
+			List<HornRule> predicateRules = ruleList(triggers, rule.getBodyPredicate(literal));
+			if(!predicateRules.contains(rule)) {
+				predicateRules.add(rule);
+			}
+		}
+		for(int first = 0; first <= rule.getHeadJoin(); first++) {
+			int[] order = rule.getJoinOrder(first);
+			int[] masks = rule.getJoinMasks(first);
+			for(int step = 0; step < order.length; step++) {
+				getRelation(rule.getBodyPredicate(order[step]), true).addIndex(masks[step]);
+			}
+		}
+	}
+
+	/**
+	 * Removes the rule. The relations and indexes are kept.
+	 * @param rule the rule.
+	 */
+	private void removeRule(HornRule rule) {
+		rules.remove(rule);
+		if(!rule.isConstraint()) {
+			producers.get(rule.getHeadPredicate()).remove(rule);
+		}
+		for(int literal = 0; literal < rule.getBodyLength(); literal++) {
+			triggers.get(rule.getBodyPredicate(literal)).remove(rule);
+		}
+	}
+
+	/**
+	 * Returns the list of rules of the predicate, creating it if needed.
+	 * @param rulesByPredicate the lists of rules indexed by predicate.
+	 * @param predicate the predicate identifier.
+	 * @return the list of rules of the predicate.
+	 */
+	private static List<HornRule> ruleList(List<List<HornRule>> rulesByPredicate, int predicate) {
+		while(rulesByPredicate.size() <= predicate) {
+			rulesByPredicate.add(new ArrayList<>());
+		}
+		return rulesByPredicate.get(predicate);
+	}
+
+	/**
+	 * Returns the number of propagated rows of each relation.
+	 * @return the number of propagated rows, indexed by predicate.
+	 */
+	private int[] getPropagatedRows() {
+		int[] propagatedRows = new int[getPredicateCount()];
+		for(int predicate = 0; predicate < propagatedRows.length; predicate++) {
+			FactRelation relation = getRelation(predicate, false);
+			if(relation != null) {
+				propagatedRows[predicate] = relation.getPropagated();
+			}
+		}
+		return propagatedRows;
+	}
+
+	/**
+	 * Returns the relation of the facts of the predicate.
+	 * @param predicate the predicate identifier.
+	 * @param create true to create the relation(over the relation of the parent) if this materialization has none.
+	 * @return the relation, or null if the predicate has no relation and <CODE>create</CODE> is false.
+	 */
+	private FactRelation getRelation(int predicate, boolean create) {
+		FactRelation relation = null;
+		if(predicate < relations.size()) {
+			relation = relations.get(predicate);
+		}
+		if(relation == null) {
+			FactRelation parentRelation = (parent != null) ? parent.getRelation(predicate, false) : null;
+			if(create) {
+				while(relations.size() <= predicate) {
+					relations.add(null);
+				}
+				relation = new FactRelation(parentRelation);
+				relations.set(predicate, relation);
+			}
+			else {
+				relation = parentRelation;
+			}
+		}
+		return relation;
+	}
+
+	/**
+	 * Returns the number of predicates which may have a relation.
+	 * @return the number of predicate identifiers.
+	 */
+	private int getPredicateCount() {
+		return Math.max(relations.size(), (parent != null) ? parent.getPredicateCount() : 0);
+	}
+
+	/**
+	 * Returns true if the materialization is inconsistent, i.e the body of a constraint is satisfied.
+	 * @return true if and only if the knowledge base is inconsistent.
+	 */
+	public boolean isInconsistent() {
+		return inconsistent;
+	}
+
+	/**
+	 * Returns true if the negated query can be answered against the materialization, 
+	 * i.e all its clauses are ground facts or constraints whose variables occur in their bodies.
+	 * @param negatedQuery the clauses of the negated query.
+	 * @return true if and only if the query can be answered.
+	 */
+	public static boolean canAnswer(List<Clause> negatedQuery) {
+		boolean canAnswer = true;
+		for(Clause clause : negatedQuery) {
+			HornRule rule = HornRule.compile(clause);
+			canAnswer &= (rule != null) && ( rule.isConstraint() || (rule.getBodyLength() == 0) );
+		}
+		return canAnswer;
+	}
+
+	/**
+	 * Answers the query, i.e whether the knowledge base along with the negated query is inconsistent.<BR>
+	 * The ground facts of the negated query are propagated in a scratch overlay, then the constraints of the negated query 
+	 * are evaluated against it.
+	 * @param negatedQuery the clauses of the negated query, see {@link #canAnswer(List)}.
+	 * @param budget the budget of the query, a step is taken for each derivation.
+	 * @return TRUE if the query is entailed by the knowledge base, FALSE if it is not and UNKNOWN if the query ran out of its budget.
+	 */
+	public Answer ask(List<Clause> negatedQuery, QueryBudget budget) {
+		Materialization scratch = new Materialization(this);
+		scratch.budget = budget;
+		List<HornRule> constraints = new ArrayList<>();
+		for(Clause clause : negatedQuery) {
+			HornRule rule = HornRule.compile(clause);
+			if(rule.isConstraint()) {
+				constraints.add(rule);
+			}
+			else {
+				scratch.getRelation(rule.getHeadPredicate(), true).add(rule.getHead());
+			}
+		}
+		scratch.propagate();
+		for(int idx = 0; (idx < constraints.size()) && !scratch.isStopped(constraints.get(idx)); idx++) {
+			HornRule constraint = constraints.get(idx);
+			scratch.join(constraint, constraint.getBodyJoin(), 0, new int[constraint.getSlotCount()], null, null);
+		}
+		
+		Answer answer = Answer.FALSE;
+		if(scratch.inconsistent) {
+			answer = Answer.TRUE;
+		}
+		else if(!budget.isComplete()) {
+			answer = Answer.UNKNOWN;
+		}
+		return answer;
+	}
+
+	/**
+	 * Returns true if the evaluation of the rule is to be stopped.<BR>
+	 * A query stops once its scratch materialization is inconsistent or its budget is exhausted. The shared materialization 
+	 * is always evaluated to the fixpoint, only the constraints are no longer evaluated once it is inconsistent.
+	 * @param rule the rule being evaluated.
+	 * @return true if and only if the evaluation is to be stopped.
+	 */
+	private boolean isStopped(HornRule rule) {
+		boolean isStopped = false;
+		if(budget != null) {
+			isStopped = inconsistent || budget.isExhausted();
+		}
+		else {
+			isStopped = inconsistent && rule.isConstraint() && (overdeleted == null);
+		}
+		return isStopped;
+	}
+
+	/**
+	 * Derives the consequences of the facts added since the relations were last propagated, round by round, until no new 
+	 * fact is derived or the evaluation is stopped.
+	 */
+	private void propagate() {
+		int predicateCount = getPredicateCount();
+		int[] deltaStart = new int[predicateCount];
+		int[] deltaEnd = new int[predicateCount];
+		boolean hasDelta = false;
+		for(int predicate = 0; predicate < predicateCount; predicate++) {
+			FactRelation relation = getRelation(predicate, false);
+			if(relation != null) {
+				//only the facts added to this materialization(excluding the parent) are new
+				boolean isLocal = (predicate < relations.size()) && (relations.get(predicate) != null);
+				deltaStart[predicate] = isLocal ? relation.getPropagated() : relation.size();
+				deltaEnd[predicate] = relation.size();
+				hasDelta |= deltaStart[predicate] < deltaEnd[predicate];
+			}
+		}
+		
+		while(hasDelta && ( (budget == null) || !(inconsistent || budget.isExhausted()) )) {
+			for(int predicate = 0; predicate < Math.min(predicateCount, triggers.size()); predicate++) {
+				if(deltaStart[predicate] < deltaEnd[predicate]) {
+					for(HornRule rule : triggers.get(predicate)) {
+						for(int literal = 0; literal < rule.getBodyLength(); literal++) {
+							if(rule.getBodyPredicate(literal) == predicate) {
+								join(rule, literal, 0, new int[rule.getSlotCount()], deltaStart, deltaEnd);
+							}
+						}
+					}
+				}
+			}
+			
+			//the facts derived in this round are the delta of the next one
+			hasDelta = false;
+			for(int predicate = 0; predicate < predicateCount; predicate++) {
+				FactRelation relation = getRelation(predicate, false);
+				if(relation != null) {
+					deltaStart[predicate] = deltaEnd[predicate];
+					deltaEnd[predicate] = relation.size();
+					hasDelta |= deltaStart[predicate] < deltaEnd[predicate];
+				}
+			}
+		}
+		for(FactRelation relation : relations) {
+			if(relation != null) {
+				relation.setPropagated(relation.size());
+			}
+		}
+	}
+
+	/**
+	 * Joins the remaining body literals of the rule and derives its head for each match.<BR>
+	 * The first literal is matched against the delta of its predicate, the literals before it in the body against 
+	 * the facts preceding the delta and the literals after it against all the facts up to the end of the delta, 
+	 * so each combination of facts involving the delta is joined exactly once. Deleted rows are skipped.
+	 * @param rule the rule.
+	 * @param first the index of the body literal matched against the delta, or the body length to join the whole body.
+	 * @param step the step of the join.
+	 * @param slots the values of the bound variable slots.
+	 * @param deltaStart the first row of the delta of each predicate, null to join all the facts.
+	 * @param deltaEnd the row following the delta of each predicate.
+	 */
+	private void join(HornRule rule, int first, int step, int[] slots, int[] deltaStart, int[] deltaEnd) {
+		int[] order = rule.getJoinOrder(first);
+		FactRelation relation = (step < order.length) ? getRelation(rule.getBodyPredicate(order[step]), false) : null;
+		if(step == order.length) {
+			derive(rule, slots);
+		}
+		else if(relation != null) {
+			int literal = order[step];
+			int predicate = rule.getBodyPredicate(literal);
+			int lower = 0;
+			int upper = relation.size();
+			if(deltaStart != null) {
+				lower = (literal == first) ? deltaStart[predicate] : 0;
+				upper = (literal < first) ? deltaStart[predicate] : deltaEnd[predicate];
+			}
+			
+			int[] terms = rule.getBody(literal);
+			boolean[] binds = rule.getBindingPositions(first)[step];
+			int mask = (literal != first) ? rule.getJoinMasks(first)[step] : 0;
+			if( (mask != 0) && (terms.length <= FactRelation.MAX_INDEXED_POSITION) && (mask == (1 << terms.length) - 1) ) {
+				//all the arguments are bound, the single matching row is looked up
+				int rowId = relation.getRowId(new GroundTuple(values(terms, mask, slots)));
+				if( (rowId >= lower) && (rowId < upper) ) {
+					join(rule, first, step + 1, slots, deltaStart, deltaEnd);
+				}
+			}
+			else {
+				GroundTuple key = (mask != 0) ? new GroundTuple(values(terms, mask, slots)) : null;
+				for(FactRelation level = relation; (level != null) && !isStopped(rule); level = level.getParent()) {
+					if( (key != null) && level.hasIndex(mask) ) {
+						IntList rowIds = level.lookup(mask, key);
+						for(int idx = 0; (rowIds != null) && (idx < rowIds.size()) && !isStopped(rule); idx++) {
+							int rowId = rowIds.get(idx);
+							if( (rowId >= lower) && (rowId < upper) && !level.isDeleted(rowId) 
+									&& match(terms, binds, level.getRow(rowId), slots) ) {
+								join(rule, first, step + 1, slots, deltaStart, deltaEnd);
+							}
+						}
+					}
+					else {
+						int end = Math.min(upper, level.size());
+						for(int rowId = Math.max(lower, level.getBase()); (rowId < end) && !isStopped(rule); rowId++) {
+							if(!level.isDeleted(rowId) && match(terms, binds, level.getRow(rowId), slots)) {
+								join(rule, first, step + 1, slots, deltaStart, deltaEnd);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the head of the rule instantiated by the slots, or marks the materialization inconsistent for a constraint.<BR>
+	 * While the facts of retracted clauses are being deleted, the head is marked as deleted instead.
+	 * @param rule the rule whose body is matched.
+	 * @param slots the values of the variable slots.
+	 */
+	private void derive(HornRule rule, int[] slots) {
+		if(rule.isConstraint()) {
+			if(overdeleted == null) {
+				inconsistent = true;
+			}
+		}
+		else if( (budget == null) || budget.step(0, 0) ) {
+			int[] head = rule.getHead();
+			int[] arguments = new int[head.length];
+			for(int position = 0; position < head.length; position++) {
+				arguments[position] = value(head[position], slots);
+			}
+			if(overdeleted != null) {
+				overdelete(rule.getHeadPredicate(), arguments);
+			}
+			else {
+				getRelation(rule.getHeadPredicate(), true).add(arguments);
+			}
+		}
+	}
+
+	/**
+	 * Returns the constants at the argument positions of the mask.
+	 * @param terms the terms of the body literal.
+	 * @param mask the bit mask of the bound positions.
+	 * @param slots the values of the variable slots.
+	 * @return the constants, in the order of the positions.
+	 */
+	private static int[] values(int[] terms, int mask, int[] slots) {
+		int[] values = new int[Integer.bitCount(mask)];
+		int count = 0;
+		for(int position = 0; position < terms.length; position++) {
+			if((mask & (1 << position)) != 0) {
+				values[count++] = value(terms[position], slots);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Matches the terms of the body literal against the row, binding the slots of the variables first occurring in it.
+	 * @param terms the terms of the body literal.
+	 * @param binds true at the positions binding a slot.
+	 * @param row the arguments of the row.
+	 * @param slots the values of the variable slots.
+	 * @return true if and only if the row matches the literal.
+	 */
+	private static boolean match(int[] terms, boolean[] binds, int[] row, int[] slots) {
+		boolean isMatch = row.length == terms.length;
+		for(int position = 0; isMatch && (position < terms.length); position++) {
+			int term = terms[position];
+			if(binds[position]) {
+				slots[SymbolTable.variableId(term)] = row[position];
+			}
+			else {
+				isMatch = value(term, slots) == row[position];
+			}
+		}
+		return isMatch;
+	}
+
+	/**
+	 * Returns the constant of the term.
+	 * @param term a constant or the term of a bound slot.
+	 * @param slots the values of the variable slots.
+	 * @return the constant.
+	 */
+	private static int value(int term, int[] slots) {
+		return SymbolTable.isVariable(term) ? slots[SymbolTable.variableId(term)] : term;
+	}
+}
+
+/**
+ * Class representing a clause of the passive set of the saturation, waiting to be selected as the given clause.<BR>
+ * The clause is queued both by weight and by age, and is skipped by the second queue once selected from the first one.
+ * @author pachpandenikhil
+ *
+ */
+class PassiveClause implements Comparable<PassiveClause> {
+
+	private final Clause clause;
+	private final int weight;
+	private final long age;
+	private boolean selected;
+
+	public PassiveClause(Clause clause, long age) {
+		this.clause = clause;
+		this.age = age;
+		int symbols = 0;
+		for(int literal = 0; literal < clause.size(); literal++) {
+			symbols += clause.getArity(literal) + 1;
+		}
+		weight = symbols;
+		selected = false;
+	}
+
+	/**
+	 * Returns the clause.
+	 * @return the clause.
+	 */
+	public Clause getClause() {
+		return clause;
+	}
+
+	/**
+	 * Returns true if the clause was already selected from either queue.
+	 * @return true if and only if the clause was selected.
+	 */
+	public boolean isSelected() {
+		return selected;
+	}
+
+	/**
+	 * Marks the clause as selected.
+	 */
+	public void setSelected() {
+		selected = true;
+	}
+
+	@Override
+	public int compareTo(PassiveClause other) {
+		int comparison = Integer.compare(weight, other.weight);
+		if(comparison == 0) {
+			comparison = Long.compare(age, other.age);
+		}
+		return comparison;
+	}
+}
+
+/**
+ * Class proving queries by saturation, with a given-clause loop in the style of Otter/DISCOUNT.<BR>
+ * All the clauses of the knowledge base and of the negated query start in the passive set. In each iteration a given 
+ * clause is selected from the passive set : the lightest one(fewest symbols), except every {@link #AGE_RATIO}-th one 
+ * which is the oldest, so that every passive clause is eventually selected. A given clause subsumed by an active clause 
+ * is discarded(forward subsumption). Otherwise it removes the active clauses it subsumes(backward subsumption), becomes 
+ * active, and its resolvents with the active clauses and its factors are added to the passive set, tautologies excepted.<BR>
+ * Resolution is restricted by a selection function : the first negative literal of a clause is the only one resolved upon, 
+ * and a clause without negative literal is resolved upon any of its literals. Inferences are thus only drawn between a 
+ * positive clause and the selected literal of another clause, which keeps the resolution complete while deriving positive 
+ * clauses bottom-up, so recursive rules such as <CODE>Ancestor(x,z)</CODE> chains do not grow ever longer goals and the 
+ * saturation of a function-free knowledge base terminates.<BR>
+ * The active clauses are stored in an index, so the partners of the inferences and the subsuming and subsumed clauses 
+ * are retrieved through the predicate buckets. The saturation may be run in several steps, each with its own budget, and 
+ * a saturated set of clauses may be extended by new clauses : a saturation over an overlay of its active clauses only 
+ * draws the inferences involving the new clauses, the clauses of the parent not being removed by backward subsumption. 
+ * A query is thus proved by saturating the knowledge base once and extending it by the negated query, which is entailed 
+ * once the empty clause is derived and not entailed once the passive set is exhausted.<BR>
+ * As the resolution is complete, every query is entailed by an inconsistent knowledge base, whereas the linear input 
+ * resolution of the resolution engine only refutes the goals reachable from the negated query.
+ * @author pachpandenikhil
+ *
+ */
+class Saturation {
+
+	public static final int AGE_RATIO 	= 5;
+
+	private static final int UNBOUND 	= Integer.MIN_VALUE;
+
+	private KnowledgeBase active;
+	private PriorityQueue<PassiveClause> passiveByWeight;
+	private ArrayDeque<PassiveClause> passiveByAge;
+	private long passiveSequence;
+	private long selections;
+	private boolean refuted;
+	private QueryBudget budget;
+	private Bindings bindings;
+	private IntList resolventBuffer;
+	private IntList literalBuffer;
+
+	/**
+	 * Creates a saturation without passive clauses.
+	 * @param index the index holding the active clauses : an empty index, see {@link KnowledgeBase#createIndex()}, or 
+	 * an overlay over the active clauses of a saturation to be extended.
+	 */
+	public Saturation(KnowledgeBase index) {
+		active = index;
+		passiveByWeight = new PriorityQueue<>();
+		passiveByAge = new ArrayDeque<>();
+		passiveSequence = 0;
+		selections = 0;
+		refuted = false;
+		budget = null;
+		bindings = new Bindings();
+		resolventBuffer = new IntList();
+		literalBuffer = new IntList();
+	}
+
+	/**
+	 * Returns the index holding the active clauses.
+	 * @return the index of the active clauses.
+	 */
+	public KnowledgeBase getActive() {
+		return active;
+	}
+
+	/**
+	 * Returns true if the empty clause was derived.
+	 * @return true if and only if the clauses are unsatisfiable.
+	 */
+	public boolean isRefuted() {
+		return refuted;
+	}
+
+	/**
+	 * Adds the clauses to the passive set.
+	 * @param clauses the clauses, compiled against the symbols of the index.
+	 */
+	public void addClauses(List<Clause> clauses) {
+		for(Clause clause : clauses) {
+			if(addPassive(clause)) {
+				refuted = true;
+			}
+		}
+	}
+
+	/**
+	 * Runs the given-clause loop until the empty clause is derived, the passive set is exhausted or the budget runs out.<BR>
+	 * The budget is only checked between given clauses, so all the inferences of a given clause are drawn before it 
+	 * runs out and the saturation can be resumed where it stopped.
+	 * @param budget the budget of the run, each inference being a step.
+	 * @return TRUE if the empty clause is derived, FALSE if the passive set is exhausted first and UNKNOWN if the budget 
+	 * ran out, in which case the saturation may be resumed.
+	 */
+	public Answer saturate(QueryBudget budget) {
+		this.budget = budget;
+		Answer answer = refuted ? Answer.TRUE : null;
+		while( (answer == null) && !budget.isExhausted() ) {
+			Clause given = selectGiven();
+			if(given == null) {
+				answer = Answer.FALSE;
+			}
+			else if(!isSubsumed(given)) {
+				removeSubsumedBy(given);
+				active.addClause(given);
+				if(generate(given)) {
+					refuted = true;
+					answer = Answer.TRUE;
+				}
+			}
+		}
+		if(answer == null) {
+			answer = Answer.UNKNOWN;
+		}
+		return answer;
+	}
+
+	/**
+	 * Returns the next given clause, the oldest passive clause every {@link #AGE_RATIO}-th time and the lightest one otherwise.
+	 * @return the given clause, or null if the passive set is empty.
+	 */
+	private Clause selectGiven() {
+		Queue<PassiveClause> queue = ((++selections % AGE_RATIO) == 0) ? passiveByAge : passiveByWeight;
+		PassiveClause given = null;
+		while( (given == null) && !queue.isEmpty() ) {
+			PassiveClause candidate = queue.poll();
+			if(!candidate.isSelected()) {
+				given = candidate;
+				given.setSelected();
+			}
+		}
+		return (given != null) ? given.getClause() : null;
+	}
+
+	/**
+	 * Simplifies the clause and adds it to the passive set, unless it is a tautology.
+	 * @param clause the clause.
+	 * @return true if and only if the clause is the empty clause.
+	 */
+	private boolean addPassive(Clause clause) {
+		boolean isEmpty = false;
+		Clause simplified = simplify(clause);
+		if(simplified != null) {
+			isEmpty = simplified.isEmpty();
+			PassiveClause passive = new PassiveClause(simplified, passiveSequence++);
+			passiveByWeight.add(passive);
+			passiveByAge.add(passive);
+		}
+		return isEmpty;
+	}
+
+	/**
+	 * Removes the duplicate literals of the clause and renumbers its variables in canonical form.
+	 * @param clause the clause.
+	 * @return the simplified clause, or null if the clause is a tautology(i.e contains a literal and its complement).
+	 */
+	private Clause simplify(Clause clause) {
+		Clause simplified = null;
+		boolean isTautology = false;
+		literalBuffer.clear();
+		for(int literal = 0; !isTautology && (literal < clause.size()); literal++) {
+			boolean isDuplicate = false;
+			for(int previous = 0; !isTautology && !isDuplicate && (previous < literal); previous++) {
+				if(sameArguments(clause, previous, literal)) {
+					isDuplicate = clause.getHeader(previous) == clause.getHeader(literal);
+					isTautology = clause.getHeader(previous) == (clause.getHeader(literal) ^ 1);
+				}
+			}
+			if(!isDuplicate) {
+				clause.copyLiteral(literal, null, literalBuffer);
+			}
+		}
+		if(!isTautology) {
+			simplified = new Clause(literalBuffer.toArray()).getCanonicalForm();
+		}
+		return simplified;
+	}
+
+	/**
+	 * Returns true if the two literals of the clause have the same predicate and arguments, whatever their polarity.
+	 * @param clause the clause.
+	 * @param first the index of the first literal.
+	 * @param second the index of the second literal.
+	 * @return true if and only if both literals have the same atom.
+	 */
+	private static boolean sameArguments(Clause clause, int first, int second) {
+		boolean isSame = (clause.getPredicate(first) == clause.getPredicate(second)) 
+				&& (clause.getArity(first) == clause.getArity(second));
+		for(int argument = 0; isSame && (argument < clause.getArity(first)); argument++) {
+			isSame = clause.getArgument(first, argument) == clause.getArgument(second, argument);
+		}
+		return isSame;
+	}
+
+	/**
+	 * Returns the literal resolved upon in the clause.
+	 * @param clause the clause.
+	 * @return the index of the first negative literal, or -1 if the clause is positive and all its literals are resolved upon.
+	 */
+	private static int selectedLiteral(Clause clause) {
+		int selected = -1;
+		for(int literal = 0; (selected < 0) && (literal < clause.size()); literal++) {
+			if(clause.isNegative(literal)) {
+				selected = literal;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Adds the resolvents of the given clause with the active clauses, including itself, and the factors of the given 
+	 * clause to the passive set.<BR>
+	 * The selected literal of the given clause is resolved with the positive active clauses, and the literals of a 
+	 * positive given clause with the selected literals of the active clauses. The active clause is renamed apart from 
+	 * the given clause by offsetting its variables, see {@link Bindings#unify(Clause, int, Clause, int, int)}.
+	 * @param given the given clause, already active.
+	 * @return true if and only if the empty clause was derived.
+	 */
+	private boolean generate(Clause given) {
+		boolean isRefuted = false;
+		int selected = selectedLiteral(given);
+		int variableOffset = given.getVariableBound();
+		for(int literal = Math.max(selected, 0); !isRefuted && (literal < given.size()); literal++) {
+			List<StoredLiteral> partners = active.getCandidates(given, literal);
+			for(int idx = 0; !isRefuted && (idx < partners.size()); idx++) {
+				budget.step(0, 0);
+				Clause partner = partners.get(idx).getClause();
+				int partnerLiteral = partners.get(idx).getLiteral();
+				int mark = bindings.mark();
+				if( (selectedLiteral(partner) == ((selected < 0) ? partnerLiteral : -1)) 
+						&& bindings.unify(given, literal, partner, partnerLiteral, variableOffset) ) {
+					resolventBuffer.clear();
+					for(int other = 0; other < given.size(); other++) {
+						if(other != literal) {
+							given.copyLiteral(other, bindings, resolventBuffer);
+						}
+					}
+					for(int other = 0; other < partner.size(); other++) {
+						if(other != partnerLiteral) {
+							partner.copyLiteral(other, variableOffset, bindings, resolventBuffer);
+						}
+					}
+					isRefuted = addPassive(new Clause(resolventBuffer.toArray()));
+				}
+				bindings.undo(mark);
+			}
+			if(selected >= 0) {
+				break;
+			}
+		}
+		
+		//factors of a positive clause : two of its literals of the same predicate merged by their most general unifier
+		for(int first = 0; !isRefuted && (selected < 0) && (first < given.size()); first++) {
+			for(int second = first + 1; !isRefuted && (second < given.size()); second++) {
+				budget.step(0, 0);
+				if(given.getHeader(first) == given.getHeader(second)) {
+					int mark = bindings.mark();
+					if(bindings.unify(given, first, given, second)) {
+						resolventBuffer.clear();
+						for(int other = 0; other < given.size(); other++) {
+							if(other != second) {
+								given.copyLiteral(other, bindings, resolventBuffer);
+							}
+						}
+						isRefuted = addPassive(new Clause(resolventBuffer.toArray()));
+					}
+					bindings.undo(mark);
+				}
+			}
+		}
+		return isRefuted;
+	}
+
+	/**
+	 * Returns true if an active clause subsumes the clause.<BR>
+	 * The first literal of a subsuming clause matches a literal of the clause, so only the active clauses whose first 
+	 * literal is a candidate for one of the literals of the clause are tried.
+	 * @param clause the clause.
+	 * @return true if and only if the clause is subsumed by an active clause.
+	 */
+	private boolean isSubsumed(Clause clause) {
+		boolean isSubsumed = false;
+		for(int literal = 0; !isSubsumed && (literal < clause.size()); literal++) {
+			for(StoredLiteral candidate : active.getCandidates(clause, literal, clause.isNegative(literal))) {
+				if( (candidate.getLiteral() == 0) && subsumes(candidate.getClause(), clause) ) {
+					isSubsumed = true;
+					break;
+				}
+			}
+		}
+		return isSubsumed;
+	}
+
+	/**
+	 * Removes the active clauses subsumed by the clause.
+	 * @param clause the clause.
+	 */
+	private void removeSubsumedBy(Clause clause) {
+		Set<Clause> subsumed = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(StoredLiteral candidate : active.getCandidates(clause, 0, clause.isNegative(0))) {
+			if(subsumes(clause, candidate.getClause())) {
+				subsumed.add(candidate.getClause());
+			}
+		}
+		for(Clause subsumedClause : subsumed) {
+			active.removeClause(subsumedClause);
+		}
+	}
+
+	/**
+	 * Returns true if the <CODE>general</CODE> clause subsumes the <CODE>specific</CODE> clause, i.e a substitution 
+	 * of the variables of the general clause maps each of its literals to a literal of the specific clause.
+	 * @param general the subsuming clause, with no more literals than the specific clause.
+	 * @param specific the subsumed clause, whose variables are not substituted.
+	 * @return true if and only if the general clause subsumes the specific clause.
+	 */
+	private static boolean subsumes(Clause general, Clause specific) {
+		boolean subsumes = (general != specific) && (general.size() <= specific.size());
+		if(subsumes) {
+			int[] values = new int[general.getVariableBound()];
+			Arrays.fill(values, UNBOUND);
+			subsumes = matchLiterals(general, 0, specific, values, new IntList());
+		}
+		return subsumes;
+	}
+
+	/**
+	 * Matches the literals of the general clause from <CODE>literal</CODE> onwards with literals of the specific clause, 
+	 * backtracking over the choices of the specific literals.
+	 * @param general the subsuming clause.
+	 * @param literal the index of the next literal of the general clause.
+	 * @param specific the subsumed clause.
+	 * @param values the values of the variables of the general clause.
+	 * @param trail the variables bound so far, in order.
+	 * @return true if and only if the remaining literals can be matched.
+	 */
+	private static boolean matchLiterals(Clause general, int literal, Clause specific, int[] values, IntList trail) {
+		boolean isMatch = (literal == general.size());
+		for(int target = 0; !isMatch && (target < specific.size()); target++) {
+			if( (specific.getHeader(target) == general.getHeader(literal)) && (specific.getArity(target) == general.getArity(literal)) ) {
+				int mark = trail.size();
+				isMatch = matchLiteral(general, literal, specific, target, values, trail) 
+						&& matchLiterals(general, literal + 1, specific, values, trail);
+				if(!isMatch) {
+					for(int idx = trail.size() - 1; idx >= mark; idx--) {
+						values[trail.get(idx)] = UNBOUND;
+					}
+					trail.truncate(mark);
+				}
+			}
+		}
+		return isMatch;
+	}
+
+	/**
+	 * Matches the arguments of the general literal with the ones of the specific literal, binding the variables of the general literal only.
+	 * @param general the subsuming clause.
+	 * @param literal the index of the literal of the general clause.
+	 * @param specific the subsumed clause.
+	 * @param target the index of the literal of the specific clause.
+	 * @param values the values of the variables of the general clause.
+	 * @param trail the variables bound so far, in order.
+	 * @return true if and only if the general literal matches the specific literal.
+	 */
+	private static boolean matchLiteral(Clause general, int literal, Clause specific, int target, int[] values, IntList trail) {
+		boolean isMatch = true;
+		for(int argument = 0; isMatch && (argument < general.getArity(literal)); argument++) {
+			int term = general.getArgument(literal, argument);
+			int value = specific.getArgument(target, argument);
+			if(SymbolTable.isVariable(term)) {
+				int variable = SymbolTable.variableId(term);
+				if(values[variable] == UNBOUND) {
+					values[variable] = value;
+					trail.add(variable);
+				}
+				else {
+					isMatch = values[variable] == value;
+				}
+			}
+			else {
+				isMatch = term == value;
+			}
+		}
+		return isMatch;
+	}
+}
+
+/**
+ * Class representing the inference engine/agent.
+ * @author pachpandenikhil
+ *
+ */
+class Agent {
+	private CNFConverter cnfConverter;
+	private KnowledgeBase KB;
+	private int orParallelDepth;
+	private ResolutionTable table;
+	private AtomicLong querySequence;
+	private long sentenceSequence;
+	private QueryBudget budget;
+	private boolean iterativeDeepening;
+	private Engine engine;
+	private Materialization materialization;
+	private boolean materializationStale;
+	private Saturation saturation;
+	private LiteralSelection literalSelection;
+	private SearchStrategy searchStrategy;
+	private ClauseCost clauseCost;
+	private PredicateStatistics statistics;
+
+	public Agent() {
+		KB = new KnowledgeBase();
+		cnfConverter = new CNFConverter();
+		orParallelDepth = 0;
+		table = null;
+		querySequence = new AtomicLong();
+		sentenceSequence = 0;
+		budget = QueryBudget.unlimited();
+		iterativeDeepening = false;
+		engine = Engine.RESOLUTION;
+		materialization = null;
+		materializationStale = true;
+		saturation = null;
+		literalSelection = LiteralSelection.FIRST;
+		searchStrategy = SearchStrategy.DEPTH_FIRST;
+		clauseCost = ClauseCost.LENGTH;
+		statistics = new PredicateStatistics();
+	}
+	
+	/**
+	 * Sets the strategy searching the resolvents of the queries.
+	 * @param searchStrategy the search strategy, see {@link SearchStrategy}.
+	 */
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		this.searchStrategy = searchStrategy;
+	}
+	
+	/**
+	 * Sets the cost ordering the open resolvents of the best-first search.
+	 * @param clauseCost the clause cost, see {@link ClauseCost}.
+	 */
+	public void setClauseCost(ClauseCost clauseCost) {
+		this.clauseCost = clauseCost;
+	}
+	
+	/**
+	 * Sets the strategy selecting the literal of each goal to be resolved upon.
+	 * @param literalSelection the literal selection strategy, see {@link LiteralSelection}.
+	 */
+	public void setLiteralSelection(LiteralSelection literalSelection) {
+		this.literalSelection = literalSelection;
+	}
+	
+	/**
+	 * Sets the inference engine answering the queries.
+	 * @param engine the inference engine, see {@link Engine}.
+	 */
+	public void setEngine(Engine engine) {
+		this.engine = engine;
+	}
+	
+	/**
+	 * Enables the iterative deepening of the search, finding the shallow proofs first.<BR>
+	 * The proof tree is searched up to a depth bound which is doubled until the query is refuted or the search is no longer cut off.
+	 * @param iterativeDeepening true to enable the iterative deepening.
+	 */
+	public void setIterativeDeepening(boolean iterativeDeepening) {
+		this.iterativeDeepening = iterativeDeepening;
+	}
+	
+	/**
+	 * Sets the resource budget every query starts with.
+	 * @param budget the limits of the budget, see {@link QueryBudget}.
+	 */
+	public void setBudget(QueryBudget budget) {
+		this.budget = budget;
+	}
+	
+	/**
+	 * Sets the maximum number of resolved goals recorded in the table shared across queries.
+	 * @param tableSize the maximum number of table entries, 0 to disable the tabled resolution.
+	 */
+	public void setTableSize(int tableSize) {
+		table = (tableSize > 0) ? new ResolutionTable(tableSize) : null;
+	}
+	
+	/**
+	 * Sets the number of levels of the proof tree whose alternative unifiers are explored in parallel.
+	 * @param orParallelDepth the number of levels, 0 to disable the or-parallel resolution.
+	 */
+	public void setOrParallelDepth(int orParallelDepth) {
+		this.orParallelDepth = orParallelDepth;
+	}
+	
+	/**
+	 * Enables the definitional(Tseitin) CNF conversion of the facts told afterwards.
+	 * @param definitionalCNF true to enable the definitional CNF conversion.
+	 */
+	public void setDefinitionalCNF(boolean definitionalCNF) {
+		cnfConverter.setDefinitional(definitionalCNF);
+	}
+	
+	/**
+	 * Adds the FOL fact/sentence to the knowledge base.
+	 * @param fact the FOL fact.
+	 * @return true if and only if the fact was successfully added. 
+	 */
+	public boolean tell(String fact) {
+		boolean retVal = false;
+		if(fact != null) {
+			List<Clause> storedClauses = new ArrayList<>();
+			retVal = KB.store(cnfConverter.convertToCNF(fact, sentenceSequence++), storedClauses);
+			if(table != null) {
+				table.invalidate();
+			}
+			updateMaterialization(storedClauses, true);
+			invalidateSaturation();
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Removes the FOL fact/sentence from the knowledge base.<BR>
+	 * Each clause of the fact removes the most recently stored variant of it, and nothing is removed unless every clause 
+	 * is found. The facts told with the definitional CNF conversion therefore cannot be retracted once they introduce 
+	 * definitions, as the definitions are named after the sentence.
+	 * @param fact the FOL fact.
+	 * @return true if and only if every clause of the fact was found and removed.
+	 */
+	public boolean retract(String fact) {
+		boolean retVal = false;
+		if(fact != null) {
+			List<Clause> retractedClauses = KB.retractAll(cnfConverter.convertToCNF(fact, sentenceSequence));
+			if(retractedClauses != null) {
+				retVal = true;
+				if(table != null) {
+					table.clear();
+				}
+				updateMaterialization(retractedClauses, false);
+				invalidateSaturation();
+			}
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Replaces the knowledge base by the one saved in the snapshot file.<BR>
+	 * The snapshot is memory-mapped and decoded lazily, facts told afterwards are stored on top of it.
+	 * @param file the snapshot file, see {@link #save(File)}.
+	 * @throws IOException if the snapshot cannot be read.
+	 */
+	public void load(File file) throws IOException {
+		KnowledgeBaseSnapshot snapshot = KnowledgeBaseSnapshot.open(file);
+		KB = new KnowledgeBase(snapshot);
+		sentenceSequence = snapshot.getSentenceSequence();
+		if(table != null) {
+			table.clear();
+		}
+		invalidateMaterialization();
+		invalidateSaturation();
+	}
+	
+	/**
+	 * Saves the compiled knowledge base to the snapshot file.
+	 * @param file the snapshot file.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public void save(File file) throws IOException {
+		KnowledgeBaseSnapshot.save(KB, sentenceSequence, file);
+	}
+	
+	/**
+	 * Adds the FOL facts/sentences to the knowledge base, converting them in parallel.<BR>
+	 * The facts are converted to CNF concurrently, then stored one by one in order, so the knowledge base is 
+	 * identical to the one obtained by telling the facts one by one.
+	 * @param facts the FOL facts.
+	 * @param threads the number of threads converting the facts.
+	 * @return true if and only if all the facts were successfully added.
+	 */
+	public boolean tellAll(List<String> facts, int threads) {
+		boolean retVal = false;
+		if(facts != null) {
+			retVal = true;
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			List<Clause> storedClauses = new ArrayList<>();
+			try {
+				long firstSentence = sentenceSequence;
+				sentenceSequence += facts.size();
+				List<Future<List<List<Node>>>> conversions = new ArrayList<>(facts.size());
+				for(int idx = 0; idx < facts.size(); idx++) {
+					String fact = facts.get(idx);
+					long sentence = firstSentence + idx;
+					conversions.add(executor.submit(() -> cnfConverter.convertToCNF(fact, sentence)));
+				}
+				for(Future<List<List<Node>>> conversion : conversions) {
+					retVal &= KB.store(conversion.get(), storedClauses);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				System.err.println("Interrupted while loading the knowledge base : " + e.getMessage());
+				retVal = false;
+			} catch (ExecutionException e) {
+				System.err.println("Exception occured while loading the knowledge base : " + e.getCause());
+				retVal = false;
+			}
+			finally {
+				executor.shutdownNow();
+			}
+			if(table != null) {
+				table.invalidate();
+			}
+			updateMaterialization(storedClauses, true);
+			invalidateSaturation();
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Marks the materialization of the knowledge base as out of date.
+	 */
+	private synchronized void invalidateMaterialization() {
+		materialization = null;
+		materializationStale = true;
+	}
+	
+	/**
+	 * Updates the materialization of the knowledge base, if any, with the clauses told or retracted.<BR>
+	 * A materialization failing to be updated is dropped. Telling clauses to a knowledge base which cannot be materialized 
+	 * keeps it so, whereas retracting clauses from it may make it materializable again.
+	 * @param clauses the stored clauses told or retracted.
+	 * @param told true if the clauses were told, false if they were retracted.
+	 */
+	private synchronized void updateMaterialization(List<Clause> clauses, boolean told) {
+		if(!materializationStale) {
+			if(materialization != null) {
+				if(told) {
+					//a clause which cannot be materialized makes the whole knowledge base so
+					if(!materialization.tell(clauses)) {
+						materialization = null;
+					}
+				}
+				else if(!materialization.retract(clauses)) {
+					invalidateMaterialization();
+				}
+			}
+			else if(!told) {
+				materializationStale = true;
+			}
+		}
+	}
+	
+	/**
+	 * Drops the saturation of the knowledge base, which is saturated again by the next query.
+	 */
+	private synchronized void invalidateSaturation() {
+		saturation = null;
+	}
+	
+	/**
+	 * Saturates the knowledge base within the budget of the query, resuming the saturation left by the previous queries.<BR>
+	 * The knowledge base is saturated once, its active clauses are then only read by the queries extending them.
+	 * @param queryBudget the budget of the query.
+	 * @return the saturation of the knowledge base, or null if the budget ran out first.
+	 */
+	private synchronized Saturation saturateKnowledgeBase(QueryBudget queryBudget) {
+		if(saturation == null) {
+			saturation = new Saturation(KB.createIndex());
+			saturation.addClauses(KB.getClauses());
+		}
+		return (saturation.saturate(queryBudget) != Answer.UNKNOWN) ? saturation : null;
+	}
+	
+	/**
+	 * Answers the query by saturation : the saturated knowledge base is extended by the negated query, see {@link Saturation}.<BR>
+	 * Every query is entailed by an inconsistent knowledge base.
+	 * @param queryClauses the clauses of the negated query.
+	 * @return TRUE if the query is entailed by the knowledge base, FALSE if it is not and UNKNOWN if the query ran out of its budget.
+	 */
+	private Answer saturate(List<Clause> queryClauses) {
+		Answer answer = Answer.UNKNOWN;
+		QueryBudget queryBudget = new QueryBudget(budget);
+		Saturation saturatedKB = saturateKnowledgeBase(queryBudget);
+		if( (saturatedKB != null) && saturatedKB.isRefuted() ) {
+			answer = Answer.TRUE;
+		}
+		else if(saturatedKB != null) {
+			Saturation querySaturation = new Saturation(saturatedKB.getActive().createOverlay());
+			querySaturation.addClauses(queryClauses);
+			answer = querySaturation.saturate(queryBudget);
+		}
+		return answer;
+	}
+	
+	/**
+	 * Returns the materialization of the knowledge base, materializing it first if it is out of date.
+	 * @return the materialization, or null if the knowledge base cannot be materialized, see {@link Materialization#build(KnowledgeBase)}.
+	 */
+	private synchronized Materialization getMaterialization() {
+		if(materializationStale) {
+			materialization = Materialization.build(KB);
+			materializationStale = false;
+		}
+		return materialization;
+	}
+	
+	/**
+	 * Returns the answer to the query, i.e whether it is entailed by the knowledge base, using the inference engine of the agent.
+	 * @param query the query to be verified.
+	 * @return TRUE if the query is entailed by the knowledge base, FALSE if it is not and UNKNOWN if the query ran out of its budget.
+	 */
+	public Answer ask(String query) {
+		return ask(query, engine);
+	}
+	
+	/**
+	 * Returns the answer to the query, i.e whether it is entailed by the knowledge base.<BR>
+	 * With the materialization engine, the query is answered against the materialized facts if both the knowledge base 
+	 * and the query are supported, and by resolution otherwise.<BR>
+	 * The knowledge base is only read, so queries may be asked concurrently as long as no fact is told meanwhile.
+	 * @param query the query to be verified.
+	 * @param queryEngine the inference engine answering the query.
+	 * @return TRUE if the query is entailed by the knowledge base, FALSE if it is not and UNKNOWN if the query ran out of its budget.
+	 */
+	public Answer ask(String query, Engine queryEngine) {
+		Answer answer = Answer.FALSE;
+		if(query != null) {
+			List<List<Node>> negatedQuery = cnfConverter.convertNegationToCNF(query);
+			
+			//adding the negated query to a query-scoped overlay of the KB
+			KnowledgeBase queryKB = KB.createOverlay();
+			List<Clause> queryClauses = new ArrayList<>(negatedQuery.size());
+			for(List<Node> clause : negatedQuery) {
+				queryClauses.add(queryKB.compile(clause));
+			}
+			
+			Materialization queryMaterialization = (queryEngine == Engine.MATERIALIZATION) ? getMaterialization() : null;
+			if( (queryMaterialization != null) && Materialization.canAnswer(queryClauses) ) {
+				answer = queryMaterialization.ask(queryClauses, new QueryBudget(budget));
+			}
+			else if(queryEngine == Engine.SATURATION) {
+				answer = saturate(queryClauses);
+			}
+			else {
+				queryKB.store(negatedQuery);
+				answer = resolve(queryClauses.get(0), queryKB);
+			}
+		}
+		
+		return answer;
+	}
+	
+	/**
+	 * Answers the query by refuting its negation with the resolution engine.
+	 * @param lQuery the first clause of the negated query.
+	 * @param queryKB the query-scoped overlay of the knowledge base holding the negated query.
+	 * @return TRUE if the query is entailed by the knowledge base, FALSE if it is not and UNKNOWN if the query ran out of its budget.
+	 */
+	private Answer resolve(Clause lQuery, KnowledgeBase queryKB) {
+		Answer answer = Answer.FALSE;
+		
+		//checking if contradiction exists
+		QueryBudget queryBudget = new QueryBudget(budget);
+		long queryId = querySequence.incrementAndGet();
+		boolean isContradiction = false;
+		if(iterativeDeepening) {
+			QueryContext context = null;
+			int depthBound = 1;
+			do {
+				context = new QueryContext(queryKB, queryId, queryBudget);
+				context.setDepthBound(depthBound);
+				isContradiction = search(lQuery, context);
+				depthBound = (depthBound > Integer.MAX_VALUE / 2) ? Integer.MAX_VALUE : 2 * depthBound;
+			} while(!isContradiction && context.isCutOff() && !queryBudget.isExhausted());
+		}
+		else {
+			isContradiction = search(lQuery, new QueryContext(queryKB, queryId, queryBudget));
+		}
+		
+		if(isContradiction) {
+			answer = Answer.TRUE;
+		}
+		else if(!queryBudget.isComplete()) {
+			answer = Answer.UNKNOWN;
+		}
+		return answer;
+	}
+	
+	/**
+	 * Searches for a refutation of the query with the search strategy, exploring the alternatives of the first levels 
+	 * of the depth-first search in parallel if enabled.
+	 * @param query the negated query as a clause.
+	 * @param context the state of the query.
+	 * @return true, if contradiction exists for the query.
+	 */
+	private boolean search(Clause query, QueryContext context) {
+		boolean isContradiction = false;
+		if(searchStrategy == SearchStrategy.BEST_FIRST) {
+			isContradiction = isContradictionBestFirst(query, context);
+		}
+		else if(orParallelDepth > 0) {
+			isContradiction = ForkJoinPool.commonPool().invoke(new ResolutionTask(this, query, context, 0));
+		}
+		else {
+			isContradiction = isContradiction(query, context, 0);
+		}
+		return isContradiction;
+	}
+	
+	/**
+	 * Performs inference using Resolution algorithm.<BR>
+	 * The proof tree is searched depth-first with an explicit stack of choice points, one per goal on the resolution path, 
+	 * so the depth of the proof is not limited by the thread stack.
+	 * @param query Query as a clause
+	 * @param context the state of the query
+	 * @param depth the depth of the query in the proof tree
+	 * @return true, if contradiction exists for the query
+	 */
+	boolean isContradiction(Clause query, QueryContext context, int depth) {
+		KnowledgeBase queryKB = context.getKnowledgeBase();
+		List<ChoicePoint> choicePoints = new ArrayList<>();
+		
+		//null while the goal on top of the stack has alternatives left to try
+		Boolean isContradiction = enterGoal(query, context, depth, choicePoints);
+		while(!choicePoints.isEmpty()) {
+			ChoicePoint choicePoint = choicePoints.get(choicePoints.size() - 1);
+			if( (isContradiction == null) || !isContradiction ) {
+				Clause resolvent = nextResolvent(choicePoint, context);
+				if(resolvent != null) {
+					isContradiction = enterGoal(resolvent, context, choicePoint.getDepth() + 1, choicePoints);
+					continue;
+				}
+				isContradiction = false;
+			}
+			else if(queryKB.isOverlayClause(choicePoint.getUnifier().getClause())) {
+				context.setOverlayProof();
+			}
+			exitGoal(choicePoint, isContradiction, context);
+			choicePoints.remove(choicePoints.size() - 1);
+		}
+		return isContradiction;
+	}
+	
+	/**
+	 * Performs inference using Resolution algorithm, searching the resolvents best-first.<BR>
+	 * The open resolvents are kept in a priority queue ordered by the clause cost, and a goal is only expanded if no 
+	 * variant of it was expanded before(closed set). The search stops at the first empty resolvent. 
+	 * The resolution table is neither looked up nor updated.
+	 * @param query Query as a clause
+	 * @param context the state of the query
+	 * @return true, if contradiction exists for the query
+	 */
+	private boolean isContradictionBestFirst(Clause query, QueryContext context) {
+		boolean isContradiction = false;
+		KnowledgeBase queryKB = context.getKnowledgeBase();
+		Bindings bindings = context.getBindings();
+		QueryBudget queryBudget = context.getBudget();
+		Set<Clause> closed = new HashSet<>();
+		PriorityQueue<SearchNode> open = new PriorityQueue<>();
+		long sequence = 0;
+		open.add(new SearchNode(query, null, 0, cost(query, 0), sequence++));
+		while(!isContradiction && !open.isEmpty()) {
+			SearchNode node = open.poll();
+			int depth = node.getDepth();
+			if(!queryBudget.step(depth, depth)) {
+				if(queryBudget.isExhausted()) {
+					break;
+				}
+				continue;
+			}
+			if(depth > context.getDepthBound()) {
+				context.setCutOff();
+				continue;
+			}
+			
+			Clause goal = resolveGroundFacts(node.getGoal(), context);
+			if(goal.isEmpty()) {
+				isContradiction = true;
+				recordRefutation(node.getParent());
+				break;
+			}
+			Clause fingerprint = goal.getCanonicalForm();
+			if(!closed.add(fingerprint)) {
+				continue;
+			}
+			goal = fingerprint.select(selectLiteral(fingerprint, queryKB)).getCanonicalForm();
+			
+			node.setSelectedHeader(goal.getHeader(0));
+			if(clauseCost == ClauseCost.SUCCESS_RATE) {
+				statistics.recordAttempt(goal.getHeader(0));
+			}
+			for(StoredLiteral unifier : getUnifiers(goal, context)) {
+				int mark = bindings.mark();
+				if(canUnify(goal, unifier, context)) {
+					Clause resolvent = unify(goal, unifier, context);
+					if(resolvent.isEmpty()) {
+						isContradiction = true;
+						recordRefutation(node);
+					}
+					else {
+						open.add(new SearchNode(resolvent, node, depth + 1, cost(resolvent, depth + 1), sequence++));
+					}
+				}
+				bindings.undo(mark);
+				if(isContradiction) {
+					break;
+				}
+			}
+		}
+		return isContradiction;
+	}
+	
+	/**
+	 * Returns the cost of the resolvent, see {@link ClauseCost}.
+	 * @param resolvent the resolvent.
+	 * @param depth the depth of the resolvent in the proof tree.
+	 * @return the cost of the resolvent.
+	 */
+	private double cost(Clause resolvent, int depth) {
+		double cost = 0;
+		if(clauseCost == ClauseCost.LENGTH) {
+			cost = resolvent.size();
+		}
+		else if(clauseCost == ClauseCost.DEPTH_PLUS_LENGTH) {
+			cost = depth + resolvent.size();
+		}
+		else {
+			cost = depth;
+			for(int literal = 0; literal < resolvent.size(); literal++) {
+				cost += statistics.getExpectedExpansions(resolvent.getHeader(literal));
+			}
+		}
+		return cost;
+	}
+	
+	/**
+	 * Records the literals resolved upon along the refutation as successes, if the success rates are used.
+	 * @param node the last node expanded by the refutation.
+	 */
+	private void recordRefutation(SearchNode node) {
+		if(clauseCost == ClauseCost.SUCCESS_RATE) {
+			for(SearchNode step = node; step != null; step = step.getParent()) {
+				statistics.recordSuccess(step.getSelectedHeader());
+			}
+		}
+	}
+	
+	/**
+	 * Resolves the leading ground literals of the goal which match a unit fact by a single lookup each, as the unit 
+	 * resolvent subsumes all the others.
+	 * @param goal the goal as a clause.
+	 * @param context the state of the query.
+	 * @return the goal without the resolved literals.
+	 */
+	private Clause resolveGroundFacts(Clause goal, QueryContext context) {
+		KnowledgeBase queryKB = context.getKnowledgeBase();
+		StoredLiteral groundFact = null;
+		while( !goal.isEmpty() && goal.isGround(0) && ((groundFact = queryKB.getGroundFact(goal, 0)) != null) ) {
+			context.addLookupMask(ResolutionTable.lookupBit(goal.getHeader(0) ^ 1));
+			if(queryKB.isOverlayClause(groundFact.getClause())) {
+				context.setOverlayProof();
+			}
+			goal = goal.tail();
+		}
+		return goal;
+	}
+	
+	/**
+	 * Starts resolving the goal.<BR>
+	 * The goal is resolved at once if it is empty, tabled, already visited or out of budget. Otherwise it is marked as 
+	 * visited and a choice point holding its unifiers is pushed, unless its unifiers are explored in parallel.<BR>
+	 * The literal selected to be resolved upon is moved to the front of the goal beforehand, see {@link LiteralSelection}.
+	 * @param goal the goal as a clause.
+	 * @param context the state of the query.
+	 * @param depth the depth of the goal in the proof tree.
+	 * @param choicePoints the stack of choice points.
+	 * @return the outcome of the goal, or null if a choice point was pushed for it.
+	 */
+	private Boolean enterGoal(Clause goal, QueryContext context, int depth, List<ChoicePoint> choicePoints) {
+		if(goal.isEmpty()) {
+			return true;
+		}
+		
+		//another branch has already refuted the query
+		if(context.isRefuted()) {
+			return false;
+		}
+		
+		KnowledgeBase queryKB = context.getKnowledgeBase();
+		VisitedGoals visitedQueries = context.getVisitedGoals();
+		if(!context.getBudget().step(depth, visitedQueries.size())) {
+			return false;
+		}
+		if(depth > context.getDepthBound()) {
+			context.setCutOff();
+			return false;
+		}
+		
+		goal = resolveGroundFacts(goal, context);
+		if(goal.isEmpty()) {
+			return true;
+		}
+		
+		//the goal is kept in canonical form, so its variables are 0..n-1 and the unifiers are renamed apart by offsetting theirs by n
+		//the fingerprint keeps the order of the resolvent, so the variants of a goal are detected whichever literal is selected
+		Clause fingerprint = goal.getCanonicalForm();
+		goal = fingerprint.select(selectLiteral(fingerprint, queryKB)).getCanonicalForm();
+		if(table != null) {
+			TableEntry entry = table.lookup(fingerprint);
+			if( (entry != null) && entry.isVisibleTo(context.getQueryId(), queryKB.getOverlayMask()) ) {
+				context.addLookupMask(entry.getLookupMask());
+				return entry.isRefutable();
+			}
+		}
+		
+		if(!visitedQueries.push(fingerprint, depth)) {
+			context.addDependency(visitedQueries.getDepth(fingerprint));
+			return false;
+		}
+		
+		//tracking the goals and buckets the outcome of this goal depends on
+		ChoicePoint choicePoint = new ChoicePoint(goal, fingerprint, depth, context.getDependency(), context.getLookupMask());
+		context.resetDependencies();
+		context.addLookupMask(ResolutionTable.lookupBit(goal.getHeader(0) ^ 1));
+		
+		Boolean isContradiction = null;
+		if(negationExists(goal, context)) {
+			List<StoredLiteral> unifiers = getUnifiers(goal, context);
+			if( (depth < orParallelDepth) && (unifiers.size() > 1) ) {
+				isContradiction = isContradictionInParallel(goal, unifiers, context, depth);
+			}
+			else {
+				choicePoint.setUnifiers(unifiers);
+			}
+		}
+		else {
+			isContradiction = false;
+		}
+		
+		if(isContradiction == null) {
+			choicePoints.add(choicePoint);
+		}
+		else {
+			exitGoal(choicePoint, isContradiction, context);
+		}
+		return isContradiction;
+	}
+	
+	/**
+	 * Returns the literal of the goal to be resolved upon, according to the literal selection strategy.
+	 * @param goal the goal as a clause.
+	 * @param queryKB the knowledge base of the query.
+	 * @return the index of the selected literal.
+	 */
+	private int selectLiteral(Clause goal, KnowledgeBase queryKB) {
+		int selected = 0;
+		if( (literalSelection != LiteralSelection.FIRST) && (goal.size() > 1) ) {
+			long bestScore = Long.MIN_VALUE;
+			int bestTieBreak = -1;
+			for(int literal = 0; literal < goal.size(); literal++) {
+				long score = 0;
+				int tieBreak = 0;
+				if(literalSelection == LiteralSelection.MOST_INSTANTIATED) {
+					score = countConstants(goal, literal);
+				}
+				else if(literalSelection == LiteralSelection.FEWEST_CANDIDATES) {
+					//resolving upon a rule lengthens the goal, so the literals resolved upon unit clauses only come first
+					score = -queryKB.countCandidates(goal, literal);
+					if(queryKB.mayMatchRule(goal, literal)) {
+						score -= Integer.MAX_VALUE;
+					}
+					tieBreak = countConstants(goal, literal);
+				}
+				else if(goal.isNegative(literal)) {
+					score = 1;
+				}
+				if( (score > bestScore) || ((score == bestScore) && (tieBreak > bestTieBreak)) ) {
+					bestScore = score;
+					bestTieBreak = tieBreak;
+					selected = literal;
+				}
+			}
+		}
+		return selected;
+	}
+	
+	/**
+	 * Returns the number of constant arguments of the literal.
+	 * @param goal the goal as a clause.
+	 * @param literal the index of the literal.
+	 * @return the number of constant arguments.
+	 */
+	private static int countConstants(Clause goal, int literal) {
+		int constants = 0;
+		for(int argument = 0; argument < goal.getArity(literal); argument++) {
+			if(!SymbolTable.isVariable(goal.getArgument(literal, argument))) {
+				constants++;
+			}
+		}
+		return constants;
+	}
+	
+	/**
+	 * Returns the resolvent of the goal of the choice point with its next unifier.
+	 * @param choicePoint the choice point.
+	 * @param context the state of the query.
+	 * @return the resolvent, or null if no unifier is left or the budget is exhausted.
+	 */
+	private Clause nextResolvent(ChoicePoint choicePoint, QueryContext context) {
+		Clause unification = null;
+		Bindings bindings = context.getBindings();
+		Clause goal = choicePoint.getGoal();
+		while( (unification == null) && choicePoint.hasNextUnifier() && !context.getBudget().isExhausted() ) {
+			StoredLiteral unifier = choicePoint.nextUnifier();
+			int mark = bindings.mark();
+			if(canUnify(goal, unifier, context)) {
+				unification = unify(goal, unifier, context);
+				//debugPrint(goal, unifier, unification, context.getKnowledgeBase().getSymbols());
+			}
+			bindings.undo(mark);
+		}
+		return unification;
+	}
+	
+	/**
+	 * Finishes resolving the goal of the choice point : unmarks the goal as visited, tables its outcome and restores the
+	 * dependencies of the enclosing goal.
+	 * @param choicePoint the choice point of the goal.
+	 * @param isContradiction the outcome of the goal.
+	 * @param context the state of the query.
+	 */
+	private void exitGoal(ChoicePoint choicePoint, boolean isContradiction, QueryContext context) {
+		Clause fingerprint = choicePoint.getFingerprint();
+		context.getVisitedGoals().pop(fingerprint);
+		
+		if(table != null) {
+			if(isContradiction) {
+				if(!context.isOverlayProof()) {
+					table.storeRefutable(fingerprint);
+				}
+			}
+			else if( (context.getDependency() >= choicePoint.getDepth()) && !context.isRefuted() && !context.isCutOff() 
+					&& context.getBudget().isComplete() ) {
+				//the failure does not depend on the goals visited above this goal nor on the budget
+				table.storeNotRefutable(fingerprint, context.getLookupMask(), context.getQueryId());
+			}
+		}
+		context.addDependency(choicePoint.getOuterDependency());
+		context.addLookupMask(choicePoint.getOuterLookupMask());
+	}
+	
+	/**
+	 * Explores the resolvents of the query with each of the unifiers as parallel fork/join tasks.<BR>
+	 * Each branch works on its own copy of the visited goals, and the first branch to find a contradiction cancels the others.
+	 * @param query the query as a clause.
+	 * @param unifiers the list of possible unifiers of the query.
+	 * @param context the state of the query.
+	 * @param depth the depth of the query in the proof tree.
+	 * @return true, if contradiction exists for the query.
+	 */
+	private boolean isContradictionInParallel(Clause query, List<StoredLiteral> unifiers, QueryContext context, int depth) {
+		boolean isContradiction = false;
+		Bindings bindings = context.getBindings();
+		List<ResolutionTask> branches = new ArrayList<>();
+		List<StoredLiteral> branchUnifiers = new ArrayList<>();
+		for(StoredLiteral unifier : unifiers) {
+			int mark = bindings.mark();
+			if(canUnify(query, unifier, context)) {
+				ResolutionTask branch = new ResolutionTask(this, unify(query, unifier, context), context.fork(), depth + 1);
+				branch.fork();
+				branches.add(branch);
+				branchUnifiers.add(unifier);
+			}
+			bindings.undo(mark);
+		}
+		for(int idx = 0; idx < branches.size(); idx++) {
+			ResolutionTask branch = branches.get(idx);
+			boolean isBranchContradiction = branch.join();
+			context.mergeDependencies(branch.getContext());
+			if(isBranchContradiction) {
+				isContradiction = true;
+				context.setRefuted();
+				if(context.getKnowledgeBase().isOverlayClause(branchUnifiers.get(idx).getClause())) {
+					context.setOverlayProof();
+				}
+			}
+		}
+		return isContradiction;
+	}
+	
+	/**
+	 * Prints step by step resolution onto the console.
+	 * @param query
+	 * @param unifier
+	 * @param unification
+	 * @param symbols
+	 */
+	private void debugPrint(Clause query, StoredLiteral unifier, Clause unification, SymbolTable symbols) {
+		System.out.println(query.toString(symbols) + "\t\t" + unifier.getClause().toString(symbols) + "\n");
+		System.out.println(unification.toString(symbols) + "\n");
+		System.out.println("-----------------------------------------------------------------------------------------------------\n\n");
+		
+	}
+	
+	/**
+	 * Builds the resolvent of the query with the unifier under the current bindings.<BR>
+	 * The variables of the unifier are renamed apart from the ones of the query by the variable bound of the query. The bindings are expected to have been recorded by a successful {@link #canUnify(Clause, StoredLiteral, QueryContext)}.
+	 * @param lQuery the query on which the unification is to be performed.
+	 * @param unifier the literal of the fact with which the unification is performed.
+	 * @param context the state of the query.
+	 * @return the unified sentence.
+	 */
+	private Clause unify(Clause lQuery, StoredLiteral unifier, QueryContext context) {
+		Clause unification = null;
+		if( (lQuery != null) && (unifier != null) ) {
+			Bindings bindings = context.getBindings();
+			IntList resolventBuffer = context.getResolventBuffer();
+			resolventBuffer.clear();
+			for(int literal = 1; literal < lQuery.size(); literal++) {
+				lQuery.copyLiteral(literal, bindings, resolventBuffer);
+			}
+			Clause lUnifier = unifier.getClause();
+			int variableOffset = lQuery.getVariableBound();
+			for(int literal = 0; literal < lUnifier.size(); literal++) {
+				if(literal != unifier.getLiteral()) {
+					lUnifier.copyLiteral(literal, variableOffset, bindings, resolventBuffer);
+				}
+			}
+			unification = new Clause(resolventBuffer.toArray());
+		}
+		return unification;
+	}
+
+	/**
+	 * Determines if the sentence <CODE>lQuery</CODE> can be unified with the literal <CODE>unifier</CODE>.<BR>
+	 * The unifying bindings are left on the trail and are to be undone by the caller.
+	 * @param lQuery the sentence for unification.
+	 * @param unifier the literal to be unified with.
+	 * @param context the state of the query.
+	 * @return true if and only if the sentence <CODE>lQuery</CODE> can be unified with the literal <CODE>unifier</CODE>.
+	 */
+	private boolean canUnify(Clause lQuery, StoredLiteral unifier, QueryContext context) {
+		boolean canUnify = false;
+		if( (lQuery != null) && (unifier != null) ) {
+			canUnify = context.getBindings().unify(lQuery, 0, unifier.getClause(), unifier.getLiteral(), lQuery.getVariableBound());
+		}
+		return canUnify;
+	}
+	
+	/**
+	 * Returns the list of possible unifiers for the first literal of the query.<BR>
+	 * Only the sentences whose constants are compatible with the query literal are returned.
+	 * @param query the query to be unified.
+	 * @param context the state of the query.
+	 * @return the list of possible unifiers.
+	 */
+	private List<StoredLiteral> getUnifiers(Clause query, QueryContext context) {
+		List<StoredLiteral> unifiers = new ArrayList<>();
+		if( (query != null) && !query.isEmpty() ) {
+			unifiers = context.getKnowledgeBase().getCandidates(query, 0);
+		}
+		return unifiers;
+	}
+	
+	/**
+	 * Returns true if the knowledge base contains a sentence with the negation of the first literal of the query. 
+	 * @param query the query whose negation is to be found.
+	 * @param context the state of the query.
+	 * @return true if and only if the knowledge base contains a sentence with the negation of the query.
+	 */
+	private boolean negationExists(Clause query, QueryContext context) {
+		boolean negationExists = false;
+		if( (query != null) && !query.isEmpty() ) {
+			if(context.getKnowledgeBase().getSentenceCount(query.getPredicate(0), !query.isNegative(0)) > 0) {
+				negationExists = true;
+			}
+		}
+		return negationExists;
+	}
+}
+
+/**
+ * Class serving the tell/ask requests of the clients over a line protocol, with the knowledge base loaded once.<BR>
+ * Each request is a line <CODE>TELL sentence</CODE>, <CODE>RETRACT sentence</CODE>, <CODE>ASK query</CODE> or <CODE>QUIT</CODE>, 
+ * and gets a response line <CODE>OK</CODE>, <CODE>TRUE</CODE>, <CODE>FALSE</CODE> or <CODE>ERROR message</CODE>. 
+ * <CODE>ASK:ENGINE query</CODE> answers the query with the given inference engine instead of the one of the agent.<BR>
+ * Requests are pipelined : the queries of a client are answered in parallel while the client keeps sending requests, 
+ * and the responses are written in the order of the requests. A fact is told or retracted once the previous queries of 
+ * the client are answered, so every request sees the facts told and retracted before it.
+ * @author pachpandenikhil
+ *
+ */
+class QueryServer {
+
+	public static final String TELL_COMMAND 	= "TELL";
+	public static final String ASK_COMMAND 		= "ASK";
+	public static final String RETRACT_COMMAND 	= "RETRACT";
+	public static final String QUIT_COMMAND 	= "QUIT";
+	public static final char ENGINE_SEPARATOR 	= ':';
+	public static final String OK_RESPONSE 		= "OK";
+	public static final String ERROR_RESPONSE 	= "ERROR";
+
+	private Agent agent;
+	private ExecutorService executor;
+	private ReadWriteLock lock;
+
+	/**
+	 * Creates the server.
+	 * @param agent the agent holding the knowledge base.
+	 * @param threads the number of queries answered in parallel.
+	 */
+	public QueryServer(Agent agent, int threads) {
+		this.agent = agent;
+		executor = Executors.newFixedThreadPool(threads);
+		lock = new ReentrantReadWriteLock();
+	}
+
+	/**
+	 * Serves the clients connecting to the port of the loopback interface, until the process is stopped.
+	 * @param port the port, 0 for any free port.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public void serve(int port) throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			System.out.println("LISTENING " + serverSocket.getLocalPort());
+			System.out.flush();
+			while(true) {
+				Socket socket = serverSocket.accept();
+				Thread client = new Thread(() -> {
+					try (Socket clientSocket = socket) {
+						serve(clientSocket.getInputStream(), clientSocket.getOutputStream());
+					} catch (IOException e) {
+						System.err.println("Exception occured while serving the client : " + e.getMessage());
+					}
+				});
+				client.start();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Serves the requests read from the input stream until the end of the stream or a QUIT request.
+	 * @param input the stream of requests.
+	 * @param output the stream of responses.
+	 * @throws IOException if the requests cannot be read.
+	 */
+	public void serve(InputStream input, OutputStream output) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+		BlockingQueue<Future<String>> responses = new LinkedBlockingQueue<>();
+		Future<String> endOfRequests = CompletableFuture.completedFuture(null);
+		Thread responseWriter = new Thread(() -> writeResponses(responses, endOfRequests, writer));
+		responseWriter.start();
+		try {
+			List<Future<String>> pendingQueries = new ArrayList<>();
+			String request = null;
+			while( (request = reader.readLine()) != null ) {
+				request = request.trim();
+				if(request.isEmpty()) {
+					continue;
+				}
+				int separator = request.indexOf(' ');
+				String command = ((separator < 0) ? request : request.substring(0, separator)).toUpperCase();
+				String argument = (separator < 0) ? "" : request.substring(separator + 1).trim();
+				if(command.equals(QUIT_COMMAND)) {
+					break;
+				}
+				else if(command.equals(ASK_COMMAND) || command.startsWith(ASK_COMMAND + ENGINE_SEPARATOR)) {
+					String engineName = command.equals(ASK_COMMAND) ? null : command.substring(ASK_COMMAND.length() + 1);
+					Engine engine = (engineName != null) ? parseEngine(engineName) : null;
+					if( (engineName != null) && (engine == null) ) {
+						responses.add(CompletableFuture.completedFuture(ERROR_RESPONSE + " unknown engine " + engineName));
+					}
+					else {
+						Future<String> response = executor.submit(() -> ask(argument, engine));
+						pendingQueries.add(response);
+						responses.add(response);
+					}
+				}
+				else if(command.equals(TELL_COMMAND)) {
+					awaitAll(pendingQueries);
+					pendingQueries.clear();
+					responses.add(CompletableFuture.completedFuture(tell(argument)));
+				}
+				else if(command.equals(RETRACT_COMMAND)) {
+					awaitAll(pendingQueries);
+					pendingQueries.clear();
+					responses.add(CompletableFuture.completedFuture(retract(argument)));
+				}
+				else {
+					responses.add(CompletableFuture.completedFuture(ERROR_RESPONSE + " unknown command " + command));
+				}
+			}
+		}
+		finally {
+			responses.add(endOfRequests);
+			try {
+				responseWriter.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns the inference engine of the name.
+	 * @param name the engine name, in uppercase.
+	 * @return the engine, or null if no engine has the name.
+	 */
+	private static Engine parseEngine(String name) {
+		Engine engine = null;
+		for(Engine value : Engine.values()) {
+			if(value.name().equals(name)) {
+				engine = value;
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * Answers the query under the read lock.
+	 * @param query the query.
+	 * @param engine the inference engine answering the query, null for the engine of the agent.
+	 * @return the response to the query.
+	 */
+	private String ask(String query, Engine engine) {
+		String response = null;
+		lock.readLock().lock();
+		try {
+			response = ((engine != null) ? agent.ask(query, engine) : agent.ask(query)).toString();
+		} catch (RuntimeException e) {
+			response = ERROR_RESPONSE + " " + e.getMessage();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		return response;
+	}
+
+	/**
+	 * Tells the fact under the write lock.
+	 * @param fact the fact.
+	 * @return the response to the request.
+	 */
+	private String tell(String fact) {
+		String response = null;
+		lock.writeLock().lock();
+		try {
+			response = agent.tell(fact) ? OK_RESPONSE : ERROR_RESPONSE + " fact not added";
+		} catch (RuntimeException e) {
+			response = ERROR_RESPONSE + " " + e.getMessage();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		return response;
+	}
+
+	/**
+	 * Retracts the fact under the write lock.
+	 * @param fact the fact.
+	 * @return the response to the request.
+	 */
+	private String retract(String fact) {
+		String response = null;
+		lock.writeLock().lock();
+		try {
+			response = agent.retract(fact) ? OK_RESPONSE : ERROR_RESPONSE + " fact not found";
+		} catch (RuntimeException e) {
+			response = ERROR_RESPONSE + " " + e.getMessage();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		return response;
+	}
+
+	/**
+	 * Waits for the queries to be answered.
+	 * @param queries the pending queries.
+	 */
+	private static void awaitAll(List<Future<String>> queries) {
+		for(Future<String> query : queries) {
+			try {
+				query.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				//reported with the response of the query
+			}
+		}
+	}
+
+	/**
+	 * Writes the responses in the order of the requests, until the end of the requests.
+	 * @param responses the queue of responses.
+	 * @param endOfRequests the marker queued after the last response.
+	 * @param writer the stream of responses.
+	 */
+	private static void writeResponses(BlockingQueue<Future<String>> responses, Future<String> endOfRequests, PrintWriter writer) {
+		try {
+			Future<String> response = null;
+			while( (response = responses.take()) != endOfRequests ) {
+				String line = null;
+				try {
+					line = response.get();
+				} catch (ExecutionException e) {
+					line = ERROR_RESPONSE + " " + e.getCause();
+				}
+				writer.println(line);
+				//flushing once the responses ready so far are written
+				Future<String> nextResponse = responses.peek();
+				if( (nextResponse == null) || !nextResponse.isDone() ) {
+					writer.flush();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Stops answering the queries.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
+
+/**
+ * Class representing the command line options of the execution.<BR>
+ * <UL>
+ * <LI><CODE>-threads N</CODE> : number of queries answered in parallel, 0 for one per available processor. Defaults to 1.</LI>
+ * <LI><CODE>-or-parallel N</CODE> : number of levels of the proof tree whose alternatives are explored in parallel. Defaults to 0.</LI>
+ * <LI><CODE>-table-size N</CODE> : maximum number of resolved goals tabled across queries, 0 to disable tabling. Defaults to 0.</LI>
+ * <LI><CODE>-tseitin</CODE> : converts the facts to CNF by the definitional transformation.</LI>
+ * <LI><CODE>-load-kb FILE</CODE> : loads the knowledge base from the snapshot file before the facts are told.</LI>
+ * <LI><CODE>-save-kb FILE</CODE> : saves the knowledge base to the snapshot file once the facts are told.</LI>
+ * <LI><CODE>-server PORT</CODE> : serves the requests of the clients connecting to the port of the loopback interface, 0 for any free port.</LI>
+ * <LI><CODE>-stdin</CODE> : serves the requests read from the standard input.</LI>
+ * <LI><CODE>-max-steps N</CODE> : maximum number of resolution steps of a query, 0 for unlimited. Defaults to 0.</LI>
+ * <LI><CODE>-timeout MS</CODE> : maximum wall-clock time of a query in milliseconds, 0 for unlimited. Defaults to 0.</LI>
+ * <LI><CODE>-max-depth N</CODE> : maximum depth of the proof tree of a query, 0 for unlimited. Defaults to 0.</LI>
+ * <LI><CODE>-max-visited N</CODE> : maximum number of goals on the resolution path of a query, 0 for unlimited. Defaults to 0.</LI>
+ * <LI><CODE>-iterative-deepening</CODE> : searches the proof tree by iterative deepening.</LI>
+ * <LI><CODE>-engine NAME</CODE> : inference engine answering the queries, resolution, materialization or saturation. Defaults to resolution.</LI>
+ * <LI><CODE>-literal-selection NAME</CODE> : literal of each goal resolved upon, first, most_instantiated, fewest_candidates or negative_first. Defaults to first.</LI>
+ * <LI><CODE>-search NAME</CODE> : strategy searching the resolvents, depth_first or best_first. Defaults to depth_first.</LI>
+ * <LI><CODE>-clause-cost NAME</CODE> : cost ordering the resolvents of the best-first search, length, depth_plus_length or success_rate. Defaults to length.</LI>
+ * </UL>
+ * @author pachpandenikhil
+ *
+ */
+class ExecutionOptions {
+	public static final String THREADS_OPTION 			= "-threads";
+	public static final String OR_PARALLEL_OPTION 		= "-or-parallel";
+	public static final String TABLE_SIZE_OPTION 		= "-table-size";
+	public static final String TSEITIN_OPTION 			= "-tseitin";
+	public static final String LOAD_KB_OPTION 			= "-load-kb";
+	public static final String SAVE_KB_OPTION 			= "-save-kb";
+	public static final String SERVER_OPTION 			= "-server";
+	public static final String STDIN_OPTION 			= "-stdin";
+	public static final String MAX_STEPS_OPTION 		= "-max-steps";
+	public static final String TIMEOUT_OPTION 			= "-timeout";
+	public static final String MAX_DEPTH_OPTION 		= "-max-depth";
+	public static final String MAX_VISITED_OPTION 		= "-max-visited";
+	public static final String ITERATIVE_DEEPENING_OPTION 	= "-iterative-deepening";
+	public static final String ENGINE_OPTION 			= "-engine";
+	public static final String LITERAL_SELECTION_OPTION 	= "-literal-selection";
+	public static final String SEARCH_OPTION 			= "-search";
+	public static final String CLAUSE_COST_OPTION 		= "-clause-cost";
+
+	private int threads;
+	private int orParallelDepth;
+	private int tableSize;
+	private boolean definitionalCNF;
+	private String loadFile;
+	private String saveFile;
+	private int serverPort;
+	private boolean stdinServer;
+	private long maxSteps;
+	private long timeoutMillis;
+	private int maxDepth;
+	private int maxVisited;
+	private boolean iterativeDeepening;
+	private Engine engine;
+	private LiteralSelection literalSelection;
+	private SearchStrategy searchStrategy;
+	private ClauseCost clauseCost;
+
+	public ExecutionOptions() {
+		threads = 1;
+		orParallelDepth = 0;
+		tableSize = 0;
+		definitionalCNF = false;
+		loadFile = null;
+		saveFile = null;
+		serverPort = -1;
+		stdinServer = false;
+		maxSteps = 0;
+		timeoutMillis = 0;
+		maxDepth = 0;
+		maxVisited = 0;
+		iterativeDeepening = false;
+		engine = Engine.RESOLUTION;
+		literalSelection = LiteralSelection.FIRST;
+		searchStrategy = SearchStrategy.DEPTH_FIRST;
+		clauseCost = ClauseCost.LENGTH;
+	}
+
+	/**
+	 * Parses the command line options. Unknown options are ignored.
+	 * @param args the command line arguments, may be null.
+	 * @return the parsed options.
+	 */
+	public static ExecutionOptions parse(String[] args) {
+		ExecutionOptions options = new ExecutionOptions();
+		if(args != null) {
+			for(int idx = 0; idx < args.length; idx++) {
+				String option = args[idx];
+				boolean hasValue = (idx + 1) < args.length;
+				try {
+					if(option.equals(THREADS_OPTION) && hasValue) {
+						options.setThreads(Integer.parseInt(args[++idx]));
+					}
+					else if(option.equals(OR_PARALLEL_OPTION) && hasValue) {
+						options.setOrParallelDepth(Integer.parseInt(args[++idx]));
+					}
+					else if(option.equals(TABLE_SIZE_OPTION) && hasValue) {
+						options.setTableSize(Integer.parseInt(args[++idx]));
+					}
+					else if(option.equals(TSEITIN_OPTION)) {
+						options.setDefinitionalCNF(true);
+					}
+					else if(option.equals(LOAD_KB_OPTION) && hasValue) {
+						options.setLoadFile(args[++idx]);
+					}
+					else if(option.equals(SAVE_KB_OPTION) && hasValue) {
+						options.setSaveFile(args[++idx]);
+					}
+					else if(option.equals(SERVER_OPTION) && hasValue) {
+						options.setServerPort(Integer.parseInt(args[++idx]));
+					}
+					else if(option.equals(STDIN_OPTION)) {
+						options.setStdinServer(true);
+					}
+					else if(option.equals(MAX_STEPS_OPTION) && hasValue) {
+						options.setMaxSteps(Long.parseLong(args[++idx]));
+					}
+					else if(option.equals(TIMEOUT_OPTION) && hasValue) {
+						options.setTimeoutMillis(Long.parseLong(args[++idx]));
+					}
+					else if(option.equals(MAX_DEPTH_OPTION) && hasValue) {
+						options.setMaxDepth(Integer.parseInt(args[++idx]));
+					}
+					else if(option.equals(MAX_VISITED_OPTION) && hasValue) {
+						options.setMaxVisited(Integer.parseInt(args[++idx]));
+					}
+					else if(option.equals(ITERATIVE_DEEPENING_OPTION)) {
+						options.setIterativeDeepening(true);
+					}
+					else if(option.equals(ENGINE_OPTION) && hasValue) {
+						options.setEngine(Engine.valueOf(args[++idx].toUpperCase()));
+					}
+					else if(option.equals(LITERAL_SELECTION_OPTION) && hasValue) {
+						options.setLiteralSelection(LiteralSelection.valueOf(args[++idx].toUpperCase().replace('-', '_')));
+					}
+					else if(option.equals(SEARCH_OPTION) && hasValue) {
+						options.setSearchStrategy(SearchStrategy.valueOf(args[++idx].toUpperCase().replace('-', '_')));
+					}
+					else if(option.equals(CLAUSE_COST_OPTION) && hasValue) {
+						options.setClauseCost(ClauseCost.valueOf(args[++idx].toUpperCase().replace('-', '_')));
+					}
+				} catch (NumberFormatException e) {
+					System.err.println("Invalid value for option " + option + " : " + e.getMessage());
+				} catch (IllegalArgumentException e) {
+					System.err.println("Invalid value for option " + option + " : " + e.getMessage());
+				}
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Returns the number of queries answered in parallel.
+	 * @return the number of threads, at least 1.
+	 */
+	public int getThreads() {
+		return (threads <= 0) ? Runtime.getRuntime().availableProcessors() : threads;
+	}
+
+	/**
+	 * Sets the number of queries answered in parallel.
+	 * @param threads the number of threads, 0 for one per available processor.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Returns the number of levels of the proof tree whose alternatives are explored in parallel.
+	 * @return the number of levels, 0 if the or-parallel resolution is disabled.
+	 */
+	public int getOrParallelDepth() {
+		return orParallelDepth;
+	}
+
+	/**
+	 * Sets the number of levels of the proof tree whose alternatives are explored in parallel.
+	 * @param orParallelDepth the number of levels, 0 to disable the or-parallel resolution.
+	 */
+	public void setOrParallelDepth(int orParallelDepth) {
+		this.orParallelDepth = orParallelDepth;
+	}
+
+	/**
+	 * Returns the maximum number of resolved goals tabled across queries.
+	 * @return the table size, 0 if tabling is disabled.
+	 */
+	public int getTableSize() {
+		return tableSize;
+	}
+
+	/**
+	 * Sets the maximum number of resolved goals tabled across queries.
+	 * @param tableSize the table size, 0 to disable tabling.
+	 */
+	public void setTableSize(int tableSize) {
+		this.tableSize = tableSize;
+	}
+
+	/**
+	 * Returns true if the facts are converted to CNF by the definitional(Tseitin) transformation.
+	 * @return true if and only if the definitional CNF conversion is enabled.
+	 */
+	public boolean isDefinitionalCNF() {
+		return definitionalCNF;
+	}
+
+	/**
+	 * Enables the definitional(Tseitin) CNF conversion of the facts.
+	 * @param definitionalCNF true to enable the definitional CNF conversion.
+	 */
+	public void setDefinitionalCNF(boolean definitionalCNF) {
+		this.definitionalCNF = definitionalCNF;
+	}
+
+	/**
+	 * Returns the snapshot file the knowledge base is loaded from before the facts are told.
+	 * @return the snapshot file path, null if no snapshot is loaded.
+	 */
+	public String getLoadFile() {
+		return loadFile;
+	}
+
+	/**
+	 * Sets the snapshot file the knowledge base is loaded from before the facts are told.
+	 * @param loadFile the snapshot file path, null to start from an empty knowledge base.
+	 */
+	public void setLoadFile(String loadFile) {
+		this.loadFile = loadFile;
+	}
+
+	/**
+	 * Returns the snapshot file the knowledge base is saved to once the facts are told.
+	 * @return the snapshot file path, null if the knowledge base is not saved.
+	 */
+	public String getSaveFile() {
+		return saveFile;
+	}
+
+	/**
+	 * Sets the snapshot file the knowledge base is saved to once the facts are told.
+	 * @param saveFile the snapshot file path, null to not save the knowledge base.
+	 */
+	public void setSaveFile(String saveFile) {
+		this.saveFile = saveFile;
+	}
+
+	/**
+	 * Returns the port of the loopback interface the requests are served on.
+	 * @return the port, 0 for any free port, negative if the requests are not served over TCP.
+	 */
+	public int getServerPort() {
+		return serverPort;
+	}
+
+	/**
+	 * Sets the port of the loopback interface the requests are served on.
+	 * @param serverPort the port, 0 for any free port, negative to not serve the requests over TCP.
+	 */
+	public void setServerPort(int serverPort) {
+		this.serverPort = serverPort;
+	}
 
-			negateTree(node.left);
-			negateTree(node.right);
-		}
+	/**
+	 * Returns true if the requests are served from the standard input.
+	 * @return true if and only if the requests are served from the standard input.
+	 */
+	public boolean isStdinServer() {
+		return stdinServer;
 	}
 
 	/**
-	 * Replaces implication operators in the expression tree with the corresponding logic sentence.
-	 * @param node the root node of the expression tree.
+	 * Sets whether the requests are served from the standard input.
+	 * @param stdinServer true to serve the requests from the standard input.
 	 */
-	private void replaceImplications(Node node) {
-		if(node != null) {
-			replaceImplications(node.left);
-			replaceImplications(node.right); 
-			if(node.isImpliesOperator()) {
-				node.value = Operator.OR + "";
-				Node negationNode = new Node(Operator.NEGATE + "");
-				negationNode.right = node.left;
-				node.left = negationNode;
-			}
-		}
+	public void setStdinServer(boolean stdinServer) {
+		this.stdinServer = stdinServer;
 	}
-}
 
-/**
- * Class representing the inference engine/agent.
- * @author pachpandenikhil
- *
- */
-class Agent {
-	private CNFConverter cnfConverter;
-	private KnowledgeBase KB;
+	/**
+	 * Returns true if the requests are served instead of answering the queries of the input file.
+	 * @return true if and only if the server mode is enabled.
+	 */
+	public boolean isServer() {
+		return stdinServer || (serverPort >= 0);
+	}
 
-	public Agent() {
-		KB = new KnowledgeBase();
-		cnfConverter = new CNFConverter();
+	/**
+	 * Returns the maximum number of resolution steps of a query.
+	 * @return the maximum number of steps, 0 for unlimited.
+	 */
+	public long getMaxSteps() {
+		return maxSteps;
 	}
-	
+
 	/**
-	 * Adds the FOL fact/sentence to the knowledge base.
-	 * @param fact the FOL fact.
-	 * @return true if and only if the fact was successfully added. 
+	 * Sets the maximum number of resolution steps of a query.
+	 * @param maxSteps the maximum number of steps, 0 for unlimited.
 	 */
-	public boolean tell(String fact) {
-		boolean retVal = false;
-		if(fact != null) {
-			fact = cnfConverter.convertToCNF(fact);
-			retVal = KB.store(fact);
-		}
-		return retVal;
+	public void setMaxSteps(long maxSteps) {
+		this.maxSteps = maxSteps;
 	}
-	
+
 	/**
-	 * Returns true if the query is entailed by the knowledge base.
-	 * @param query the query to be verified.
-	 * @return true if and only if the query is entailed by the knowledge base.
+	 * Returns the maximum wall-clock time of a query.
+	 * @return the timeout in milliseconds, 0 for unlimited.
 	 */
-	public boolean ask(String query) {
-		boolean retVal = false;
-		if(query != null) {
-			List<String> lQuery = new ArrayList<>();
-			query = cnfConverter.preProcessInput(query);
-			query = negateQuery(query);
-			lQuery.add(query);
-			
-			//adding the negated query to the KB
-			tell(query);
-			
-			//checking if contradiction exists
-			List<String> visitedGoals = new ArrayList<>();
-			retVal = isContradiction(lQuery, visitedGoals);
-			
-			//removing the added fact
-			KB.remove(query);
-		}
-		
-		return retVal;
+	public long getTimeoutMillis() {
+		return timeoutMillis;
 	}
-	
+
 	/**
-	 * Returns the negation of the query.
-	 * @param query the query to be negated.
-	 * @return the negation of the query.
+	 * Sets the maximum wall-clock time of a query.
+	 * @param timeoutMillis the timeout in milliseconds, 0 for unlimited.
 	 */
-	private String negateQuery(String query) {
-		String negatedQuery = "";
-		if(query != null) {
-			if(KB.isNegativePredicate(query)) {
-				negatedQuery = query.substring(1, query.length());
-			}
-			else {
-				negatedQuery = Operator.NEGATE + query;
-			}
-		}
-		return negatedQuery;
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
 	}
 
 	/**
-	 * Performs inference using Resolution algorithm
-	 * @param query Query as a list
-	 * @param visitedQueries Sub-queries formed so far
-	 * @return true, if contradiction exists for the query
+	 * Returns the maximum depth of the proof tree of a query.
+	 * @return the maximum depth, 0 for unlimited.
 	 */
-	private boolean isContradiction(List<String> query, List<String> visitedQueries) {
-		boolean isContradiction = false;
-		
-		if(query.size() == 0) {
-			return true;
-		}
-		
-		if(isQueryVisited(query, visitedQueries)) {
-			return false;
-		}
-		else {
-			visitedQueries.add(getQuery(query));
-		}
-		
-		if(negationExists(query.get(0))) {
-			List<List<String>> unifiers = getUnifiers(query.get(0));
-			for(List<String> unifier : unifiers) {
-				if(canUnify(query, unifier)) {
-					List<String> unification = unify(query, unifier);
-					//debugPrint(query, unifier, unification);					
-					isContradiction = isContradiction(unification, visitedQueries);
-					if(isContradiction) {
-						break;
-					}
-					else {
-						visitedQueries.remove(getQuery(unification));
-					}
-				}
-			}
-		}
-		return isContradiction;
+	public int getMaxDepth() {
+		return maxDepth;
 	}
-	
+
 	/**
-	 * Prints step by step resolution onto the console.
-	 * @param query
-	 * @param unifier
-	 * @param unification
+	 * Sets the maximum depth of the proof tree of a query.
+	 * @param maxDepth the maximum depth, 0 for unlimited.
 	 */
-	private void debugPrint(List<String> query, List<String> unifier, List<String> unification) {
-		System.out.println(getQuery(query) + "\t\t" + getQuery(unifier) + "\n");
-		System.out.println(getQuery(unification) + "\n");
-		System.out.println("-----------------------------------------------------------------------------------------------------\n\n");
-		
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
 	}
-	
+
 	/**
-	 * Returns true if the query <CODE>query</CODE> has already been visited during the process of resolution.
-	 * @param query the list representing the query to be verified.
-	 * @param visitedQueries the list of queries visited so far.
-	 * @return true if and only if the query has already been visited during the process of resolution.
+	 * Returns the maximum number of goals on the resolution path of a query.
+	 * @return the maximum number of visited goals, 0 for unlimited.
 	 */
-	private boolean isQueryVisited(List<String> query, List<String> visitedQueries) {
-		boolean isVisited = false;
-		if( (query != null) && (visitedQueries != null) ) {
-			for(String visitedQuery : visitedQueries) {
-				if(visitedQuery.equalsIgnoreCase(getQuery(query))) {
-					isVisited = true;
-					break;
-				}
-			}
-		}
-		return isVisited;
+	public int getMaxVisited() {
+		return maxVisited;
 	}
-	
+
 	/**
-	 * Returns the string representation of the query in the list form.
-	 * @param lQuery the list containing query predicates.
-	 * @return the string representation of the query in the list form.
+	 * Sets the maximum number of goals on the resolution path of a query.
+	 * @param maxVisited the maximum number of visited goals, 0 for unlimited.
 	 */
-	public static String getQuery(List<String> lQuery) {
-		String query = "";
-		if(lQuery != null) {
-			for(String predicate : lQuery) {
-				query += predicate;
-				query += Operator.OR + "";
-			}
-			if(query.isEmpty()) {
-				query = "<<EMPTY>>";
-			}
-			else {
-				query = query.substring(0, query.length()-1);
-			}
-			
-		}
-		return query;
+	public void setMaxVisited(int maxVisited) {
+		this.maxVisited = maxVisited;
 	}
-	
+
 	/**
-	 * Performs unification of two sentences.
-	 * @param lQuery the query on which the unification is to be performed.
-	 * @param lUnifier the fact with which the unification is performed.
-	 * @return the unified sentence.
+	 * Returns true if the proof tree is searched by iterative deepening.
+	 * @return true if and only if the iterative deepening is enabled.
 	 */
-	private List<String> unify(List<String> lQuery, List<String> lUnifier) {
-		List<String> unification = null;
-		if( (lQuery != null) && (lUnifier != null) ) {
-			unification = new ArrayList<>();
-			String query = lQuery.get(0);
-			String negatedQuery = negateQuery(query);
-			//Removing arguments
-			negatedQuery = negatedQuery.substring(0, negatedQuery.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			String unifier = null;
-			for(String predicate : lUnifier) {
-				if(predicate.startsWith(negatedQuery)) {
-					unifier = predicate;
-					break;
-				}
-			}
-			
-			String queryArguments = query.substring(query.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			String unifierArguments = unifier.substring(unifier.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			List<String> queryArgs = KB.getArguments(queryArguments);
-			List<String> unifierArgs = KB.getArguments(unifierArguments);
-			Map<String, String> substitution = getSubstitution(queryArgs, unifierArgs);
-			
-			if(substitution != null) {
-				unification.addAll(lQuery);
-				unification.addAll(lUnifier);
-				unification.remove(query);
-				unification.remove(unifier);
-				
-				unification = substitute(unification, substitution);
-			}
-			
-			
-		}
-		return unification;
+	public boolean isIterativeDeepening() {
+		return iterativeDeepening;
 	}
-	
+
 	/**
-	 * Substitutes the variables in the query/fact with the substitution map. 
-	 * @param query the query/fact for substitution.
-	 * @param substitution the map containing the substitution parameters.
-	 * @return the query after substitution.
+	 * Enables the iterative deepening of the search.
+	 * @param iterativeDeepening true to enable the iterative deepening.
 	 */
-	private List<String> substitute(List<String> query, Map<String, String> substitution) {
-		List<String> updatedQuery = new ArrayList<>();
-		
-		if( (query != null) & (substitution != null) ) {
-			for(String predicate : query) {
-				
-				Map<String, String> replacementMap = new HashMap<>();
-				String argumentsRegEx = "\\[(.*?)\\]";
-				Pattern pattern = Pattern.compile(argumentsRegEx);
-				Matcher matcher = pattern.matcher(predicate);
-
-				while (matcher.find()) {
-					String group = matcher.group();
-					String groupReplacement = Operator.PREDICATE_LEFT_PARENTHESIS + "";
-					List<String> args = KB.getArguments(group);
-					for(String arg : args) {
-						if(substitution.containsKey(arg)) {
-							groupReplacement += substitution.get(arg);
-							groupReplacement += ",";
-						}
-						else {
-							groupReplacement += arg;
-							groupReplacement += ",";
-						}
-					}
-					
-					groupReplacement = groupReplacement.substring(0, groupReplacement.length()-1);
-					groupReplacement += Operator.PREDICATE_RIGHT_PARENTHESIS + "";
-					group = group.replaceAll("\\[", "\\\\[");
-					group = group.replaceAll("\\]", "\\\\]");
-					
-					groupReplacement = groupReplacement.replaceAll("\\[", "\\\\[");
-					groupReplacement = groupReplacement.replaceAll("\\]", "\\\\]");
-					
-					
-					replacementMap.put(group, groupReplacement);
-				}
+	public void setIterativeDeepening(boolean iterativeDeepening) {
+		this.iterativeDeepening = iterativeDeepening;
+	}
 
-				//Replacing all the arguments
-				for (Map.Entry<String, String> entry : replacementMap.entrySet()) {
-					String originalGroup = entry.getKey();
-					String replacementGroup = entry.getValue();
-					predicate = predicate.replaceAll(originalGroup, replacementGroup);
-				}
-				updatedQuery.add(predicate);
-			}
-		}
-		return updatedQuery;
+	/**
+	 * Returns the inference engine answering the queries.
+	 * @return the inference engine.
+	 */
+	public Engine getEngine() {
+		return engine;
 	}
 
 	/**
-	 * Determines if the sentence <CODE>lQuery</CODE> can be unified with the sentence <CODE>lUnifier</CODE>.
-	 * @param lQuery the sentence for unification.
-	 * @param lUnifier the sentence to be unified with.
-	 * @return true if and only if the sentence <CODE>lQuery</CODE> can be unified with the sentence <CODE>lUnifier</CODE>.
+	 * Sets the inference engine answering the queries.
+	 * @param engine the inference engine.
 	 */
-	private boolean canUnify(List<String> lQuery, List<String> lUnifier) {
-		boolean canUnify = false;
-		if( (lQuery != null) && (lUnifier != null) ) {
-			String query = lQuery.get(0);
-			String negatedQuery = negateQuery(query);
-			//Removing arguments
-			negatedQuery = negatedQuery.substring(0, negatedQuery.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			String unifier = null;
-			for(String predicate : lUnifier) {
-				if(predicate.startsWith(negatedQuery)) {
-					unifier = predicate;
-					break;
-				}
-			}
-			if(unifier != null) {
-				//Checking if both the predicates have same number of arguments
-				if(isArgumentsCompatible(query, unifier)) {
-					canUnify = true;
-				}
-			}
-		}
-		return canUnify;
+	public void setEngine(Engine engine) {
+		this.engine = engine;
 	}
-	
+
 	/**
-	 * Returns true if the argument types of the query are compatible with the unifier.
-	 * @param query the sentence for unification.
-	 * @param unifier the sentence to be unified with.
-	 * @return true if and only if the argument types of the query are compatible with the unifier.
+	 * Returns the strategy selecting the literal of each goal to be resolved upon.
+	 * @return the literal selection strategy.
 	 */
-	private boolean isArgumentsCompatible(String query, String unifier) {
-		boolean isCompatible = false;
-		if( (query != null) && (unifier != null) ) {
-			
-			//Checking if the number of arguments is same for both 
-			String queryArguments = query.substring(query.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			String unifierArguments = unifier.substring(unifier.indexOf(Operator.PREDICATE_LEFT_PARENTHESIS));
-			List<String> queryArgs = KB.getArguments(queryArguments);
-			List<String> unifierArgs = KB.getArguments(unifierArguments);
-			if(queryArgs.size() == unifierArgs.size()) {
-				
-				//Checking if each argument type is compatible with the other
-				if(isArgumentTypesCompatible(queryArgs, unifierArgs)) {
-					
-					//Checking if the number of distinct arguments is same for both
-					Set<String> distinctQueryArgs = new HashSet<>(queryArgs);
-					Set<String> distinctUnifierArgs = new HashSet<>(unifierArgs);
-					if(distinctQueryArgs.size() == distinctUnifierArgs.size()) {
-						
-						//Checking if successful substitution exists for the argument variables
-						if(canSubstitute(queryArgs, unifierArgs)) {
-							isCompatible = true;
-						}
-					}
-				}
-			}
-			
-		}
-		return isCompatible;
+	public LiteralSelection getLiteralSelection() {
+		return literalSelection;
 	}
-	
+
 	/**
-	 * Returns true if the query arguments can be substituted with unifier arguments.  
-	 * 
-	 * @param queryArgs the list of query arguments.
-	 * @param unifierArgs the list of unifier arguments.
-	 * @return true if and only if the query arguments can be substituted with unifier arguments.
+	 * Sets the strategy selecting the literal of each goal to be resolved upon.
+	 * @param literalSelection the literal selection strategy.
 	 */
-	private boolean canSubstitute(List<String> queryArgs, List<String> unifierArgs) {
-		boolean canSubstitute = true;
-		if( (queryArgs != null) && (unifierArgs != null) ) {
-			Map<String, String> substitution = getSubstitution(queryArgs, unifierArgs);
-			if(substitution == null) {
-				canSubstitute = false;
-			}
-		}
-		return canSubstitute;
+	public void setLiteralSelection(LiteralSelection literalSelection) {
+		this.literalSelection = literalSelection;
 	}
-	
+
 	/**
-	 * Returns the substitution map for query arguments with unifier arguments. 
-	 * @param queryArgs the list of query arguments.
-	 * @param unifierArgs the list of unifier arguments.
-	 * @return the substitution map for query arguments with unifier arguments.
+	 * Returns the strategy searching the resolvents of the queries.
+	 * @return the search strategy.
 	 */
-	private Map<String, String> getSubstitution(List<String> queryArgs, List<String> unifierArgs) {
-		Map<String, String> substitution = null;
-		if( (queryArgs != null) && (unifierArgs != null) ) { 
-			substitution = new LinkedHashMap<>();
-			for (int idx = 0; idx < unifierArgs.size(); idx++) {
-				String unifierArg = unifierArgs.get(idx);
-				String queryArg = queryArgs.get(idx);
-				if(!substitution.containsKey(unifierArg)) {
-					if(KB.getArgumentType(unifierArg).equalsIgnoreCase(KnowledgeBase.ARG_TYPE_VARIABLE)) {
-						substitution.put(unifierArg, queryArg);
-					}
-					else {
-						substitution.put(queryArg, unifierArg);
-					}
-				}
-				else {
-					//checking if the previously added substitution is the same as the new value
-					String previousSubstituion = substitution.get(unifierArg);
-					if(!previousSubstituion.equalsIgnoreCase(queryArg)) {
-						substitution = null;
-						break;
-					}
-				}
-			}
-		}
-		
-		return substitution;
+	public SearchStrategy getSearchStrategy() {
+		return searchStrategy;
 	}
-	
+
 	/**
-	 * Determines if the query argument types are compatible with unifier argument types.
-	 * @param queryArgs the list of query arguments.
-	 * @param unifierArgs the list of unifier arguments.
-	 * @return true if and only if the query argument types are compatible with unifier argument types. 
+	 * Sets the strategy searching the resolvents of the queries.
+	 * @param searchStrategy the search strategy.
 	 */
-	private boolean isArgumentTypesCompatible(List<String> queryArgs, List<String> unifierArgs) {
-		boolean isCompatible = false;
-		if( (queryArgs != null) && (unifierArgs != null) ) {
-			isCompatible = true;
-			
-			for (int idx = 0; idx < queryArgs.size(); idx++) {
-				String queryArg = queryArgs.get(idx);
-				String unifierArg = unifierArgs.get(idx);
-				String queryArgType = KB.getArgumentType(queryArg);
-				String unifierArgType = KB.getArgumentType(unifierArg);
-				
-				if( (queryArgType.equalsIgnoreCase(KnowledgeBase.ARG_TYPE_CONSTANT)) && (unifierArgType.equalsIgnoreCase(KnowledgeBase.ARG_TYPE_CONSTANT)) ) {
-					if(!queryArg.equalsIgnoreCase(unifierArg)) {
-						isCompatible = false;
-						break;
-					}
-				}
-			}
-			
-		}
-		return isCompatible;
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		this.searchStrategy = searchStrategy;
 	}
-	
+
 	/**
-	 * Returns the list of possible unifiers for the query.
-	 * @param query the query to be unified.
-	 * @return the list of possible unifiers.
+	 * Returns the cost ordering the open resolvents of the best-first search.
+	 * @return the clause cost.
 	 */
-	private List<List<String>> getUnifiers(String query) {
-		List<List<String>> unifiers = new ArrayList<>();
-		if(query != null) {
-			String name = KB.getPredicateName(query);
-			if(KB.predicateExists(name)) {
-				Map<String, List<List<String>>> sentenceMap = KB.getPredicateSentenceMap(name);
-				if(sentenceMap != null) {
-					if(KB.isNegativePredicate(query)) {
-						unifiers = sentenceMap.get(KnowledgeBase.POSITIVE_SENTENCE_KEY);
-					}
-					else {
-						unifiers = sentenceMap.get(KnowledgeBase.NEGATIVE_SENTENCE_KEY);
-					}
-				}
-			}
-		}
-		return unifiers;
+	public ClauseCost getClauseCost() {
+		return clauseCost;
 	}
-	
+
 	/**
-	 * Returns true if the knowledge base contains a sentence with the negation of the query. 
-	 * @param query the query whose negation is to be found.
-	 * @return true if and only if the knowledge base contains a sentence with the negation of the query.
+	 * Sets the cost ordering the open resolvents of the best-first search.
+	 * @param clauseCost the clause cost.
 	 */
-	private boolean negationExists(String query) {
-		boolean negationExists = false;
-		if(query != null) {
-			List<List<String>> unifiers = getUnifiers(query);
-			if( (unifiers != null) && (unifiers.size() > 0) ) {
-				negationExists = true;
-			}
-		}
-		return negationExists;
+	public void setClauseCost(ClauseCost clauseCost) {
+		this.clauseCost = clauseCost;
+	}
+
+	/**
+	 * Returns the budget limits of the queries.
+	 * @return the budget limits.
+	 */
+	public QueryBudget getBudget() {
+		return new QueryBudget(maxSteps, timeoutMillis, maxDepth, maxVisited);
 	}
 }
 
@@ -1369,11 +6945,26 @@ public class homework {
 	private List<String> inputFacts;
 	private List<String> queries;
 	private Agent agent;
+	private ExecutionOptions options;
 
 	public homework() {
+		this(new ExecutionOptions());
+	}
+
+	public homework(ExecutionOptions options) {
 		inputFacts = new ArrayList<>();
 		queries = new ArrayList<>();
 		agent = new Agent();
+		agent.setOrParallelDepth(options.getOrParallelDepth());
+		agent.setTableSize(options.getTableSize());
+		agent.setDefinitionalCNF(options.isDefinitionalCNF());
+		agent.setBudget(options.getBudget());
+		agent.setIterativeDeepening(options.isIterativeDeepening());
+		agent.setEngine(options.getEngine());
+		agent.setLiteralSelection(options.getLiteralSelection());
+		agent.setSearchStrategy(options.getSearchStrategy());
+		agent.setClauseCost(options.getClauseCost());
+		this.options = options;
 	}
 
 	/**
@@ -1424,13 +7015,65 @@ public class homework {
 
 	}
 
+	/**
+	 * Loads the knowledge base from the snapshot file, if any.
+	 */
+	private void loadKnowledgeBase() {
+		if(options.getLoadFile() != null) {
+			try {
+				agent.load(new File(options.getLoadFile()));
+			} catch (IOException e) {
+				System.err.println("Exception occured while loading the knowledge base : " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Saves the knowledge base to the snapshot file, if any.
+	 */
+	private void saveKnowledgeBase() {
+		if(options.getSaveFile() != null) {
+			try {
+				agent.save(new File(options.getSaveFile()));
+			} catch (IOException e) {
+				System.err.println("Exception occured while saving the knowledge base : " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Serves the tell/ask requests over the loopback interface or the standard input.
+	 */
+	private void serve() {
+		QueryServer server = new QueryServer(agent, options.getThreads());
+		try {
+			if(options.isStdinServer()) {
+				server.serve(System.in, System.out);
+			}
+			else {
+				server.serve(options.getServerPort());
+			}
+		} catch (IOException e) {
+			System.err.println("Exception occured while serving the requests : " + e.getMessage());
+		}
+		finally {
+			server.shutdown();
+		}
+	}
+	
 	/**
 	 * Tells the facts/sentences to the inference engine.
 	 */
 	private void tellFacts() {
 		if(inputFacts != null) {
-			for(String fact : inputFacts) {
-				agent.tell(fact);
+			int threads = Math.min(options.getThreads(), inputFacts.size());
+			if(threads > 1) {
+				agent.tellAll(inputFacts, threads);
+			}
+			else {
+				for(String fact : inputFacts) {
+					agent.tell(fact);
+				}
 			}
 		}
 	}
@@ -1442,13 +7085,49 @@ public class homework {
 	private List<String> execute() {
 		List<String> outputLines = null;
 		if( (queries != null) && (queries.size() > 0) ) {
-			outputLines = new ArrayList<>();
-			boolean isQueryEntailed = false;
+			int threads = Math.min(options.getThreads(), queries.size());
+			if(threads > 1) {
+				outputLines = executeInParallel(threads);
+			}
+			else {
+				outputLines = new ArrayList<>();
+				for(String query : queries) {
+					outputLines.add(agent.ask(query).toString());
+				}
+			}
+		}
+		return outputLines;
+	}
+	
+	/**
+	 * Performs the inference for all the queries on a pool of threads.<BR>
+	 * Each query is answered in its own query context, and the results are collected in the order of the queries.
+	 * @param threads the number of threads.
+	 * @return the list of results.
+	 */
+	private List<String> executeInParallel(int threads) {
+		List<String> outputLines = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Answer>> answers = new ArrayList<>();
 			for(String query : queries) {
-				isQueryEntailed = agent.ask(query);
-				outputLines.add(String.valueOf(isQueryEntailed).toUpperCase());
+				answers.add(executor.submit(() -> agent.ask(query)));
+			}
+			for(Future<Answer> answer : answers) {
+				Answer queryAnswer = Answer.UNKNOWN;
+				try {
+					queryAnswer = answer.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					System.err.println("Interrupted while answering the queries : " + e.getMessage());
+				} catch (ExecutionException e) {
+					System.err.println("Exception occured while answering the query : " + e.getCause());
+				}
+				outputLines.add(queryAnswer.toString());
 			}
-			
+		}
+		finally {
+			executor.shutdownNow();
 		}
 		return outputLines;
 	}
@@ -1510,11 +7189,23 @@ public class homework {
 		String classPath = homework.class.getProtectionDomain().getCodeSource().getLocation().getPath();
 		try {
 			String decodedClassPath = URLDecoder.decode(classPath, "UTF-8");
-			homework hw = new homework(); 
-			hw.readInputParameters(decodedClassPath + inputFile);
+			ExecutionOptions options = ExecutionOptions.parse(args);
+			homework hw = new homework(options); 
+			
+			//the input file is optional in server mode
+			if(!options.isServer() || new File(decodedClassPath + inputFile).exists()) {
+				hw.readInputParameters(decodedClassPath + inputFile);
+			}
+			hw.loadKnowledgeBase();
 			hw.tellFacts();
-			List<String> outputLines = hw.execute();
-			writeToFile(outputLines, decodedClassPath + outputFile);
+			hw.saveKnowledgeBase();
+			if(options.isServer()) {
+				hw.serve();
+			}
+			else {
+				List<String> outputLines = hw.execute();
+				writeToFile(outputLines, decodedClassPath + outputFile);
+			}
 		} catch (UnsupportedEncodingException e) {
 			System.err.println("Exception occured : " + e.getMessage());
 		}	